@@ -4,9 +4,17 @@ import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ScanResult;
 import sox.Sox;
 import sox.command.AbstractCommand;
+import sox.command.CommandManager;
+import sox.command.ReflectiveCommandManager;
+import sox.command.index.CommandIndex;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * Handles finding command classes and automatically registering.
@@ -22,12 +30,23 @@ import javax.annotation.Nonnull;
  * Sox sox = ...
  * AutoRegister.jda("my.package").into(sox);
  * </code></pre>
+ * Projects compiled with the {@code sox-processor} annotation processor can skip scanning the class path
+ * by using the generated {@link CommandIndex command index}:
+ * <pre><code>
+ * AutoRegister.jdaFromIndex("my.package").into(sox);
+ * </code></pre>
  */
 public abstract class AutoRegister implements AutoCloseable {
     private final ScanResult result;
+    private final CommandIndex index;
+    private final List<CommandIndex.Entry> indexed;
+    private final ClassLoader loader;
 
     public AutoRegister(@Nonnull ScanResult result) {
         this.result = result;
+        this.index = null;
+        this.indexed = null;
+        this.loader = null;
     }
 
     public AutoRegister(@Nonnull ClassGraph classGraph) {
@@ -38,17 +57,85 @@ public abstract class AutoRegister implements AutoCloseable {
         this(new ClassGraph().whitelistPackages(packages));
     }
 
+    /**
+     * Finds the command classes in the given packages, and their subpackages, using a
+     * {@link CommandIndex command index} instead of scanning the class path. All commands of these
+     * packages must be compiled with the {@code sox-processor} annotation processor, as commands
+     * missing from the index aren't found.
+     *
+     * @param index Index of the commands.
+     * @param loader Class loader used for loading the commands.
+     * @param packages Packages to search.
+     *
+     * @throws IllegalStateException If the index has no commands in these packages.
+     */
+    public AutoRegister(@Nonnull CommandIndex index, @Nonnull ClassLoader loader, @Nonnull String... packages) {
+        List<CommandIndex.Entry> indexed = index.topLevel().stream()
+                .filter(e -> inPackages(e.className(), packages))
+                .collect(Collectors.toList());
+        if(indexed.isEmpty()) {
+            throw new IllegalStateException("No indexed commands found in packages " + Arrays.toString(packages)
+                    + ", make sure they're compiled with the sox-processor annotation processor");
+        }
+        this.result = null;
+        this.index = index;
+        this.indexed = indexed;
+        this.loader = loader;
+    }
+
     @Nonnull
     @CheckReturnValue
     public abstract Class<? extends AbstractCommand<?, ?>> commandClass();
 
+    /**
+     * Registers all the command classes found, using the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param sox Sox instance to register the commands to.
+     *
+     * @see #register(Sox, ForkJoinPool)
+     */
     public void register(Sox sox) {
-        result.getSubclasses(commandClass().getName()).filter(c -> c.getOuterClasses().isEmpty())
-                .filter(c -> !(c.isAbstract() || c.isSynthetic()))
-                .loadClasses()
-                .stream()
-                .<Class<? extends AbstractCommand<?, ?>>>map(c -> c.asSubclass(commandClass()))
-                .forEach(sox::registerCommand);
+        register(sox, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Registers all the command classes found.
+     *
+     * <br>If the command manager is a {@link ReflectiveCommandManager reflective} one, the commands are
+     * {@link ReflectiveCommandManager#registerClasses(Collection, ForkJoinPool) instantiated in parallel} on the
+     * given pool and registered at once. Otherwise, they're registered one by one, rebuilding the routes
+     * {@link CommandManager#deferRoutes(Runnable) once} at the end.
+     *
+     * @param sox Sox instance to register the commands to.
+     * @param pool Pool used for instantiating the commands.
+     */
+    @SuppressWarnings("unchecked")
+    public void register(Sox sox, ForkJoinPool pool) {
+        List<Class<? extends AbstractCommand<?, ?>>> classes;
+        if(result != null) {
+            classes = result.getSubclasses(commandClass().getName())
+                    .filter(c -> c.getOuterClasses().isEmpty())
+                    .filter(c -> !(c.isAbstract() || c.isSynthetic()))
+                    .loadClasses()
+                    .stream()
+                    .<Class<? extends AbstractCommand<?, ?>>>map(c -> c.asSubclass(commandClass()))
+                    .collect(Collectors.toList());
+        } else {
+            classes = indexed.stream()
+                    .map(e -> e.load(loader))
+                    .filter(commandClass()::isAssignableFrom)
+                    .<Class<? extends AbstractCommand<?, ?>>>map(c -> c.asSubclass(commandClass()))
+                    .collect(Collectors.toList());
+        }
+        CommandManager<?, ?, ?> manager = sox.commandManager();
+        if(manager instanceof ReflectiveCommandManager) {
+            if(index != null) {
+                ((ReflectiveCommandManager)manager).setCommandIndex(index);
+            }
+            ((ReflectiveCommandManager)manager).registerClasses(classes, pool);
+        } else {
+            manager.deferRoutes(() -> classes.forEach(sox::registerCommand));
+        }
     }
 
     public void into(Sox sox) {
@@ -59,7 +146,9 @@ public abstract class AutoRegister implements AutoCloseable {
 
     @Override
     public void close() {
-        result.close();
+        if(result != null) {
+            result.close();
+        }
     }
 
     @Nonnull
@@ -80,6 +169,25 @@ public abstract class AutoRegister implements AutoCloseable {
         return new ForClass(jdaCommandClass(), result);
     }
 
+    /**
+     * Finds the JDA command classes in the given packages, and their subpackages, using the
+     * {@link CommandIndex command indexes} visible to the context class loader.
+     *
+     * @param packages Packages to search.
+     *
+     * @return An AutoRegister for the indexed commands.
+     *
+     * @throws IllegalStateException If no indexed commands are found in these packages.
+     *
+     * @see #AutoRegister(CommandIndex, ClassLoader, String...)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static AutoRegister jdaFromIndex(@Nonnull String... packages) {
+        ClassLoader loader = defaultClassLoader();
+        return new ForClass(jdaCommandClass(), CommandIndex.load(loader), loader, packages);
+    }
+
     @Nonnull
     @CheckReturnValue
     private static Class<? extends AbstractCommand<?, ?>> jdaCommandClass() {
@@ -104,12 +212,48 @@ public abstract class AutoRegister implements AutoCloseable {
         return new ForClass(catnipCommandClass(), result);
     }
 
+    /**
+     * Finds the catnip command classes in the given packages, and their subpackages, using the
+     * {@link CommandIndex command indexes} visible to the context class loader.
+     *
+     * @param packages Packages to search.
+     *
+     * @return An AutoRegister for the indexed commands.
+     *
+     * @throws IllegalStateException If no indexed commands are found in these packages.
+     *
+     * @see #AutoRegister(CommandIndex, ClassLoader, String...)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static AutoRegister catnipFromIndex(@Nonnull String... packages) {
+        ClassLoader loader = defaultClassLoader();
+        return new ForClass(catnipCommandClass(), CommandIndex.load(loader), loader, packages);
+    }
+
     @Nonnull
     @CheckReturnValue
     private static Class<? extends AbstractCommand<?, ?>> catnipCommandClass() {
         return findClassOrThrow("sox.command.catnip.Command");
     }
 
+    @Nonnull
+    @CheckReturnValue
+    private static ClassLoader defaultClassLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader == null ? AutoRegister.class.getClassLoader() : loader;
+    }
+
+    @CheckReturnValue
+    private static boolean inPackages(@Nonnull String className, @Nonnull String[] packages) {
+        //same as ClassGraph, no packages means all of them
+        if(packages.length == 0) return true;
+        for(String p : packages) {
+            if(className.startsWith(p + ".")) return true;
+        }
+        return false;
+    }
+
     @Nonnull
     @CheckReturnValue
     @SuppressWarnings("unchecked")
@@ -139,6 +283,11 @@ public abstract class AutoRegister implements AutoCloseable {
             this.commandClass = commandClass;
         }
 
+        public ForClass(@Nonnull Class<? extends AbstractCommand<?, ?>> commandClass, CommandIndex index, ClassLoader loader, String... packages) {
+            super(index, loader, packages);
+            this.commandClass = commandClass;
+        }
+
         @Override
         @Nonnull
         @CheckReturnValue
@@ -0,0 +1,5 @@
+package sox.benchmark;
+
+import sox.command.AbstractCommand;
+
+public abstract class BenchCommand extends AbstractCommand<BenchContext, BenchCommand> {}
@@ -0,0 +1,24 @@
+package sox.benchmark;
+
+import sox.Sox;
+import sox.command.AbstractCommand;
+import sox.command.ReflectiveCommandManager;
+import sox.command.argument.Arguments;
+
+import javax.annotation.Nonnull;
+
+public class BenchCommandManager extends ReflectiveCommandManager<String, BenchContext, BenchCommand> {
+    public BenchCommandManager(@Nonnull Sox sox) {
+        super(sox);
+    }
+
+    @Override
+    public Class<? extends AbstractCommand<BenchContext, BenchCommand>> commandClass() {
+        return BenchCommand.class;
+    }
+
+    @Override
+    public BenchContext createContext(String message, Arguments arguments) {
+        return new BenchContext(sox(), arguments, message);
+    }
+}
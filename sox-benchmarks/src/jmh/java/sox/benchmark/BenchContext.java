@@ -0,0 +1,52 @@
+package sox.benchmark;
+
+import sox.Sox;
+import sox.command.AbstractContext;
+import sox.command.argument.Arguments;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+
+/**
+ * Minimal context, with no discord library attached.
+ */
+public class BenchContext extends AbstractContext<BenchContext> {
+    private final String message;
+
+    public BenchContext(@Nonnull Sox sox, @Nonnull Arguments arguments, @Nonnull String message) {
+        super(sox, arguments, new HashMap<>());
+        this.message = message;
+    }
+
+    protected BenchContext(@Nonnull BenchContext other) {
+        super(other);
+        this.message = other.message;
+    }
+
+    @Nonnull
+    public String message() {
+        return message;
+    }
+
+    @Nonnull
+    @Override
+    public BenchContext snapshot() {
+        return new BenchContext(this);
+    }
+
+    /**
+     * Snapshot as implemented before snapshots became copy-on-write, eagerly copying
+     * the custom properties and service manager.
+     *
+     * @return A snapshot of this context.
+     */
+    @Nonnull
+    public BenchContext eagerSnapshot() {
+        BenchContext context = new BenchContext(sox, arguments.snapshot(), message);
+        if(serviceManager != null) {
+            context.serviceManager = serviceManager.snapshot(HashMap::new);
+        }
+        context.customProperties.putAll(customProperties);
+        return context;
+    }
+}
@@ -0,0 +1,28 @@
+package sox.benchmark;
+
+import sox.SoxBuilder;
+import sox.impl.SoxImpl;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+
+/**
+ * Builds sox instances whose messages are plain strings, already stripped of their prefix.
+ */
+public class BenchSoxBuilder extends SoxBuilder<String, BenchContext, BenchCommand, BenchSoxBuilder> {
+    public BenchSoxBuilder() {
+        super(BenchCommandManager::new);
+    }
+
+    @Nonnull
+    @CheckReturnValue
+    @Override
+    protected SoxImpl<String, BenchContext, BenchCommand> newInstance() {
+        return new SoxImpl<String, BenchContext, BenchCommand>() {
+            @Override
+            public void accept(String message) {
+                withCommandManager(cm -> cm.process(message, message));
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package sox.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads fresh copies of the benchmark command classes, each in it's own class loader, so registering
+ * them pays for cold reflection, injection and dispatch metadata, as it would at startup.
+ */
+public final class CommandCopies {
+    private static final Class<?>[] TEMPLATES = { Commands.class, Overloads.class };
+
+    private CommandCopies() {}
+
+    /**
+     * Loads the given amount of copies of every command in {@link Commands} and {@link Overloads}.
+     *
+     * @param copies Amount of copies.
+     *
+     * @return The loaded command classes.
+     */
+    public static List<Class<? extends BenchCommand>> load(int copies) {
+        Set<String> names = new HashSet<>();
+        for(Class<?> template : TEMPLATES) {
+            names.add(template.getName());
+            for(Class<?> c : template.getDeclaredClasses()) {
+                names.add(c.getName());
+            }
+        }
+        List<Class<? extends BenchCommand>> classes = new ArrayList<>();
+        for(int i = 0; i < copies; i++) {
+            CopyingClassLoader loader = new CopyingClassLoader(names);
+            for(String name : names) {
+                Class<?> c = loader.load(name);
+                if(BenchCommand.class.isAssignableFrom(c)) {
+                    classes.add(c.asSubclass(BenchCommand.class));
+                }
+            }
+        }
+        return classes;
+    }
+
+    //defines it's own copy of the given classes, delegating everything else to the parent
+    private static class CopyingClassLoader extends ClassLoader {
+        private final Set<String> names;
+
+        CopyingClassLoader(Set<String> names) {
+            super(CommandCopies.class.getClassLoader());
+            this.names = names;
+        }
+
+        Class<?> load(String name) {
+            try {
+                return loadClass(name);
+            } catch(ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if(!names.contains(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized(getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if(c == null) {
+                    byte[] bytes = read(name.replace('.', '/') + ".class");
+                    c = defineClass(name, bytes, 0, bytes.length);
+                }
+                if(resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+
+        private byte[] read(String resource) throws ClassNotFoundException {
+            try(InputStream in = getParent().getResourceAsStream(resource)) {
+                if(in == null) throw new ClassNotFoundException(resource);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
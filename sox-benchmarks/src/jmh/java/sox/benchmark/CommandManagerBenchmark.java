@@ -0,0 +1,66 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.Sox;
+import sox.command.CommandManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full message to handler path: routing, splitting, context creation, hooks and dispatch.
+ * <br>Misses include calling the unmatched command handler.
+ * <br>{@code hooks} global hooks are registered, split evenly between filters, before, after and error hooks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandManagerBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"0", "12"})
+    public int hooks;
+
+    private CommandManager<String, BenchContext, BenchCommand> manager;
+    private String[] hits;
+    private String[] misses;
+    private int index;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setup() {
+        BenchSoxBuilder builder = new BenchSoxBuilder()
+                .unmatchedCommandHandler((__, message, name, remaining) -> Commands.sink = name);
+        for(int i = 0; i < hooks; i++) {
+            switch(i & 3) {
+                case 0: builder.commandFilter((context, command) -> context.arguments() != null); break;
+                case 1: builder.beforeCommands((context, command) -> Commands.sink = command); break;
+                case 2: builder.afterCommands((context, command) -> Commands.sink = context); break;
+                default: builder.commandErrorHandler((context, command, e) -> false); break;
+            }
+        }
+        Sox sox = builder.build();
+        Commands.registerAll(sox);
+        manager = (CommandManager<String, BenchContext, BenchCommand>)sox.commandManager();
+        hits = Corpus.hits(SIZE, 2);
+        misses = Corpus.misses(SIZE, 3);
+    }
+
+    @Benchmark
+    public void hit() {
+        String message = hits[index++ & (SIZE - 1)];
+        manager.process(message, message);
+    }
+
+    @Benchmark
+    public void miss() {
+        String message = misses[index++ & (SIZE - 1)];
+        manager.process(message, message);
+    }
+}
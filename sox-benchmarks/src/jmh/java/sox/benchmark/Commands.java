@@ -0,0 +1,119 @@
+package sox.benchmark;
+
+import sox.Sox;
+import sox.command.dispatch.config.Lenient;
+import sox.command.dispatch.config.Range;
+import sox.command.dispatch.config.RemainingContent;
+import sox.command.meta.Alias;
+import sox.command.meta.Description;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Commands invoked by the {@link Corpus#hits(int, long) hit corpus}. Handlers only consume their
+ * arguments, so benchmarks measure routing, parsing and dispatching.
+ */
+public final class Commands {
+    public static final List<Class<? extends BenchCommand>> ALL = Arrays.asList(
+            Ping.class, Daily.class, Help.class, Bet.class, Transfer.class,
+            Ban.class, Play.class, Remind.class, Roll.class, Music.class
+    );
+
+    //written by handlers, so their work can't be eliminated
+    public static volatile Object sink;
+
+    private Commands() {}
+
+    public static void registerAll(Sox sox) {
+        for(Class<? extends BenchCommand> c : ALL) {
+            sox.registerCommand(c);
+        }
+    }
+
+    @Description("Pong!")
+    public static class Ping extends BenchCommand {
+        public void process(BenchContext context) {
+            sink = context;
+        }
+    }
+
+    public static class Daily extends BenchCommand {
+        public void process(BenchContext context) {
+            sink = context;
+        }
+    }
+
+    @Alias("h")
+    public static class Help extends BenchCommand {
+        public void process(BenchContext context, String command) {
+            sink = command;
+        }
+
+        public void process(BenchContext context) {
+            sink = context;
+        }
+    }
+
+    @Alias("gamble")
+    public static class Bet extends BenchCommand {
+        public void process(BenchContext context, @Lenient @Range(from = 1, to = Integer.MAX_VALUE) int amount) {
+            sink = context;
+        }
+
+        public void process(BenchContext context, String amount) {
+            sink = amount;
+        }
+    }
+
+    @Alias("pay")
+    public static class Transfer extends BenchCommand {
+        public void process(BenchContext context, String user, @Lenient long amount) {
+            sink = user;
+        }
+
+        public void process(BenchContext context, String user, String amount) {
+            sink = amount;
+        }
+    }
+
+    public static class Ban extends BenchCommand {
+        public void process(BenchContext context, String user, @RemainingContent String reason) {
+            sink = reason;
+        }
+
+        public void process(BenchContext context, String user) {
+            sink = user;
+        }
+    }
+
+    @Alias("p")
+    public static class Play extends BenchCommand {
+        public void process(BenchContext context, @RemainingContent String query) {
+            sink = query;
+        }
+    }
+
+    public static class Remind extends BenchCommand {
+        public void process(BenchContext context, String time, @RemainingContent String text) {
+            sink = text;
+        }
+    }
+
+    public static class Roll extends BenchCommand {
+        public void process(BenchContext context, String dice) {
+            sink = dice;
+        }
+    }
+
+    @Alias("m")
+    public static class Music extends BenchCommand {
+        public void process(BenchContext context, String action, int value) {
+            sink = action;
+        }
+
+        public void process(BenchContext context, String action) {
+            sink = action;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.Sox;
+import sox.command.ContextKey;
+import sox.command.argument.Arguments;
+import sox.command.argument.split.StringSplitter;
+import sox.command.argument.split.TokenOffsets;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Context snapshots, copy-on-write compared to eagerly copying the custom properties and
+ * service manager, as done before.
+ * <br>{@code properties} is the amount of custom properties set, and {@code services} whether
+ * the context has it's own service manager, with services registered to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContextSnapshotBenchmark {
+    @Param({"0", "4"})
+    public int properties;
+
+    @Param({"false", "true"})
+    public boolean services;
+
+    private BenchContext context;
+
+    @Setup
+    public void setup() {
+        Sox sox = new BenchSoxBuilder().build();
+        Services.populate(sox.serviceManager());
+        String message = "transfer <@132584525296435200> 1.5k";
+        TokenOffsets tokens = new StringSplitter().tokenize(message, 0, new TokenOffsets());
+        context = new BenchContext(sox, new Arguments(tokens), message);
+        for(int i = 0; i < properties; i++) {
+            context.put(new ContextKey<>(Integer.class, 0), i);
+        }
+        if(services) {
+            //copies the sox service manager into the context
+            context.serviceManager().registerService(new Services.InvocationState());
+        }
+    }
+
+    @Benchmark
+    public BenchContext copyOnWrite() {
+        return context.snapshot();
+    }
+
+    @Benchmark
+    public BenchContext eager() {
+        return context.eagerSnapshot();
+    }
+}
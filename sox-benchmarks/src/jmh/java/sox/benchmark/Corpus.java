@@ -0,0 +1,163 @@
+package sox.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic message corpora, modeled after the traffic of a mid sized bot.
+ * <br>Messages are already stripped of their prefix, as they'd be given to
+ * {@link sox.command.CommandManager#process(Object, String) process}.
+ */
+public final class Corpus {
+    private static final String[] USERS = {
+            "<@132584525296435200>", "<@!267207628965281792>", "<@213466096718708737>", "<@!155149108183695360>"
+    };
+    private static final String[] CHANNELS = {
+            "<#239485234234523234>", "<#462947208213004310>"
+    };
+    private static final String[] WORDS = {
+            "the", "a", "spamming", "links", "in", "general", "please", "stop", "lol", "ok", "what", "is", "this",
+            "music", "queue", "again", "why", "\uD83D\uDE02", "\uD83D\uDC4D", "gg", "wp", "tomorrow", "raid", "at", "8pm",
+            "anyone", "online", "hello", "there", "thanks", "bot", "broke", "help", "me", "with", "my", "balance"
+    };
+    private static final String[] AMOUNTS = {
+            "100", "2500", "1.5k", "10k", "250,000", "1kk", "3m", "all", "half", "99999999999", "-5", "12.5"
+    };
+    private static final String[] URLS = {
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ", "https://soundcloud.com/artist/track-name",
+            "http://example.com/a?b=c", "ytsearch:never gonna give you up"
+    };
+    private static final String[] TYPOS = {
+            "pign", "hepl", "balnce", "dialy", "plya", "tranfser", "rol", "profiel", "remnid", "qeue"
+    };
+
+    private Corpus() {}
+
+    /**
+     * Messages invoking the commands in {@link Commands}, with realistic arguments.
+     *
+     * @param count Amount of messages.
+     * @param seed Random seed.
+     *
+     * @return Messages hitting registered commands.
+     */
+    public static String[] hits(int count, long seed) {
+        Random r = new Random(seed);
+        String[] messages = new String[count];
+        for(int i = 0; i < count; i++) {
+            switch(r.nextInt(10)) {
+                case 0: messages[i] = "ping"; break;
+                case 1: messages[i] = "daily"; break;
+                case 2: messages[i] = "help " + pick(r, "music", "economy", "ban", "remind"); break;
+                case 3: messages[i] = "bet " + pick(r, AMOUNTS); break;
+                case 4: messages[i] = "transfer " + pick(r, USERS) + " " + pick(r, AMOUNTS); break;
+                case 5: messages[i] = "ban " + pick(r, USERS) + " " + sentence(r, 1 + r.nextInt(8)); break;
+                case 6: messages[i] = "play " + pick(r, URLS); break;
+                case 7: messages[i] = "remind " + (1 + r.nextInt(48)) + pick(r, "m", "h", "d") + " " + sentence(r, 1 + r.nextInt(6)); break;
+                case 8: messages[i] = "roll " + (1 + r.nextInt(4)) + "d" + pick(r, "6", "20", "100"); break;
+                default: messages[i] = "music " + pick(r, "queue", "skip", "volume " + r.nextInt(150), "np"); break;
+            }
+            if(r.nextInt(8) == 0) {
+                messages[i] = messages[i].toUpperCase();
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Messages that had a valid prefix but don't invoke any command, such as typos
+     * and people talking to the bot.
+     *
+     * @param count Amount of messages.
+     * @param seed Random seed.
+     *
+     * @return Messages not matching any registered command.
+     */
+    public static String[] misses(int count, long seed) {
+        Random r = new Random(seed);
+        String[] messages = new String[count];
+        for(int i = 0; i < count; i++) {
+            if(r.nextBoolean()) {
+                messages[i] = pick(r, TYPOS) + (r.nextBoolean() ? "" : " " + pick(r, AMOUNTS));
+            } else {
+                messages[i] = sentence(r, 2 + r.nextInt(12));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Free form chat messages, with mentions, emoji and irregular whitespace.
+     *
+     * @param count Amount of messages.
+     * @param seed Random seed.
+     *
+     * @return Chat messages.
+     */
+    public static String[] chat(int count, long seed) {
+        Random r = new Random(seed);
+        String[] messages = new String[count];
+        for(int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int words = 1 + r.nextInt(r.nextInt(10) == 0 ? 80 : 15);
+            for(int j = 0; j < words; j++) {
+                if(j > 0) {
+                    switch(r.nextInt(20)) {
+                        case 0: sb.append("  "); break;
+                        case 1: sb.append('\n'); break;
+                        case 2: sb.append(" \t"); break;
+                        default: sb.append(' ');
+                    }
+                }
+                switch(r.nextInt(25)) {
+                    case 0: sb.append(pick(r, USERS)); break;
+                    case 1: sb.append(pick(r, CHANNELS)); break;
+                    case 2: sb.append(pick(r, URLS)); break;
+                    default: sb.append(pick(r, WORDS));
+                }
+            }
+            messages[i] = sb.toString();
+        }
+        return messages;
+    }
+
+    /**
+     * Argument strings for overloaded handlers, mixing integers, lenient amounts, decimals and words.
+     *
+     * @param count Amount of strings.
+     * @param seed Random seed.
+     *
+     * @return Argument strings, possibly empty.
+     */
+    public static String[] arguments(int count, long seed) {
+        Random r = new Random(seed);
+        String[] arguments = new String[count];
+        for(int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int tokens = r.nextInt(5);
+            for(int j = 0; j < tokens; j++) {
+                if(j > 0) sb.append(' ');
+                switch(r.nextInt(4)) {
+                    case 0: sb.append(r.nextInt(1000)); break;
+                    case 1: sb.append(pick(r, AMOUNTS)); break;
+                    case 2: sb.append(r.nextInt(100)).append('.').append(r.nextInt(100)); break;
+                    default: sb.append(pick(r, WORDS));
+                }
+            }
+            arguments[i] = sb.toString();
+        }
+        return arguments;
+    }
+
+    private static String sentence(Random r, int words) {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < words; i++) {
+            if(i > 0) sb.append(' ');
+            sb.append(pick(r, WORDS));
+        }
+        return sb.toString();
+    }
+
+    private static String pick(Random r, String... values) {
+        return values[r.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,69 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.Sox;
+import sox.command.argument.Arguments;
+import sox.command.argument.split.StringSplitter;
+import sox.command.argument.split.TokenOffsets;
+import sox.command.dispatch.DynamicCommandDispatcher;
+import sox.command.dispatch.GeneratedCommandDispatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatching already split arguments to commands with 1, 5 and 20 handler overloads,
+ * with and without parse memoization, through the dynamic dispatcher and through the code
+ * generated by sox-processor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"1", "5", "20"})
+    public int overloads;
+
+    @Param({"false", "true"})
+    public boolean memoization;
+
+    @Param({"dynamic", "generated"})
+    public String dispatcherType;
+
+    private DynamicCommandDispatcher dispatcher;
+    private BenchCommand command;
+    private BenchContext[] contexts;
+    private int index;
+
+    @Setup
+    public void setup() {
+        dispatcher = dispatcherType.equals("generated") ? new GeneratedCommandDispatcher() : new DynamicCommandDispatcher();
+        dispatcher.setParseMemoization(memoization);
+        Sox sox = new BenchSoxBuilder().commandDispatcher(dispatcher).build();
+        command = sox.instantiate(Overloads.withOverloads(overloads));
+        if(dispatcher instanceof GeneratedCommandDispatcher && !((GeneratedCommandDispatcher)dispatcher).isGenerated(command.getClass())) {
+            throw new IllegalStateException("No generated dispatch code for " + command.getClass() + ", is sox-processor enabled?");
+        }
+        StringSplitter splitter = new StringSplitter();
+        String[] arguments = Corpus.arguments(SIZE, 4);
+        contexts = new BenchContext[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            TokenOffsets tokens = splitter.tokenize(arguments[i], 0, new TokenOffsets());
+            contexts[i] = new BenchContext(sox, new Arguments(tokens), arguments[i]);
+        }
+        //build the dispatch metadata or load the generated code outside of the measurement
+        dispatcher.dispatch(command, contexts[0]);
+    }
+
+    @Benchmark
+    public void dispatch() {
+        dispatcher.dispatch(command, contexts[index++ & (SIZE - 1)]);
+    }
+}
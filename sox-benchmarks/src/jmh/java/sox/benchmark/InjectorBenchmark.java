@@ -0,0 +1,43 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.inject.Injector;
+import sox.service.ServiceManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instantiating classes with injected constructor dependencies, as done for every registered command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InjectorBenchmark {
+    private Injector injector;
+
+    @Setup
+    public void setup() {
+        injector = new Injector(Services.populate(new ServiceManager()));
+    }
+
+    @Benchmark
+    public Object noDependencies() {
+        return injector.instantiate(Commands.Ping.class);
+    }
+
+    @Benchmark
+    public Object dependencies() {
+        return injector.instantiate(Services.EconomyService.class);
+    }
+
+    @Benchmark
+    public Object ambiguousAndMissingDependencies() {
+        return injector.instantiate(Services.ModerationService.class);
+    }
+}
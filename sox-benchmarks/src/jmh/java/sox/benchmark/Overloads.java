@@ -0,0 +1,132 @@
+package sox.benchmark;
+
+import sox.command.dispatch.config.Lenient;
+import sox.command.dispatch.config.RemainingContent;
+
+/**
+ * Commands with 1, 5 and 20 handler overloads, dispatched with the {@link Corpus#arguments(int, long) argument corpus}.
+ * <br>Overloads share parameter prefixes, as they usually do in real commands, so the dispatcher has
+ * to backtrack between them.
+ */
+public final class Overloads {
+    private Overloads() {}
+
+    public static Class<? extends BenchCommand> withOverloads(int overloads) {
+        switch(overloads) {
+            case 1: return One.class;
+            case 5: return Five.class;
+            case 20: return Twenty.class;
+            default: throw new IllegalArgumentException("No command with " + overloads + " overloads");
+        }
+    }
+
+    public static class One extends BenchCommand {
+        public void process(BenchContext context, @RemainingContent String text) {
+            Commands.sink = text;
+        }
+    }
+
+    public static class Five extends BenchCommand {
+        public void process(BenchContext context, int a, int b, int c) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, int a, String b) {
+            Commands.sink = b;
+        }
+
+        public void process(BenchContext context, String a, int b) {
+            Commands.sink = a;
+        }
+
+        public void process(BenchContext context, double a) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context) {
+            Commands.sink = context;
+        }
+    }
+
+    public static class Twenty extends BenchCommand {
+        public void process(BenchContext context, int a, int b, int c, int d) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, int a, int b, int c) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, int a, int b, String c) {
+            Commands.sink = c;
+        }
+
+        public void process(BenchContext context, int a, String b, int c) {
+            Commands.sink = b;
+        }
+
+        public void process(BenchContext context, String a, int b, int c) {
+            Commands.sink = a;
+        }
+
+        public void process(BenchContext context, int a, int b) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, int a, String b) {
+            Commands.sink = b;
+        }
+
+        public void process(BenchContext context, String a, int b) {
+            Commands.sink = a;
+        }
+
+        public void process(BenchContext context, String a, String b, int c) {
+            Commands.sink = b;
+        }
+
+        public void process(BenchContext context, double a, double b) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, long a, String b, String c) {
+            Commands.sink = c;
+        }
+
+        public void process(BenchContext context, @Lenient long a, @Lenient long b) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, String a, @Lenient long b) {
+            Commands.sink = a;
+        }
+
+        public void process(BenchContext context, double a, String b) {
+            Commands.sink = b;
+        }
+
+        public void process(BenchContext context, String a, double b) {
+            Commands.sink = a;
+        }
+
+        public void process(BenchContext context, int a) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, double a) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, @Lenient long a) {
+            Commands.sink = context;
+        }
+
+        public void process(BenchContext context, String a) {
+            Commands.sink = a;
+        }
+
+        public void process(BenchContext context) {
+            Commands.sink = context;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.command.argument.Parser;
+import sox.command.dispatch.ParserRegistry;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the parsers of handler methods, as done when dispatch metadata is built,
+ * and of single annotated parameters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserRegistryBenchmark {
+    private final ParserRegistry registry = new ParserRegistry();
+    private Method[] methods;
+    private Type[] types;
+    private Annotation[][] annotations;
+    private int index;
+
+    @Setup
+    public void setup() {
+        List<Method> list = new ArrayList<>();
+        for(Class<?> c : Commands.ALL) {
+            collectHandlers(c, list);
+        }
+        collectHandlers(Overloads.Twenty.class, list);
+        methods = list.toArray(new Method[0]);
+        List<Type> typeList = new ArrayList<>();
+        List<Annotation[]> annotationList = new ArrayList<>();
+        for(Method m : methods) {
+            Type[] parameterTypes = m.getGenericParameterTypes();
+            Annotation[][] parameterAnnotations = m.getParameterAnnotations();
+            //skip the context
+            for(int i = 1; i < parameterTypes.length; i++) {
+                typeList.add(parameterTypes[i]);
+                annotationList.add(parameterAnnotations[i]);
+            }
+        }
+        types = typeList.toArray(new Type[0]);
+        annotations = annotationList.toArray(new Annotation[0][]);
+    }
+
+    @Benchmark
+    public Parser<?>[] resolveMethod() {
+        return registry.resolve(methods[index++ % methods.length]);
+    }
+
+    @Benchmark
+    public Parser<?> resolveParameter() {
+        int i = index++ % types.length;
+        return registry.resolve(types[i], annotations[i]);
+    }
+
+    private static void collectHandlers(Class<?> c, List<Method> into) {
+        for(Method m : c.getDeclaredMethods()) {
+            if(m.getName().equals("process") && m.getParameterCount() > 1) {
+                into.add(m);
+            }
+        }
+    }
+}
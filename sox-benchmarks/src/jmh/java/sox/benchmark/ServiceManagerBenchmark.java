@@ -0,0 +1,67 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.service.ServiceHandle;
+import sox.service.ServiceManager;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service lookups by exact class, interface and superclass, lookups with no match and
+ * {@link ServiceHandle handles}, as done by the injector and contexts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServiceManagerBenchmark {
+    private ServiceManager manager;
+    private ServiceHandle<Services.Database> handle;
+
+    @Setup
+    public void setup() {
+        manager = Services.populate(new ServiceManager());
+        handle = manager.handle(Services.Database.class);
+    }
+
+    @Benchmark
+    public Object getServiceExact() {
+        return manager.getService(Services.Config.class);
+    }
+
+    @Benchmark
+    public Object getServiceInterface() {
+        return manager.getService(Services.Database.class);
+    }
+
+    @Benchmark
+    public Object handle() {
+        return handle.get();
+    }
+
+    @Benchmark
+    public Set<?> findServicesExact() {
+        return manager.findServices(Services.RedisCache.class, false);
+    }
+
+    @Benchmark
+    public Set<?> findServicesInterface() {
+        return manager.findServices(Services.Cache.class, true);
+    }
+
+    @Benchmark
+    public Set<?> findServicesSuperclass() {
+        return manager.findServices(Services.AbstractCache.class, true);
+    }
+
+    @Benchmark
+    public Set<?> findServicesMiss() {
+        return manager.findServices(Services.Unregistered.class, true);
+    }
+}
@@ -0,0 +1,67 @@
+package sox.benchmark;
+
+import sox.inject.AllowNull;
+import sox.service.ServiceManager;
+
+/**
+ * Service hierarchy of a typical bot: a few interfaces with one or more implementations,
+ * abstract bases and standalone services.
+ */
+public final class Services {
+    private Services() {}
+
+    public static ServiceManager populate(ServiceManager manager) {
+        manager.registerService(new PostgresDatabase());
+        manager.registerService(new RedisCache());
+        manager.registerService(new LocalCache());
+        manager.registerService(new PrometheusMetrics());
+        manager.registerService(new Config());
+        manager.registerService(new HttpClient());
+        manager.registerService(new AudioPlayerManager());
+        manager.registerService(new RateLimiter());
+        manager.registerService(new Scheduler());
+        manager.registerService(new Translations());
+        return manager;
+    }
+
+    public interface Database {}
+
+    public interface Cache {}
+
+    public interface Metrics {}
+
+    public interface Unregistered {}
+
+    public static abstract class AbstractCache implements Cache {}
+
+    public static class PostgresDatabase implements Database {}
+
+    public static class RedisCache extends AbstractCache {}
+
+    public static class LocalCache extends AbstractCache {}
+
+    public static class PrometheusMetrics implements Metrics {}
+
+    public static class Config {}
+
+    public static class HttpClient {}
+
+    public static class AudioPlayerManager {}
+
+    public static class RateLimiter {}
+
+    public static class Scheduler {}
+
+    public static class Translations {}
+
+    //registered to context service managers
+    public static class InvocationState {}
+
+    public static class EconomyService {
+        public EconomyService(Database database, RedisCache cache, Metrics metrics, Config config) {}
+    }
+
+    public static class ModerationService {
+        public ModerationService(Database database, Cache cache, RateLimiter limiter, @AllowNull Unregistered optional) {}
+    }
+}
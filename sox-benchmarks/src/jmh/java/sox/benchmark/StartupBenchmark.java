@@ -0,0 +1,60 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.Sox;
+import sox.command.ReflectiveCommandManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registering freshly loaded command classes, one by one and with parallel registration. With
+ * {@code prepared}, the time includes preparing the dispatch metadata of every command, which is otherwise
+ * done lazily by the first dispatch.
+ * <br>{@code copies} copies of the 13 benchmark commands are registered, so 40 copies is 520 commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+    @Param({"40"})
+    public int copies;
+
+    @Param({"serial", "parallel", "prepared"})
+    public String registration;
+
+    private Sox sox;
+    private ReflectiveCommandManager<String, BenchContext, BenchCommand> manager;
+    private List<Class<? extends BenchCommand>> classes;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Invocation)
+    public void setup() {
+        sox = new BenchSoxBuilder().build();
+        manager = (ReflectiveCommandManager<String, BenchContext, BenchCommand>)sox.commandManager();
+        classes = CommandCopies.load(copies);
+    }
+
+    @Benchmark
+    public Object register() {
+        switch(registration) {
+            case "serial":
+                for(Class<? extends BenchCommand> c : classes) {
+                    sox.registerCommand(c);
+                }
+                return manager;
+            case "parallel":
+                return manager.registerClasses(classes);
+            default:
+                return manager.registerClasses(classes).join();
+        }
+    }
+}
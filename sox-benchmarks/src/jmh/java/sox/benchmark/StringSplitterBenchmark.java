@@ -0,0 +1,59 @@
+package sox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sox.command.argument.split.SplitString;
+import sox.command.argument.split.StringSplitter;
+import sox.command.argument.split.TokenOffsets;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting message content into arguments, with the default whitespace splitter
+ * and a custom pattern, which takes the regex path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringSplitterBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"chat", "commands"})
+    public String corpus;
+
+    private final StringSplitter whitespace = new StringSplitter();
+    private final StringSplitter custom = new StringSplitter("[\\s,]+");
+    private final TokenOffsets offsets = new TokenOffsets();
+    private String[] messages;
+    private int index;
+
+    @Setup
+    public void setup() {
+        messages = corpus.equals("chat") ? Corpus.chat(SIZE, 1) : Corpus.hits(SIZE, 1);
+    }
+
+    @Benchmark
+    public SplitString[] split() {
+        return whitespace.split(next());
+    }
+
+    @Benchmark
+    public TokenOffsets tokenize() {
+        return whitespace.tokenize(next(), 0, offsets);
+    }
+
+    @Benchmark
+    public SplitString[] splitCustomPattern() {
+        return custom.split(next());
+    }
+
+    private String next() {
+        return messages[index++ & (SIZE - 1)];
+    }
+}
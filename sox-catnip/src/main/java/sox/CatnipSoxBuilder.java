@@ -52,7 +52,7 @@ public class CatnipSoxBuilder extends SoxBuilder<Message, Context, Command, Catn
 
     @Override
     protected void addDefaultErrorHandlers(CommandManager<Message, Context, Command> manager) {
-        manager.commandHooks().add(CommandHook.fromErrorHandler((context, command, e) -> {
+        manager.addHook(CommandHook.fromErrorHandler((context, command, e) -> {
             if(e instanceof ArgumentParseError) {
                 context.send("Bad argument: " + e.getMessage());
                 return true;
@@ -31,6 +31,11 @@ public class Context extends AbstractContext<Context> {
         this.message = message;
     }
 
+    protected Context(@Nonnull Context other) {
+        super(other);
+        this.message = other.message;
+    }
+
     @Nonnull
     public CompletionStage<Message> send(@Nonnull String content) {
         return message.catnip().rest().channel().sendMessage(message.channelId(), content);
@@ -70,12 +75,18 @@ public class Context extends AbstractContext<Context> {
     @Nonnull
     @CheckReturnValue
     public Context snapshot() {
-        Context context = new Context(sox, arguments.snapshot(), message);
-        if(serviceManager != null) {
-            context.serviceManager = serviceManager.snapshot();
-        }
-        context.customProperties.putAll(customProperties);
-        return context;
+        return new Context(this);
+    }
+
+    /**
+     * Returns the ID of the guild the message was sent in, or null for direct messages.
+     *
+     * @return The ID of the guild, as a {@code String}.
+     */
+    @Override
+    @CheckReturnValue
+    public Object guildKey() {
+        return message.guildId();
     }
 
     @CheckReturnValue
@@ -3,11 +3,21 @@ package sox.command.catnip;
 import com.mewna.catnip.Catnip;
 import com.mewna.catnip.entity.user.User;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 class SelfInfoHolder {
-    private State state;
+    private volatile State state;
+
+    //mention prefixes, completed once the self user is known
+    CompletionStage<List<String>> mentionPrefixes(Catnip catnip) {
+        State state = this.state;
+        if(state != null) return state.mentionPrefixes;
+        return fetch(catnip).thenCompose(s -> s.mentionPrefixes);
+    }
 
     CompletionStage<State> fetch(Catnip catnip) {
         if(state != null) return CompletableFuture.completedFuture(state);
@@ -29,11 +39,14 @@ class SelfInfoHolder {
         final String id;
         final String userMention;
         final String memberMention;
+        final CompletableFuture<List<String>> mentionPrefixes;
 
         State(String id) {
             this.id = id;
             this.userMention = "<@" + id + ">";
             this.memberMention = "<@!" + id + ">";
+            this.mentionPrefixes = CompletableFuture.completedFuture(
+                    Collections.unmodifiableList(Arrays.asList(userMention, memberMention)));
         }
     }
 }
@@ -8,22 +8,18 @@ import com.mewna.catnip.entity.channel.TextChannel;
 import com.mewna.catnip.entity.channel.VoiceChannel;
 import com.mewna.catnip.entity.guild.Member;
 import com.mewna.catnip.entity.user.User;
+import sox.command.argument.LongParser;
 import sox.command.argument.Parser;
-import sox.command.argument.Parsers;
+import sox.command.argument.Snowflakes;
+import sox.command.argument.UserTag;
 import sox.command.catnip.Context;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import java.util.Collection;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public final class CatnipParsers {
-    private static final Pattern CHANNEL_MENTION_PATTERN = Pattern.compile("^<#(\\d{1,20})>$");
-    private static final Pattern MENTION_PATTERN = Pattern.compile("^<@!?(\\d{1,20})>$");
-    private static final Pattern TAG_PATTERN = Pattern.compile("^(.{2,32})#(\\d{4})$");
-
     private CatnipParsers() {}
 
     /**
@@ -59,42 +55,26 @@ public final class CatnipParsers {
     @Nonnull
     @CheckReturnValue
     public static Parser<User> user() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID | Snowflakes.USER_MENTION);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
-            Optional<Long> id = longParser.parse(c, arguments);
+            long id = idParser.parseLong(c, arguments);
             NamedCacheView<User> cache = c.message().catnip().cache().users();
-            if(id.isPresent()) {
-                return id.map(cache::getById);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(cache.getById(id));
             }
             arguments.back();
-            String search = arguments.next().getValue();
-            Matcher mention = MENTION_PATTERN.matcher(search);
-            if(mention.find()) {
-                try {
-                    return Optional.ofNullable(cache.getById(
-                            Long.parseUnsignedLong(mention.group(1))
-                    ));
-                } catch(NumberFormatException ignored) {}
-            }
-            Matcher tagMatcher = TAG_PATTERN.matcher(search);
-            while(!search.contains("#") || !tagMatcher.find()) {
-                //37 = 32 name characters + 1 (# character) + 4 discriminator characters
-                if(search.length() >= 37 || !arguments.hasNext()) {
-                    return Optional.empty();
-                }
-                search += arguments.next().getRawValue();
-                tagMatcher = TAG_PATTERN.matcher(search);
-            }
-            String username = tagMatcher.group(1);
-            String discriminator = tagMatcher.group(2);
+            UserTag tag = UserTag.find(arguments);
+            if(tag == null) return Optional.empty();
+            String username = tag.name();
+            int discriminator = tag.discriminator();
             Collection<User> nameEquals = cache
-                    .find(u -> u.username().equals(username) && u.discriminator().equals(discriminator));
+                    .find(u -> u.username().equals(username) && UserTag.parseDiscriminator(u.discriminator()) == discriminator);
             if(!nameEquals.isEmpty()) {
                 return Optional.of(nameEquals.iterator().next());
             }
             Collection<User> nameEqualsIgnoreCase = cache
-                    .find(u -> u.username().equalsIgnoreCase(username) && u.discriminator().equals(discriminator));
+                    .find(u -> u.username().equalsIgnoreCase(username) && UserTag.parseDiscriminator(u.discriminator()) == discriminator);
             if(!nameEqualsIgnoreCase.isEmpty()) {
                 return Optional.of(nameEqualsIgnoreCase.iterator().next());
             }
@@ -116,47 +96,20 @@ public final class CatnipParsers {
      * @return A parser that matches a text channel of the current guild.
      */
     public static Parser<TextChannel> textChannel() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID | Snowflakes.CHANNEL_MENTION);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             MessageChannel channel = c.message().channel();
             if(channel == null || !channel.isGuild()) return Optional.empty();
             NamedCacheView<GuildChannel> channelCache = c.catnip().cache().channels(channel.asGuildChannel().guildId());
             if(channelCache.size() == 0) return Optional.empty();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(channelCache::getById)
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(channelCache.getById(id))
                         .filter(GuildChannel::isText).map(GuildChannel::asTextChannel);
             }
             arguments.back();
-            String search = arguments.next().getValue();
-            Matcher mention = CHANNEL_MENTION_PATTERN.matcher(search);
-            if(mention.find()) {
-                try {
-                    return Optional.ofNullable(channelCache.getById(Long.parseUnsignedLong(mention.group(1))))
-                            .filter(GuildChannel::isText).map(GuildChannel::asTextChannel);
-                } catch(NumberFormatException e) {
-                    return Optional.empty();
-                }
-            }
-            int longest = channelCache.stream()
-                    .filter(GuildChannel::isText)
-                    .mapToInt(tc -> tc.name().length())
-                    .max()
-                    .orElseThrow(IllegalStateException::new);
-            while(search.length() < longest) {
-                String finalSearch = search;
-                Collection<GuildChannel> channels = channelCache.find(ch -> ch.isText() && ch.name().equals(finalSearch));
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.iterator().next().asTextChannel());
-                }
-                channels = channelCache.find(ch -> ch.isText() && ch.name().equalsIgnoreCase(finalSearch));
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.iterator().next().asTextChannel());
-                }
-                search += arguments.next().getRawValue();
-            }
-            return Optional.empty();
+            return Optional.ofNullable(channelNameIndex(c).findTextChannel(c.catnip(), channel.asGuildChannel().guildId(), arguments));
         };
     }
 
@@ -173,38 +126,20 @@ public final class CatnipParsers {
      * @return A parser that matches a voice channel of the current guild.
      */
     public static Parser<VoiceChannel> voiceChannel() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             MessageChannel channel = c.message().channel();
             if(channel == null || !channel.isGuild()) return Optional.empty();
             NamedCacheView<GuildChannel> channelCache = c.catnip().cache().channels(channel.asGuildChannel().guildId());
             if(channelCache.size() == 0) return Optional.empty();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(channelCache::getById)
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(channelCache.getById(id))
                         .filter(GuildChannel::isVoice).map(GuildChannel::asVoiceChannel);
             }
             arguments.back();
-            String search = arguments.next().getValue();
-            int longest = channelCache.stream()
-                    .filter(GuildChannel::isVoice)
-                    .mapToInt(tc -> tc.name().length())
-                    .max()
-                    .orElseThrow(IllegalStateException::new);
-            while(search.length() < longest) {
-                String finalSearch = search;
-                Collection<GuildChannel> channels = channelCache.find(ch -> ch.isVoice() && ch.name().equals(finalSearch));
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.iterator().next().asVoiceChannel());
-                }
-                channels = channelCache.find(ch -> ch.isVoice() && ch.name().equalsIgnoreCase(finalSearch));
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.iterator().next().asVoiceChannel());
-                }
-                search += arguments.next().getRawValue();
-            }
-            return Optional.empty();
+            return Optional.ofNullable(channelNameIndex(c).findVoiceChannel(c.catnip(), channel.asGuildChannel().guildId(), arguments));
         };
     }
 
@@ -221,38 +156,26 @@ public final class CatnipParsers {
      * @return A parser that matches a category of the current guild.
      */
     public static Parser<Category> category() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             MessageChannel channel = c.message().channel();
             if(channel == null || !channel.isGuild()) return Optional.empty();
             NamedCacheView<GuildChannel> channelCache = c.catnip().cache().channels(channel.asGuildChannel().guildId());
             if(channelCache.size() == 0) return Optional.empty();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(channelCache::getById)
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(channelCache.getById(id))
                         .filter(GuildChannel::isCategory).map(GuildChannel::asCategory);
             }
             arguments.back();
-            String search = arguments.next().getValue();
-            int longest = channelCache.stream()
-                    .filter(GuildChannel::isCategory)
-                    .mapToInt(tc -> tc.name().length())
-                    .max()
-                    .orElseThrow(IllegalStateException::new);
-            while(search.length() < longest) {
-                String finalSearch = search;
-                Collection<GuildChannel> channels = channelCache.find(ch -> ch.isCategory() && ch.name().equals(finalSearch));
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.iterator().next().asCategory());
-                }
-                channels = channelCache.find(ch -> ch.isCategory() && ch.name().equalsIgnoreCase(finalSearch));
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.iterator().next().asCategory());
-                }
-                search += arguments.next().getRawValue();
-            }
-            return Optional.empty();
+            return Optional.ofNullable(channelNameIndex(c).findCategory(c.catnip(), channel.asGuildChannel().guildId(), arguments));
         };
     }
+
+    //registered index, or a temporary one built from the cache if sox isn't receiving events
+    private static ChannelNameIndex channelNameIndex(Context c) {
+        ChannelNameIndex index = c.sox().serviceManager().handle(ChannelNameIndex.class).getIfPresent();
+        return index == null ? new ChannelNameIndex() : index;
+    }
 }
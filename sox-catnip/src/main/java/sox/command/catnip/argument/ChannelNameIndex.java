@@ -0,0 +1,205 @@
+package sox.command.catnip.argument;
+
+import com.mewna.catnip.Catnip;
+import com.mewna.catnip.cache.view.NamedCacheView;
+import com.mewna.catnip.entity.channel.Category;
+import com.mewna.catnip.entity.channel.Channel;
+import com.mewna.catnip.entity.channel.GuildChannel;
+import com.mewna.catnip.entity.channel.TextChannel;
+import com.mewna.catnip.entity.channel.VoiceChannel;
+import sox.command.argument.Arguments;
+import sox.command.argument.NameIndex;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per guild {@link NameIndex name indexes} of text channels, voice channels and categories, used by the
+ * channel parsers in {@link CatnipParsers}.
+ * <br>Guilds are indexed from their cache when first needed, then kept up to date from channel events.
+ * Indexes only hold IDs, resolved from the guild cache when a name matches, and are dropped when a guild is
+ * created or becomes available again, as channel events may have been missed.
+ * Registered as a service by default.
+ */
+public class ChannelNameIndex {
+    private final Map<Long, GuildIndex> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the text channel index of a guild, building it if needed.
+     *
+     * @param catnip Catnip instance whose cache is used to build the index.
+     * @param guildId ID of the guild.
+     *
+     * @return The text channel index of the guild.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NameIndex textChannels(@Nonnull Catnip catnip, @Nonnull String guildId) {
+        return guild(catnip, guildId).textChannels;
+    }
+
+    /**
+     * Returns the voice channel index of a guild, building it if needed.
+     *
+     * @param catnip Catnip instance whose cache is used to build the index.
+     * @param guildId ID of the guild.
+     *
+     * @return The voice channel index of the guild.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NameIndex voiceChannels(@Nonnull Catnip catnip, @Nonnull String guildId) {
+        return guild(catnip, guildId).voiceChannels;
+    }
+
+    /**
+     * Returns the category index of a guild, building it if needed.
+     *
+     * @param catnip Catnip instance whose cache is used to build the index.
+     * @param guildId ID of the guild.
+     *
+     * @return The category index of the guild.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NameIndex categories(@Nonnull Catnip catnip, @Nonnull String guildId) {
+        return guild(catnip, guildId).categories;
+    }
+
+    /**
+     * Finds the text channel of a guild whose name matches the next arguments.
+     *
+     * @param catnip Catnip instance whose cache is used to resolve the channel.
+     * @param guildId ID of the guild.
+     * @param arguments Arguments to read.
+     *
+     * @return The matching channel, or null if none match.
+     *
+     * @see NameIndex#find(Arguments, java.util.function.LongFunction, java.util.function.Function)
+     */
+    @Nullable
+    @CheckReturnValue
+    public TextChannel findTextChannel(@Nonnull Catnip catnip, @Nonnull String guildId, @Nonnull Arguments arguments) {
+        NamedCacheView<GuildChannel> cache = catnip.cache().channels(guildId);
+        return textChannels(catnip, guildId).find(arguments, id -> {
+            GuildChannel channel = cache.getById(id);
+            return channel != null && channel.isText() ? channel.asTextChannel() : null;
+        }, TextChannel::name);
+    }
+
+    /**
+     * Finds the voice channel of a guild whose name matches the next arguments.
+     *
+     * @param catnip Catnip instance whose cache is used to resolve the channel.
+     * @param guildId ID of the guild.
+     * @param arguments Arguments to read.
+     *
+     * @return The matching channel, or null if none match.
+     *
+     * @see NameIndex#find(Arguments, java.util.function.LongFunction, java.util.function.Function)
+     */
+    @Nullable
+    @CheckReturnValue
+    public VoiceChannel findVoiceChannel(@Nonnull Catnip catnip, @Nonnull String guildId, @Nonnull Arguments arguments) {
+        NamedCacheView<GuildChannel> cache = catnip.cache().channels(guildId);
+        return voiceChannels(catnip, guildId).find(arguments, id -> {
+            GuildChannel channel = cache.getById(id);
+            return channel != null && channel.isVoice() ? channel.asVoiceChannel() : null;
+        }, VoiceChannel::name);
+    }
+
+    /**
+     * Finds the category of a guild whose name matches the next arguments.
+     *
+     * @param catnip Catnip instance whose cache is used to resolve the category.
+     * @param guildId ID of the guild.
+     * @param arguments Arguments to read.
+     *
+     * @return The matching category, or null if none match.
+     *
+     * @see NameIndex#find(Arguments, java.util.function.LongFunction, java.util.function.Function)
+     */
+    @Nullable
+    @CheckReturnValue
+    public Category findCategory(@Nonnull Catnip catnip, @Nonnull String guildId, @Nonnull Arguments arguments) {
+        NamedCacheView<GuildChannel> cache = catnip.cache().channels(guildId);
+        return categories(catnip, guildId).find(arguments, id -> {
+            GuildChannel channel = cache.getById(id);
+            return channel != null && channel.isCategory() ? channel.asCategory() : null;
+        }, Category::name);
+    }
+
+    /**
+     * Drops the indexes of a guild, so they're rebuilt from the cache when next needed.
+     *
+     * @param guildId ID of the guild.
+     */
+    public void invalidate(long guildId) {
+        guilds.remove(guildId);
+    }
+
+    /**
+     * Updates the indexes with a created or updated channel.
+     *
+     * @param channel Channel created or updated.
+     */
+    public void channelUpdated(@Nonnull Channel channel) {
+        if(!channel.isGuild()) return;
+        GuildChannel guildChannel = channel.asGuildChannel();
+        long id = Long.parseUnsignedLong(guildChannel.id());
+        //computeIfPresent waits for indexes being built, so no updates are lost
+        guilds.computeIfPresent(Long.parseUnsignedLong(guildChannel.guildId()), (__, index) -> {
+            if(guildChannel.isText()) {
+                index.textChannels.put(id, guildChannel.name());
+            } else if(guildChannel.isVoice()) {
+                index.voiceChannels.put(id, guildChannel.name());
+            } else if(guildChannel.isCategory()) {
+                index.categories.put(id, guildChannel.name());
+            }
+            return index;
+        });
+    }
+
+    /**
+     * Removes a deleted channel from the indexes.
+     *
+     * @param channel Channel deleted.
+     */
+    public void channelDeleted(@Nonnull Channel channel) {
+        if(!channel.isGuild()) return;
+        GuildChannel guildChannel = channel.asGuildChannel();
+        long id = Long.parseUnsignedLong(guildChannel.id());
+        guilds.computeIfPresent(Long.parseUnsignedLong(guildChannel.guildId()), (__, index) -> {
+            index.textChannels.remove(id);
+            index.voiceChannels.remove(id);
+            index.categories.remove(id);
+            return index;
+        });
+    }
+
+    private GuildIndex guild(Catnip catnip, String guildId) {
+        return guilds.computeIfAbsent(Long.parseUnsignedLong(guildId), __ -> new GuildIndex(catnip, guildId));
+    }
+
+    private static class GuildIndex {
+        final NameIndex textChannels = new NameIndex();
+        final NameIndex voiceChannels = new NameIndex();
+        final NameIndex categories = new NameIndex();
+
+        GuildIndex(Catnip catnip, String guildId) {
+            catnip.cache().channels(guildId).stream().forEach(c -> {
+                long id = Long.parseUnsignedLong(c.id());
+                if(c.isText()) {
+                    textChannels.put(id, c.name());
+                } else if(c.isVoice()) {
+                    voiceChannels.put(id, c.name());
+                } else if(c.isCategory()) {
+                    categories.put(id, c.name());
+                }
+            });
+        }
+    }
+}
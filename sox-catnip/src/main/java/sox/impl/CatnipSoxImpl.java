@@ -18,20 +18,26 @@ import sox.command.CommandManager;
 import sox.command.catnip.Command;
 import sox.command.catnip.Context;
 import sox.command.catnip.PrefixProvider;
+import sox.command.catnip.argument.ChannelNameIndex;
 import sox.command.catnip.argument.CatnipParsers;
 import sox.command.dispatch.CommandDispatcher;
 import sox.command.dispatch.DynamicCommandDispatcher;
 import sox.command.dispatch.ParserRegistry;
+import sox.command.prefix.PrefixMatcher;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 
 public class CatnipSoxImpl extends SoxImpl<Message, Context, Command> implements Extension {
     protected final List<PrefixProvider> prefixProviders;
+    protected final ChannelNameIndex channelNameIndex = new ChannelNameIndex();
+    private final PrefixStep[] prefixSteps;
     protected final String deploymentID;
 
     //used for catnip extension
@@ -41,7 +47,9 @@ public class CatnipSoxImpl extends SoxImpl<Message, Context, Command> implements
 
     public CatnipSoxImpl(List<PrefixProvider> prefixProviders, String deploymentID) {
         this.prefixProviders = prefixProviders;
+        this.prefixSteps = PrefixStep.compile(prefixProviders);
         this.deploymentID = deploymentID;
+        serviceManager.registerService(channelNameIndex);
     }
 
     @Override
@@ -60,30 +68,57 @@ public class CatnipSoxImpl extends SoxImpl<Message, Context, Command> implements
     @Override
     public void accept(Message message) {
         if(message.webhookId() != null || message.author().bot()) return;
-        withCommandManager(cm -> {
-            Iterator<PrefixProvider> it = prefixProviders.iterator();
-            tryNextPrefix(cm, it, message);
-        });
-    }
-
-    private static void tryNextPrefix(CommandManager<Message, Context, Command> manager, Iterator<PrefixProvider> providers, Message message) {
-        if(!providers.hasNext()) return;
-        providers.next().getPrefixes(manager.sox(), message)
-                .handle((prefixes, error) -> {
-                    if(prefixes.isEmpty() || error != null) {
-                        tryNextPrefix(manager, providers, message);
-                        return null;
-                    }
-                    String content = message.content();
-                    for(String prefix : prefixes) {
-                        if(content.startsWith(prefix)) {
-                            manager.process(message, content.substring(prefix.length()).trim());
-                            return null;
-                        }
-                    }
-                    tryNextPrefix(manager, providers, message);
-                    return null;
-                });
+        execute(message, dispatchKey(message), () -> withCommandManager(cm -> tryPrefixes(cm, message, 0)));
+    }
+
+    //guild ID, or channel ID for direct messages
+    private static Object dispatchKey(Message message) {
+        String guildId = message.guildId();
+        return guildId == null ? message.channelId() : guildId;
+    }
+
+    private void tryPrefixes(CommandManager<Message, Context, Command> manager, Message message, int firstStep) {
+        String content = message.content();
+        PrefixStep[] steps = prefixSteps;
+        for(int i = firstStep; i < steps.length; i++) {
+            PrefixStep step = steps[i];
+            if(step.matcher != null) {
+                int length = step.matcher.match(content);
+                if(length >= 0) {
+                    manager.process(message, content.substring(length).trim());
+                    return;
+                }
+                continue;
+            }
+            CompletionStage<List<String>> stage = step.provider.getPrefixes(manager.sox(), message);
+            //already completed stages are handled without chaining
+            if(stage instanceof CompletableFuture && ((CompletableFuture<?>)stage).isDone()) {
+                CompletableFuture<List<String>> future = (CompletableFuture<List<String>>)stage;
+                if(!future.isCompletedExceptionally() && tryProcess(manager, message, content, future.join())) {
+                    return;
+                }
+                continue;
+            }
+            int next = i + 1;
+            stage.handle((prefixes, error) -> {
+                if(error != null || !tryProcess(manager, message, content, prefixes)) {
+                    tryPrefixes(manager, message, next);
+                }
+                return null;
+            });
+            return;
+        }
+    }
+
+    private static boolean tryProcess(CommandManager<Message, Context, Command> manager, Message message, String content, List<String> prefixes) {
+        if(prefixes == null) return false;
+        for(String prefix : prefixes) {
+            if(content.startsWith(prefix)) {
+                manager.process(message, content.substring(prefix.length()).trim());
+                return true;
+            }
+        }
+        return false;
     }
 
     @Nonnull
@@ -150,9 +185,49 @@ public class CatnipSoxImpl extends SoxImpl<Message, Context, Command> implements
     @Override
     public void start(Future<Void> startFuture) {
         on(DiscordEvent.MESSAGE_CREATE, this);
+        on(DiscordEvent.CHANNEL_CREATE, channelNameIndex::channelUpdated);
+        on(DiscordEvent.CHANNEL_UPDATE, channelNameIndex::channelUpdated);
+        on(DiscordEvent.CHANNEL_DELETE, channelNameIndex::channelDeleted);
+        on(DiscordEvent.GUILD_DELETE, guild -> channelNameIndex.invalidate(Long.parseUnsignedLong(guild.id())));
+        //channel events aren't fired for changes made while the guild was unavailable
+        on(DiscordEvent.GUILD_CREATE, guild -> channelNameIndex.invalidate(Long.parseUnsignedLong(guild.id())));
+        on(DiscordEvent.GUILD_AVAILABLE, guild -> channelNameIndex.invalidate(Long.parseUnsignedLong(guild.id())));
         startFuture.complete();
     }
 
     @Override
     public void stop(Future<Void> stopFuture) {}
+
+    //either a matcher for the static prefixes of consecutive providers, or a single dynamic provider
+    private static class PrefixStep {
+        final PrefixMatcher matcher;
+        final PrefixProvider provider;
+
+        private PrefixStep(PrefixMatcher matcher, PrefixProvider provider) {
+            this.matcher = matcher;
+            this.provider = provider;
+        }
+
+        static PrefixStep[] compile(List<PrefixProvider> providers) {
+            List<PrefixStep> steps = new ArrayList<>();
+            List<String> merged = null;
+            for(PrefixProvider provider : providers) {
+                List<String> prefixes = provider.staticPrefixes();
+                if(prefixes != null) {
+                    if(merged == null) merged = new ArrayList<>();
+                    merged.addAll(prefixes);
+                    continue;
+                }
+                if(merged != null) {
+                    steps.add(new PrefixStep(PrefixMatcher.of(merged), null));
+                    merged = null;
+                }
+                steps.add(new PrefixStep(null, provider));
+            }
+            if(merged != null) {
+                steps.add(new PrefixStep(PrefixMatcher.of(merged), null));
+            }
+            return steps.toArray(new PrefixStep[0]);
+        }
+    }
 }
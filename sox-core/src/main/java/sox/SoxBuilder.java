@@ -6,6 +6,7 @@ import sox.command.CommandManager;
 import sox.command.UnmatchedCommandHandler;
 import sox.command.dispatch.CommandDispatcher;
 import sox.command.dispatch.DynamicCommandDispatcher;
+import sox.command.execution.DispatchExecutor;
 import sox.command.hook.AfterCommand;
 import sox.command.hook.BeforeCommand;
 import sox.command.hook.CommandErrorHandler;
@@ -32,6 +33,8 @@ public abstract class SoxBuilder<M, C extends AbstractContext<C>, CT extends Abs
     protected CommandManagerFactory<M, C, CT> commandManagerFactory;
     protected CommandDispatcher dispatcher = new DynamicCommandDispatcher();
     protected UnmatchedCommandHandler<M> unmatchedCommandHandler;
+    protected Boolean parseMemoization;
+    protected DispatchExecutor<M> dispatchExecutor;
 
     protected SoxBuilder(CommandManagerFactory<M, C, CT> factory) {
         this.commandManagerFactory = factory;
@@ -85,6 +88,39 @@ public abstract class SoxBuilder<M, C extends AbstractContext<C>, CT extends Abs
         return asActualType();
     }
 
+    /**
+     * Enables or disables memoization of parse results while choosing which handler to call.
+     * <br>Only applies to {@link DynamicCommandDispatcher dynamic dispatchers}. If never called,
+     * the dispatcher's own setting is kept.
+     *
+     * @param enabled Whether or not parse results should be memoized.
+     *
+     * @return {@code this}, for chaining.
+     *
+     * @see DynamicCommandDispatcher#setParseMemoization(boolean)
+     */
+    @Nonnull
+    public T parseMemoization(boolean enabled) {
+        this.parseMemoization = enabled;
+        return asActualType();
+    }
+
+    /**
+     * Sets the executor used for processing received messages, from finding their prefix to calling the command.
+     * <br>By default, messages are processed on the thread that received them.
+     *
+     * @param executor Executor for processing messages.
+     *
+     * @return {@code this}, for chaining.
+     *
+     * @see DispatchExecutor
+     */
+    @Nonnull
+    public T dispatchExecutor(@Nonnull DispatchExecutor<M> executor) {
+        this.dispatchExecutor = executor;
+        return asActualType();
+    }
+
     @Nonnull
     public T unmatchedCommandHandler(@Nullable UnmatchedCommandHandler<M> handler) {
         this.unmatchedCommandHandler = handler;
@@ -95,10 +131,18 @@ public abstract class SoxBuilder<M, C extends AbstractContext<C>, CT extends Abs
     @CheckReturnValue
     public Sox build() {
         SoxImpl<M, C, CT> impl = newInstance();
+        if(parseMemoization != null && dispatcher instanceof DynamicCommandDispatcher) {
+            ((DynamicCommandDispatcher)dispatcher).setParseMemoization(parseMemoization);
+        }
         impl.registerCommandDispatcher(dispatcher);
+        if(dispatchExecutor != null) {
+            impl.registerDispatchExecutor(dispatchExecutor);
+        }
         CommandManager<M, C, CT> cm = commandManagerFactory.create(impl);
         cm.setUnmatchedCommandHandler(unmatchedCommandHandler, true);
-        cm.commandHooks().addAll(hooks);
+        for(CommandHook<C, CT> hook : hooks) {
+            cm.addHook(hook);
+        }
         if(defaultErrorHandler) {
             addDefaultErrorHandlers(cm);
         }
@@ -107,7 +151,7 @@ public abstract class SoxBuilder<M, C extends AbstractContext<C>, CT extends Abs
     }
 
     protected void addDefaultErrorHandlers(CommandManager<M, C, CT> manager) {
-        manager.commandHooks().add(CommandHook.fromErrorHandler(CommandErrorHandler.<C, CT>fromConsumer(Exception::printStackTrace)));
+        manager.addHook(CommandHook.fromErrorHandler(CommandErrorHandler.<C, CT>fromConsumer(Exception::printStackTrace)));
     }
 
     @Nonnull
@@ -38,6 +38,7 @@ public abstract class AbstractCommand<C extends AbstractContext<C>, T extends Ab
     private final String usage;
     private final boolean guildOnly;
     private volatile ParentReference<C, T> parent;
+    private volatile CommandManager<?, C, T> manager;
     private volatile boolean loggedNoMatches = false;
 
     public AbstractCommand(MapFactory mapFactory, ListFactory listFactory) {
@@ -81,6 +82,12 @@ public abstract class AbstractCommand<C extends AbstractContext<C>, T extends Ab
         return subcommands;
     }
 
+    @Nonnull
+    @CheckReturnValue
+    public Map<String, String> subcommandAliases() {
+        return subcommandAliases;
+    }
+
     @Nonnull
     @CheckReturnValue
     public List<CommandHook<C, T>> hooks() {
@@ -149,8 +156,18 @@ public abstract class AbstractCommand<C extends AbstractContext<C>, T extends Ab
         return parent.value;
     }
 
+    /**
+     * Adds a hook called only for this command. If the command is already registered, the routes of its
+     * {@link CommandManager command manager} are rebuilt so the hook takes effect.
+     *
+     * @param hook Hook to add.
+     */
     public void addHook(@Nonnull CommandHook<C, T> hook) {
         hooks.add(hook);
+        CommandManager<?, C, T> manager = this.manager;
+        if(manager != null) {
+            manager.rebuildRoutes();
+        }
     }
 
     public void addFilter(@Nonnull CommandFilter<C, T> filter) {
@@ -172,6 +189,7 @@ public abstract class AbstractCommand<C extends AbstractContext<C>, T extends Ab
     @OverridingMethodsMustInvokeSuper
     public void onRegister(@Nonnull CommandManager<?, C, T> commandManager, @Nullable AbstractCommand<C, T> parent) {
         this.parent = new ParentReference<>(parent);
+        this.manager = commandManager;
         for(AbstractCommand<C, T> command : subcommands.values()) {
             command.onRegister(commandManager, this);
         }
@@ -184,12 +202,35 @@ public abstract class AbstractCommand<C extends AbstractContext<C>, T extends Ab
         }
     }
 
+    /**
+     * Registers a subcommand. If this command is already registered, the subcommand is registered with the
+     * same {@link CommandManager command manager} and its routes are rebuilt so the subcommand can be reached.
+     *
+     * @param name Name of the subcommand.
+     * @param subcommand Subcommand to register.
+     */
     public void registerSubcommand(@Nonnull String name, @Nonnull T subcommand) {
         subcommands.put(name, subcommand);
+        CommandManager<?, C, T> manager = this.manager;
+        if(manager != null) {
+            subcommand.onRegister(manager, this);
+            manager.rebuildRoutes();
+        }
     }
 
+    /**
+     * Registers an alias for a subcommand. If this command is already registered, the routes of its
+     * {@link CommandManager command manager} are rebuilt so the alias can be reached.
+     *
+     * @param alias Alias to register.
+     * @param target Name of the aliased subcommand.
+     */
     public void registerSubcommandAlias(@Nonnull String alias, @Nonnull String target) {
         subcommandAliases.put(alias, target);
+        CommandManager<?, C, T> manager = this.manager;
+        if(manager != null) {
+            manager.rebuildRoutes();
+        }
     }
 
     @Nullable
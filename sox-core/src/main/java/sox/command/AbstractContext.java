@@ -3,21 +3,26 @@ package sox.command;
 import sox.Sox;
 import sox.command.argument.ArgumentParseError;
 import sox.command.argument.Arguments;
+import sox.command.argument.DoubleParser;
+import sox.command.argument.IntParser;
+import sox.command.argument.LongParser;
 import sox.command.argument.MarkedBlock;
+import sox.command.argument.ParseMemo;
 import sox.command.argument.Parser;
 import sox.command.argument.Parsers;
 import sox.inject.Injector;
-import sox.service.MultipleServiceMatchException;
+import sox.service.Scoped;
+import sox.service.ScopedServices;
 import sox.service.ServiceManager;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -35,14 +40,51 @@ import java.util.function.Predicate;
 public abstract class AbstractContext<C extends AbstractContext<C>> {
     protected final Sox sox;
     protected final Arguments arguments;
-    protected final Map<ContextKey<?>, Object> customProperties;
+    /**
+     * Custom properties of this context. May be shared with snapshots, so subclasses must not
+     * modify it directly. Use {@link #put(ContextKey, Object) put} instead.
+     */
+    protected Map<ContextKey<?>, Object> customProperties;
     protected ServiceManager serviceManager;
+    //true if customProperties is shared with a snapshot, and must be copied before being modified
+    private boolean propertiesShared;
+    private ParseMemo parseMemo;
+    //context created for the invocation, which owns the pooled services of all it's snapshots
+    private final AbstractContext<C> invocation;
+    //created on first use, only set on the invocation context, guarded by it
+    private PooledServices pooledServices;
 
     protected AbstractContext(@Nonnull Sox sox, @Nonnull Arguments arguments,
                               @Nonnull Map<ContextKey<?>, Object> customProperties) {
         this.sox = sox;
         this.arguments = arguments;
         this.customProperties = customProperties;
+        this.invocation = this;
+    }
+
+    /**
+     * Creates a snapshot of the given context, for use by {@link #snapshot() snapshot()} implementations.
+     *
+     * <br>Only the {@link #arguments() argument} cursor is copied. Custom properties are shared
+     * between both contexts until either of them {@link #put(ContextKey, Object) stores} a value,
+     * and the {@link #serviceManager() service manager}, if any, is a copy-on-write
+     * {@link ServiceManager#snapshot() snapshot}.
+     *
+     * @param other Context to copy.
+     */
+    protected AbstractContext(@Nonnull AbstractContext<C> other) {
+        this.sox = other.sox;
+        this.arguments = other.arguments.snapshot();
+        this.parseMemo = other.parseMemo;
+        this.invocation = other.invocation;
+        synchronized(other) {
+            this.customProperties = other.customProperties;
+            this.propertiesShared = true;
+            other.propertiesShared = true;
+            if(other.serviceManager != null) {
+                this.serviceManager = other.serviceManager.snapshot();
+            }
+        }
     }
 
     /**
@@ -69,9 +111,9 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
 
     /**
      * Returns the {@link ServiceManager service manager} of this context.
-     * <br>If no manager is available (first call to this method), the
-     * service manager of the {@link Sox sox} instance of this context will
-     * be copied and stored.
+     * <br>If no manager is available (first call to this method), an
+     * {@link ServiceManager#overlay() overlay} of the service manager of the
+     * {@link Sox sox} instance of this context will be created and stored.
      * <br>Services registered to this manager <b>will not</b> affect the global
      * manager.
      *
@@ -81,11 +123,24 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
     @CheckReturnValue
     public synchronized ServiceManager serviceManager() {
         if(serviceManager == null) {
-            serviceManager = sox.serviceManager().snapshot();
+            serviceManager = sox.serviceManager().overlay();
         }
         return serviceManager;
     }
 
+    /**
+     * Returns a key identifying the guild this context belongs to, used for
+     * {@link sox.service.ServiceScope#GUILD guild scoped} services.
+     * <br>Keys must implement {@code equals} and {@code hashCode}.
+     *
+     * @return The key of the guild, or null if this context doesn't belong to one.
+     */
+    @Nullable
+    @CheckReturnValue
+    public Object guildKey() {
+        return null;
+    }
+
     /**
      * Creates a best-effort copy of this context.
      *
@@ -100,6 +155,7 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
      *
      * @implNote Implementations are required to create snapshots of both
      *           {@link #arguments() arguments} and the {@link #serviceManager() service manager}.
+     *           The {@link #AbstractContext(AbstractContext) copy constructor} does so cheaply.
      */
     @Nonnull
     @CheckReturnValue
@@ -116,12 +172,13 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
      * @return An instance of the provided class.
      *
      * @see ServiceManager#getService(Class)
+     * @see ServiceManager#handle(Class)
      */
     @Nonnull
     @CheckReturnValue
     public <T> T findService(@Nonnull Class<T> serviceClass) {
         ServiceManager sm = serviceManager == null ? sox.serviceManager() : serviceManager;
-        return sm.getService(serviceClass);
+        return sm.handle(serviceClass).get();
     }
 
     /**
@@ -129,7 +186,9 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
      * <br>If multiple are found, an exception is thrown.
      * <br>When creating a service, if a service manager specific to this
      * context is available, it's used for resolving constructor arguments.
-     * The newly created service will also be registered to it.
+     * How long the newly created service lives depends on it's
+     * {@link Scoped scope}. Services without one are registered to the
+     * service manager specific to this context, if available.
      *
      * @param serviceClass Class of the wanted service.
      * @param <T> Type of the wanted service.
@@ -143,15 +202,51 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
     @CheckReturnValue
     public <T> T service(@Nonnull Class<T> serviceClass) {
         ServiceManager sm = serviceManager == null ? sox.serviceManager() : serviceManager;
-        Set<T> set = sm.findServices(serviceClass, false);
-        switch(set.size()) {
-            case 0:
-                T instance = new Injector(sm).instantiate(serviceClass);
-                if(serviceManager != null) serviceManager.registerService(instance);
-                return instance;
-            case 1: return set.iterator().next();
-            default: throw new MultipleServiceMatchException(serviceClass);
+        T instance = sm.handle(serviceClass).getIfPresent();
+        if(instance != null) {
+            return instance;
+        }
+        Scoped scoped = serviceClass.getAnnotation(Scoped.class);
+        if(scoped == null) {
+            instance = new Injector(sm).instantiate(serviceClass);
+            if(serviceManager != null) serviceManager.registerService(instance);
+            return instance;
+        }
+        ScopedServices scopes = sox.serviceManager().handle(ScopedServices.class).get();
+        switch(scoped.value()) {
+            case SINGLETON:
+                return scopes.singleton(serviceClass, sox.serviceManager());
+            case GUILD:
+                Object guildKey = guildKey();
+                if(guildKey != null) {
+                    return scopes.guild(serviceClass, guildKey, sm);
+                }
+                //no guild, same as INVOCATION
+                return invocationService(serviceClass, scoped, scopes, sm);
+            case INVOCATION:
+                return invocationService(serviceClass, scoped, scopes, sm);
+            default:
+                return new Injector(sm).instantiate(serviceClass);
+        }
+    }
+
+    private <T> T invocationService(Class<T> serviceClass, Scoped scoped, ScopedServices scopes, ServiceManager sm) {
+        T instance;
+        if(scoped.pooled()) {
+            instance = scopes.acquire(serviceClass, sm);
+            invocation.pooledServices().add(scopes, instance);
+        } else {
+            instance = new Injector(sm).instantiate(serviceClass);
+        }
+        serviceManager().registerService(instance);
+        return instance;
+    }
+
+    private synchronized PooledServices pooledServices() {
+        if(pooledServices == null) {
+            pooledServices = new PooledServices();
         }
+        return pooledServices;
     }
 
     /**
@@ -196,7 +291,7 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
         if(!arguments.hasNext()) {
             optional = Optional.empty();
         } else {
-            optional = parser.parse(this);
+            optional = parse(parser);
         }
         return optional.orElseThrow(()->{
             Arguments copy = arguments.snapshot();
@@ -221,13 +316,102 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
     public <T> Optional<T> tryArgument(@Nonnull Parser<T> parser) {
         if(!arguments.hasNext()) return Optional.empty();
         MarkedBlock block = arguments.marked();
-        Optional<T> optional = parser.parse(this);
+        Optional<T> optional = parse(parser);
         if(!optional.isPresent()) {
             block.reset();
         }
         return optional;
     }
 
+    /**
+     * Attempts to parse an int argument, returning to the previous state if parsing fails.
+     * <br>Works like {@link #tryArgument(Parser) tryArgument}, without boxing the result.
+     *
+     * @param parser Parser to use.
+     *
+     * @return The parsed int, or {@link IntParser#NO_MATCH} if parsing fails or there are no more
+     *         arguments to read.
+     */
+    @CheckReturnValue
+    public long tryInt(@Nonnull IntParser parser) {
+        if(!arguments.hasNext()) return IntParser.NO_MATCH;
+        int offset = arguments.getOffset();
+        ParseMemo memo = parseMemo;
+        long value = memo == null ? parser.parseInt(this, arguments) : memo.parseInt(parser, this, arguments);
+        if(value == IntParser.NO_MATCH) {
+            arguments.setOffset(offset);
+        }
+        return value;
+    }
+
+    /**
+     * Attempts to parse a long argument, returning to the previous state if parsing fails.
+     * <br>Works like {@link #tryArgument(Parser) tryArgument}, without boxing the result.
+     *
+     * @param parser Parser to use.
+     *
+     * @return The parsed long, or {@link LongParser#NO_MATCH} if parsing fails or there are no more
+     *         arguments to read.
+     */
+    @CheckReturnValue
+    public long tryLong(@Nonnull LongParser parser) {
+        if(!arguments.hasNext()) return LongParser.NO_MATCH;
+        int offset = arguments.getOffset();
+        ParseMemo memo = parseMemo;
+        long value = memo == null ? parser.parseLong(this, arguments) : memo.parseLong(parser, this, arguments);
+        if(value == LongParser.NO_MATCH) {
+            arguments.setOffset(offset);
+        }
+        return value;
+    }
+
+    /**
+     * Attempts to parse a double argument, returning to the previous state if parsing fails.
+     * <br>Works like {@link #tryArgument(Parser) tryArgument}, without boxing the result.
+     *
+     * @param parser Parser to use.
+     *
+     * @return The parsed double, or {@link DoubleParser#NO_MATCH NaN} if parsing fails or there are no more
+     *         arguments to read.
+     */
+    @CheckReturnValue
+    public double tryDouble(@Nonnull DoubleParser parser) {
+        if(!arguments.hasNext()) return DoubleParser.NO_MATCH;
+        int offset = arguments.getOffset();
+        ParseMemo memo = parseMemo;
+        double value = memo == null ? parser.parseDouble(this, arguments) : memo.parseDouble(parser, this, arguments);
+        if(Double.isNaN(value)) {
+            arguments.setOffset(offset);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the {@link ParseMemo parse memo} used by this context, if any.
+     *
+     * @return The parse memo of this context, or null if parse results aren't memoized.
+     */
+    @Nullable
+    @CheckReturnValue
+    public ParseMemo parseMemo() {
+        return parseMemo;
+    }
+
+    /**
+     * Sets the {@link ParseMemo parse memo} used by this context and snapshots created afterwards.
+     * <br>Set by {@link sox.command.dispatch.CommandDispatcher dispatchers} for the duration of a dispatch.
+     *
+     * @param parseMemo Memo to use, or null to disable memoization.
+     */
+    public void setParseMemo(@Nullable ParseMemo parseMemo) {
+        this.parseMemo = parseMemo;
+    }
+
+    private <T> Optional<T> parse(Parser<T> parser) {
+        ParseMemo memo = parseMemo;
+        return memo == null ? parser.parse(this) : memo.parse(parser, this, arguments);
+    }
+
     /**
      * Parses as many arguments as possible with the provided parser, stopping when parsing fails.
      * <br>Example:
@@ -320,6 +504,10 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
      */
     @SuppressWarnings("unchecked")
     public <T> C put(@Nonnull ContextKey<T> key, T value) {
+        if(propertiesShared) {
+            customProperties = new HashMap<>(customProperties);
+            propertiesShared = false;
+        }
         customProperties.put(key, value);
         return (C)this;
     }
@@ -337,4 +525,40 @@ public abstract class AbstractContext<C extends AbstractContext<C>> {
     public <T> T get(@Nonnull ContextKey<T> key) {
         return (T)customProperties.getOrDefault(key, key.defaultValue());
     }
+
+    /**
+     * Returns the {@link Scoped#pooled() pooled} services used by this context, and any snapshots of it,
+     * to their pools. Called by the command manager once the invocation ends, or once the stage returned
+     * by the handler completes.
+     */
+    void releaseServices() {
+        PooledServices services;
+        synchronized(invocation) {
+            services = invocation.pooledServices;
+        }
+        if(services != null) {
+            services.release();
+        }
+    }
+
+    private static class PooledServices {
+        private ScopedServices scopes;
+        private List<Object> instances;
+
+        synchronized void add(ScopedServices scopes, Object instance) {
+            if(instances == null) {
+                instances = new ArrayList<>();
+            }
+            this.scopes = scopes;
+            instances.add(instance);
+        }
+
+        synchronized void release() {
+            if(instances == null) return;
+            for(Object instance : instances) {
+                scopes.release(instance);
+            }
+            instances = null;
+        }
+    }
 }
@@ -1,8 +1,10 @@
 package sox.command;
 
+import org.slf4j.LoggerFactory;
 import sox.Sox;
 import sox.command.argument.Arguments;
 import sox.command.argument.split.StringSplitter;
+import sox.command.argument.split.TokenOffsets;
 import sox.command.dispatch.CommandDispatcher;
 import sox.command.hook.CommandHook;
 import sox.util.ListFactory;
@@ -11,10 +13,14 @@ import sox.util.MapFactory;
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class CommandManager<M, C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
@@ -26,6 +32,10 @@ public abstract class CommandManager<M, C extends AbstractContext<C>, T extends
     private final Map<String, T> commands;
     private final Map<String, String> aliases;
     private final List<CommandHook<C, T>> commandHooks;
+    private final List<CommandHook<C, T>> commandHooksView = new HookList();
+    private volatile CommandRouter<C, T> router = CommandRouter.empty();
+    //true while deferRoutes runs, so routes are rebuilt once at the end
+    private boolean deferRoutes;
 
     public CommandManager(@Nonnull Sox sox, @Nonnull MapFactory mapFactory, @Nonnull ListFactory listFactory) {
         this.sox = sox;
@@ -51,8 +61,26 @@ public abstract class CommandManager<M, C extends AbstractContext<C>, T extends
         return commands;
     }
 
+    /**
+     * Returns the global hooks, called for every command.
+     *
+     * <br>Hooks are compiled together with the routes, so every change made through the returned list
+     * {@link #rebuildRoutes() rebuilds} them.
+     *
+     * @return The global hooks.
+     */
     public List<CommandHook<C, T>> commandHooks() {
-        return commandHooks;
+        return commandHooksView;
+    }
+
+    /**
+     * Adds a global hook, called for every command.
+     *
+     * @param hook Hook to add.
+     */
+    public void addHook(@Nonnull CommandHook<C, T> hook) {
+        commandHooks.add(hook);
+        rebuildRoutes();
     }
 
     public void setUnmatchedCommandHandler(UnmatchedCommandHandler<M> handler, boolean override) {
@@ -64,70 +92,135 @@ public abstract class CommandManager<M, C extends AbstractContext<C>, T extends
     }
 
     public void process(M message, String content) {
-        String[] parts = SPLITTER.rawSplit(content, 2);
-        T command = command(parts[0].toLowerCase());
-        if(command == null) {
+        CommandRouter.Match<C, T> match = router.route(content);
+        if(match == null) {
             UnmatchedCommandHandler<M> h = unmatchedCommandHandlerReference.get();
             if(h != null) {
+                String[] parts = SPLITTER.rawSplit(content, 2);
                 h.handleUnmatchedCommand(sox, message, parts[0], parts.length == 1 ? "" : parts[1]);
             }
             return;
         }
-        while(true) {
-            content = parts.length == 1 ? "" : parts[1];
-            parts = CommandManager.SPLITTER.rawSplit(content, 2);
-            T subcommand = command.subcommand(parts[0].toLowerCase());
-            if(subcommand == null) {
-                C context = createContext(message, new Arguments(CommandManager.SPLITTER.split(content), 0));
-                T finalCommand = command;
-                List<CommandHook<C, T>> hooks = commandHooks;
-                List<CommandHook<C, T>> commandSpecificHooks = finalCommand.hooks();
-                if(!hooks.stream().allMatch(h->h.shouldRunCommand(context, finalCommand))) {
-                    return;
-                }
-                if(!commandSpecificHooks.isEmpty() && !commandSpecificHooks
-                        .stream().allMatch(h->h.shouldRunCommand(context, finalCommand))) {
-                    return;
-                }
-                for(CommandHook<C, T> hook : commandSpecificHooks) {
-                    hook.beforeCommand(context, finalCommand);
-                }
-                for(CommandHook<C, T> hook : hooks) {
-                    hook.beforeCommand(context, finalCommand);
-                }
-                try {
-                    dispatcher.dispatch(finalCommand, context);
-                    for(CommandHook<C, T> hook : commandSpecificHooks) {
-                        hook.afterCommand(context, finalCommand);
-                    }
-                    for(CommandHook<C, T> hook : hooks) {
-                        hook.afterCommand(context, finalCommand);
-                    }
-                } catch(Exception e) {
-                    for(CommandHook<C, T> hook : commandSpecificHooks) {
-                        if(hook.onCommandError(context, finalCommand, e)) {
-                            return;
-                        }
-                    }
-                    for(CommandHook<C, T> hook : hooks) {
-                        if(hook.onCommandError(context, finalCommand, e)) {
-                            return;
-                        }
-                    }
-                }
-                return;
+        T command = match.command;
+        C context = createContext(message, new Arguments(SPLITTER.tokenize(content, match.argumentsStart, new TokenOffsets())));
+        CompletionStage<?> completion = null;
+        try {
+            completion = run(command, match.hooks, context);
+        } finally {
+            if(completion == null) {
+                context.releaseServices();
+            } else {
+                completion.whenComplete((__, ___) -> context.releaseServices());
+            }
+        }
+    }
+
+    //hooks and dispatch, returns null if the call already completed
+    private CompletionStage<?> run(T command, HookPipeline<C, T> hooks, C context) {
+        if(!hooks.shouldRun(context, command)) {
+            return null;
+        }
+        hooks.before(context, command);
+        CompletionStage<?> stage;
+        try {
+            stage = dispatcher.dispatchAsync(command, context);
+            if(stage == null) {
+                hooks.after(context, command);
+                return null;
             }
-            command = subcommand;
+        } catch(Exception e) {
+            hooks.error(context, command, e);
+            return null;
+        }
+        //handler returned a stage, the call completes with it
+        return stage.whenComplete((__, error) -> complete(command, hooks, context, error));
+    }
+
+    private void complete(T command, HookPipeline<C, T> hooks, C context, Throwable error) {
+        if(error == null) {
+            try {
+                hooks.after(context, command);
+            } catch(Exception e) {
+                hooks.error(context, command, e);
+            }
+            return;
+        }
+        if(error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if(error instanceof Exception) {
+            hooks.error(context, command, (Exception)error);
+        } else {
+            //thrown by synchronous calls, but nothing waits on the stage to rethrow it
+            LoggerFactory.getLogger(command.getClass()).error("Uncaught error completing command", error);
         }
     }
 
     public void register(@Nonnull String name, @Nonnull T command) {
         commands.put(name, command);
         command.onRegister(this, null);
+        rebuildRoutes();
+    }
+
+    /**
+     * Registers all the given commands under their {@link AbstractCommand#name() names}, rebuilding
+     * the routes used by {@link #process(Object, String) process} once all of them are registered,
+     * so messages being processed see either none or all of them.
+     *
+     * @param commands Commands to register.
+     */
+    public void registerAll(@Nonnull Collection<? extends T> commands) {
+        deferRoutes(() -> {
+            for(T command : commands) {
+                register(command.name(), command);
+            }
+        });
+    }
+
+    /**
+     * Runs the given action, deferring every {@link #rebuildRoutes() rebuild of the routes} it causes
+     * until it returns, and then rebuilding them once. Messages being processed meanwhile see the routes
+     * from before the action.
+     *
+     * <br>Useful for registering many commands, or commands with many subcommands and aliases, without
+     * rebuilding the routes after each one.
+     *
+     * @param action Action to run.
+     */
+    public synchronized void deferRoutes(@Nonnull Runnable action) {
+        if(deferRoutes) {
+            //already deferred by an outer call, which rebuilds them
+            action.run();
+            return;
+        }
+        deferRoutes = true;
+        try {
+            action.run();
+        } finally {
+            deferRoutes = false;
+        }
+        rebuildRoutes();
     }
 
     public void registerAlias(@Nonnull String alias, @Nonnull String target) {
         aliases.put(alias, target);
+        rebuildRoutes();
+    }
+
+    /**
+     * Rebuilds the routing trie used by {@link #process(Object, String) process} from the registered
+     * commands, aliases and their subcommand trees, atomically replacing the previous one. The global and
+     * command specific hooks of every command are compiled again, skipping the phases each hook doesn't
+     * {@link CommandHook#phases() take part in}.
+     *
+     * <br>Called automatically by {@link #register(String, AbstractCommand) register},
+     * {@link #registerAlias(String, String) registerAlias}, {@link #addHook(CommandHook) addHook} and
+     * {@link AbstractCommand#addHook(CommandHook)}. Must be called manually if the {@link #commands() command map},
+     * or the subcommands or hooks of a registered command are modified directly.
+     */
+    public synchronized void rebuildRoutes() {
+        if(deferRoutes) return;
+        router = CommandRouter.build(commands, aliases, commandHooks);
     }
 
     @Nullable
@@ -145,4 +238,37 @@ public abstract class CommandManager<M, C extends AbstractContext<C>, T extends
     public abstract void register(Class<? extends T> commandClass);
 
     public abstract C createContext(M message, Arguments arguments);
+
+    //global hooks, rebuilding the routes whenever they're modified
+    private class HookList extends AbstractList<CommandHook<C, T>> {
+        @Override
+        public CommandHook<C, T> get(int index) {
+            return commandHooks.get(index);
+        }
+
+        @Override
+        public int size() {
+            return commandHooks.size();
+        }
+
+        @Override
+        public CommandHook<C, T> set(int index, CommandHook<C, T> hook) {
+            CommandHook<C, T> previous = commandHooks.set(index, hook);
+            rebuildRoutes();
+            return previous;
+        }
+
+        @Override
+        public void add(int index, CommandHook<C, T> hook) {
+            commandHooks.add(index, hook);
+            rebuildRoutes();
+        }
+
+        @Override
+        public CommandHook<C, T> remove(int index) {
+            CommandHook<C, T> removed = commandHooks.remove(index);
+            rebuildRoutes();
+            return removed;
+        }
+    }
 }
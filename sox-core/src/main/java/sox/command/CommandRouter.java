@@ -0,0 +1,221 @@
+package sox.command;
+
+import sox.command.argument.split.StringSplitter;
+import sox.command.hook.CommandHook;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, case insensitive character trie mapping command paths to commands.
+ *
+ * <br>Built from the names and aliases known by a {@link CommandManager command manager}
+ * and the whole subcommand tree of every command, allowing the full command path of a
+ * message to be found with a single pass over the input, without splitting or lowercasing it.
+ *
+ * <br>Names take priority over aliases, mirroring {@link CommandManager#command(String)}
+ * and {@link AbstractCommand#subcommand(String)}.
+ *
+ * @param <C> Type of the context implementation.
+ * @param <T> Type of the command implementation.
+ */
+final class CommandRouter<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
+    private final Node<C, T> root;
+
+    private CommandRouter(Node<C, T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Finds the deepest command matching the start of the given content.
+     *
+     * @param content Content to route. Should not contain the prefix.
+     *
+     * @return The matched command, its hooks and the offset of its arguments, or null if no top level
+     *         command matched.
+     */
+    @Nullable
+    @CheckReturnValue
+    Match<C, T> route(@Nonnull String content) {
+        if(root == null) return null;
+        int length = content.length();
+        Node<C, T> level = root;
+        Route<C, T> matched = null;
+        int argumentsStart = 0;
+        int i = 0;
+        while(true) {
+            Node<C, T> node = level;
+            int j = i;
+            while(j < length) {
+                char c = content.charAt(j);
+                if(StringSplitter.isWhitespace(c)) break;
+                node = node.child(c);
+                if(node == null) break;
+                j++;
+            }
+            Route<C, T> route = node == null ? null : node.route;
+            if(route == null) break;
+            while(j < length && StringSplitter.isWhitespace(content.charAt(j))) j++;
+            matched = route;
+            argumentsStart = j;
+            level = route.subcommands;
+            i = j;
+            if(level == null || i == length) break;
+        }
+        return matched == null ? null : new Match<>(matched.command, matched.hooks, argumentsStart);
+    }
+
+    /**
+     * Builds a router for the given top level commands and aliases, compiling the {@link HookPipeline hooks}
+     * of every command.
+     *
+     * @param commands Top level commands, by name.
+     * @param aliases Top level aliases, mapping to command names.
+     * @param hooks Global hooks.
+     * @param <C> Type of the context implementation.
+     * @param <T> Type of the command implementation.
+     *
+     * @return A new router.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CommandRouter<C, T> build(
+            @Nonnull Map<String, T> commands, @Nonnull Map<String, String> aliases, @Nonnull List<CommandHook<C, T>> hooks) {
+        return new CommandRouter<>(buildLevel(commands, aliases, hooks, new IdentityHashMap<>()));
+    }
+
+    /**
+     * Returns a router that matches nothing.
+     *
+     * @param <C> Type of the context implementation.
+     * @param <T> Type of the command implementation.
+     *
+     * @return An empty router.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CommandRouter<C, T> empty() {
+        return new CommandRouter<>(null);
+    }
+
+    private static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> Node<C, T> buildLevel(
+            Map<String, T> commands, Map<String, String> aliases, List<CommandHook<C, T>> hooks, Map<T, Route<C, T>> routes) {
+        if(commands.isEmpty()) return null;
+        NodeBuilder<C, T> root = new NodeBuilder<>();
+        for(Map.Entry<String, T> entry : commands.entrySet()) {
+            root.insert(entry.getKey(), route(entry.getValue(), hooks, routes));
+        }
+        for(Map.Entry<String, String> entry : aliases.entrySet()) {
+            T target = commands.get(entry.getValue());
+            if(target == null) continue;
+            root.insert(entry.getKey(), route(target, hooks, routes));
+        }
+        return root.build();
+    }
+
+    private static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> Route<C, T> route(
+            T command, List<CommandHook<C, T>> hooks, Map<T, Route<C, T>> routes) {
+        Route<C, T> route = routes.get(command);
+        if(route == null) {
+            route = new Route<>(command, HookPipeline.compile(hooks, command.hooks()),
+                    buildLevel(command.subcommands(), command.subcommandAliases(), hooks, routes));
+            routes.put(command, route);
+        }
+        return route;
+    }
+
+    /**
+     * Result of routing a message.
+     *
+     * @param <C> Type of the context implementation.
+     * @param <T> Type of the command implementation.
+     */
+    static final class Match<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
+        final T command;
+        final HookPipeline<C, T> hooks;
+        final int argumentsStart;
+
+        private Match(T command, HookPipeline<C, T> hooks, int argumentsStart) {
+            this.command = command;
+            this.hooks = hooks;
+            this.argumentsStart = argumentsStart;
+        }
+    }
+
+    private static final class Route<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
+        final T command;
+        final HookPipeline<C, T> hooks;
+        final Node<C, T> subcommands;
+
+        private Route(T command, HookPipeline<C, T> hooks, Node<C, T> subcommands) {
+            this.command = command;
+            this.hooks = hooks;
+            this.subcommands = subcommands;
+        }
+    }
+
+    private static final class Node<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
+        //sorted, lowercase
+        private final char[] keys;
+        private final Node<C, T>[] children;
+        private final Route<C, T> route;
+
+        private Node(char[] keys, Node<C, T>[] children, Route<C, T> route) {
+            this.keys = keys;
+            this.children = children;
+            this.route = route;
+        }
+
+        Node<C, T> child(char c) {
+            char key = Character.toLowerCase(c);
+            int low = 0;
+            int high = keys.length - 1;
+            while(low <= high) {
+                int mid = (low + high) >>> 1;
+                char k = keys[mid];
+                if(k < key) {
+                    low = mid + 1;
+                } else if(k > key) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class NodeBuilder<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
+        private final TreeMap<Character, NodeBuilder<C, T>> children = new TreeMap<>();
+        private Route<C, T> route;
+
+        void insert(String name, Route<C, T> route) {
+            NodeBuilder<C, T> node = this;
+            for(int i = 0; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(Character.toLowerCase(name.charAt(i)), __ -> new NodeBuilder<>());
+            }
+            //first insertion wins, so names registered before aliases take priority
+            if(node.route == null) {
+                node.route = route;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<C, T> build() {
+            char[] keys = new char[children.size()];
+            Node<C, T>[] nodes = new Node[children.size()];
+            int i = 0;
+            for(Map.Entry<Character, NodeBuilder<C, T>> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build();
+                i++;
+            }
+            return new Node<>(keys, nodes, route);
+        }
+    }
+}
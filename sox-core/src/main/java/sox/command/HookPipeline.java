@@ -0,0 +1,117 @@
+package sox.command;
+
+import sox.command.hook.CommandHook;
+import sox.command.hook.HookPhase;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable hooks of a single command, combining the {@link CommandManager#commandHooks() global hooks}
+ * with the {@link AbstractCommand#hooks() command specific ones}, split by the {@link HookPhase phases}
+ * they take part in and ordered as documented by {@link CommandHook}.
+ *
+ * @param <C> Type of the context implementation.
+ * @param <T> Type of the command implementation.
+ */
+final class HookPipeline<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> {
+    private final CommandHook<C, T>[] filters;
+    private final CommandHook<C, T>[] before;
+    private final CommandHook<C, T>[] after;
+    private final CommandHook<C, T>[] errorHandlers;
+
+    private HookPipeline(CommandHook<C, T>[] filters, CommandHook<C, T>[] before,
+                         CommandHook<C, T>[] after, CommandHook<C, T>[] errorHandlers) {
+        this.filters = filters;
+        this.before = before;
+        this.after = after;
+        this.errorHandlers = errorHandlers;
+    }
+
+    /**
+     * Compiles the hooks of a command.
+     *
+     * @param global Global hooks.
+     * @param command Command specific hooks.
+     * @param <C> Type of the context implementation.
+     * @param <T> Type of the command implementation.
+     *
+     * @return The hooks of the command.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> HookPipeline<C, T> compile(
+            @Nonnull List<CommandHook<C, T>> global, @Nonnull List<CommandHook<C, T>> command) {
+        List<CommandHook<C, T>> filters = new ArrayList<>();
+        List<CommandHook<C, T>> before = new ArrayList<>();
+        List<CommandHook<C, T>> after = new ArrayList<>();
+        List<CommandHook<C, T>> errorHandlers = new ArrayList<>();
+        //global filters run first, everything else runs command specific first
+        add(global, HookPhase.FILTER, filters);
+        add(command, HookPhase.FILTER, filters);
+        add(command, HookPhase.BEFORE, before);
+        add(global, HookPhase.BEFORE, before);
+        add(command, HookPhase.AFTER, after);
+        add(global, HookPhase.AFTER, after);
+        add(command, HookPhase.ERROR, errorHandlers);
+        add(global, HookPhase.ERROR, errorHandlers);
+        return new HookPipeline<>(toArray(filters), toArray(before), toArray(after), toArray(errorHandlers));
+    }
+
+    /**
+     * Runs the filters.
+     *
+     * @return False if any filter aborted the command call.
+     */
+    @CheckReturnValue
+    boolean shouldRun(@Nonnull C context, @Nonnull T command) {
+        for(CommandHook<C, T> hook : filters) {
+            if(!hook.shouldRunCommand(context, command)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void before(@Nonnull C context, @Nonnull T command) {
+        for(CommandHook<C, T> hook : before) {
+            hook.beforeCommand(context, command);
+        }
+    }
+
+    void after(@Nonnull C context, @Nonnull T command) {
+        for(CommandHook<C, T> hook : after) {
+            hook.afterCommand(context, command);
+        }
+    }
+
+    /**
+     * Runs the error handlers, until one of them handles the exception.
+     *
+     * @return True if the exception was handled.
+     */
+    boolean error(@Nonnull C context, @Nonnull T command, @Nonnull Exception e) {
+        for(CommandHook<C, T> hook : errorHandlers) {
+            if(hook.onCommandError(context, command, e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> void add(
+            List<CommandHook<C, T>> hooks, HookPhase phase, List<CommandHook<C, T>> target) {
+        for(CommandHook<C, T> hook : hooks) {
+            if(hook.phases().contains(phase)) {
+                target.add(hook);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CommandHook<C, T>[] toArray(List<CommandHook<C, T>> hooks) {
+        return hooks.toArray(new CommandHook[0]);
+    }
+}
@@ -1,32 +1,36 @@
 package sox.command;
 
 import sox.Sox;
+import sox.command.dispatch.CommandDispatcher;
+import sox.command.index.CommandIndex;
 import sox.inject.Injector;
 import sox.util.ListFactory;
 import sox.util.MapFactory;
 
+import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public abstract class ReflectiveCommandManager<M, C extends AbstractContext<C>, T extends AbstractCommand<C, T>> extends CommandManager<M, C, T> {
     protected final List<SubcommandFinder<C, T>> finders;
+    private volatile CommandIndex commandIndex;
 
     public ReflectiveCommandManager(@Nonnull Sox sox, @Nonnull MapFactory mapFactory, @Nonnull ListFactory listFactory) {
         super(sox, mapFactory, listFactory);
         this.finders = listFactory.create();
-        finders.add((manager, injector, command) -> Arrays.stream(command.getClass().getDeclaredClasses())
+        finders.add((manager, injector, command) -> nestedCommandClasses(command.getClass())
                 .filter(commandClass()::isAssignableFrom)
-                .filter(c->!c.isAnonymousClass())
-                .filter(c->!c.isLocalClass())
-                .filter(c->(!c.isMemberClass() || Modifier.isStatic(c.getModifiers())))
-                .filter(c->!c.isSynthetic())
-                .filter(c->!Modifier.isAbstract(c.getModifiers()))
                 .map(injector::instantiate)
                 .map(manager::cast)
         );
@@ -38,23 +42,112 @@ public abstract class ReflectiveCommandManager<M, C extends AbstractContext<C>,
 
     @Override
     public void register(Class<? extends T> commandClass) {
-        if(!commandClass().isAssignableFrom(commandClass)) {
-            throw new IllegalArgumentException("Expected command to be a subtype of " + commandClass() + ", but got " + commandClass);
-        }
-        Injector injector = sox().injector();
-        T command = injector.instantiate(commandClass);
-        findSubCommands(command).forEach(c->{
-            command.registerSubcommand(c.name(), c);
-        });
+        checkCommandClass(commandClass);
+        T command = instantiate(commandClass);
         register(command.name(), command);
     }
 
+    /**
+     * Registers all the given command classes, using the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param commandClasses Command classes to register.
+     *
+     * @return A future completed once all commands are prepared for dispatching.
+     *
+     * @see #registerClasses(Collection, ForkJoinPool)
+     */
+    @Nonnull
+    public CompletableFuture<Void> registerClasses(@Nonnull Collection<? extends Class<? extends T>> commandClasses) {
+        return registerClasses(commandClasses, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Registers all the given command classes. Each command, along with it's subcommand tree, is
+     * instantiated in parallel on the given pool, so their constructors may run concurrently. Pools with a
+     * parallelism of 1 are only used for preparing, with commands being instantiated in the calling thread.
+     *
+     * <br>Once all of them are instantiated, they're {@link #registerAll(Collection) registered at once}.
+     * If any of them fails to be instantiated, the exception is rethrown and none are registered.
+     *
+     * <br>The {@link sox.command.dispatch.CommandDispatcher#prepare(AbstractCommand) dispatch data} of the
+     * commands and their subcommands is then prepared in the background, on the same pool.
+     *
+     * @param commandClasses Command classes to register.
+     * @param pool Pool used for instantiating and preparing the commands.
+     *
+     * @return A future completed once all commands are prepared for dispatching.
+     */
+    @Nonnull
+    public CompletableFuture<Void> registerClasses(@Nonnull Collection<? extends Class<? extends T>> commandClasses, @Nonnull ForkJoinPool pool) {
+        List<T> commands = new ArrayList<>(commandClasses.size());
+        if(pool.getParallelism() <= 1) {
+            //handing each command to a single worker is only overhead
+            for(Class<? extends T> commandClass : commandClasses) {
+                checkCommandClass(commandClass);
+                commands.add(instantiate(commandClass));
+            }
+        } else {
+            List<ForkJoinTask<T>> tasks = new ArrayList<>(commandClasses.size());
+            for(Class<? extends T> commandClass : commandClasses) {
+                checkCommandClass(commandClass);
+                tasks.add(pool.submit(() -> instantiate(commandClass)));
+            }
+            for(ForkJoinTask<T> task : tasks) {
+                commands.add(task.join());
+            }
+        }
+        registerAll(commands);
+        CommandDispatcher dispatcher = sox().dispatcher();
+        List<CompletableFuture<Void>> prepared = new ArrayList<>();
+        for(T command : commands) {
+            prepared.add(CompletableFuture.runAsync(() -> prepare(dispatcher, command), pool));
+        }
+        return CompletableFuture.allOf(prepared.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Sets the index used for finding the nested command classes of indexed commands, instead of reflection.
+     * Commands missing from the index are still searched reflectively.
+     *
+     * @param commandIndex Index to use, or null to always use reflection.
+     */
+    public void setCommandIndex(@Nullable CommandIndex commandIndex) {
+        this.commandIndex = commandIndex;
+    }
+
+    /**
+     * Returns the index used for finding nested command classes, if any.
+     *
+     * @return The current index, or null.
+     */
+    @Nullable
+    @CheckReturnValue
+    public CommandIndex commandIndex() {
+        return commandIndex;
+    }
+
     public void addSubcommandFinder(@Nonnull SubcommandFinder<C, T> finder) {
         finders.add(finder);
     }
 
     public abstract Class<? extends AbstractCommand<C, T>> commandClass();
 
+    /**
+     * Instantiates the given command class, along with it's subcommand tree.
+     *
+     * @param commandClass Command class to instantiate.
+     *
+     * @return The command, with it's subcommands registered.
+     */
+    @Nonnull
+    protected T instantiate(@Nonnull Class<? extends T> commandClass) {
+        T command = sox().injector().instantiate(commandClass);
+        findSubCommands(command).forEach(c->{
+            command.registerSubcommand(c.name(), c);
+        });
+        return command;
+    }
+
     protected List<T> findSubCommands(T command) {
         return finders.stream()
                 .flatMap(f -> f.findSubCommands(this, sox().injector(), command))
@@ -64,6 +157,37 @@ public abstract class ReflectiveCommandManager<M, C extends AbstractContext<C>,
                 .collect(Collectors.toList());
     }
 
+    private void checkCommandClass(Class<?> commandClass) {
+        if(!commandClass().isAssignableFrom(commandClass)) {
+            throw new IllegalArgumentException("Expected command to be a subtype of " + commandClass() + ", but got " + commandClass);
+        }
+    }
+
+    private Stream<Class<?>> nestedCommandClasses(Class<?> commandClass) {
+        CommandIndex index = commandIndex;
+        if(index != null && index.get(commandClass.getName()) != null) {
+            ClassLoader loader = commandClass.getClassLoader();
+            return index.nested(commandClass.getName()).stream().map(e -> e.load(loader));
+        }
+        return Arrays.stream(commandClass.getDeclaredClasses())
+                .filter(c->!c.isAnonymousClass())
+                .filter(c->!c.isLocalClass())
+                .filter(c->(!c.isMemberClass() || Modifier.isStatic(c.getModifiers())))
+                .filter(c->!c.isSynthetic())
+                .filter(c->!Modifier.isAbstract(c.getModifiers()));
+    }
+
+    private static void prepare(CommandDispatcher dispatcher, AbstractCommand<?, ?> command) {
+        try {
+            dispatcher.prepare(command);
+        } catch(RuntimeException ignored) {
+            //commands without handlers, thrown again if they're ever dispatched to
+        }
+        for(AbstractCommand<?, ?> subcommand : command.subcommands().values()) {
+            prepare(dispatcher, subcommand);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private T cast(Object object) {
         return (T)object;
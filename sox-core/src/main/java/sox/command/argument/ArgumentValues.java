@@ -1,5 +1,7 @@
 package sox.command.argument;
 
+import sox.command.argument.split.SplitString;
+
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -89,11 +91,7 @@ public class ArgumentValues implements Iterator<String> {
     @Nonnull
     @CheckReturnValue
     public String[] absoluteRange(int from, int to) {
-        String[] array = new String[to - from];
-        for(int i = from; i < to; i++) {
-            array[i - from] = get(i - from);
-        }
-        return array;
+        return toValues(arguments.absoluteRange(from, to));
     }
 
     /**
@@ -107,11 +105,24 @@ public class ArgumentValues implements Iterator<String> {
     @Nonnull
     @CheckReturnValue
     public String[] range(int from, int to) {
-        String[] array = new String[to - from];
-        for(int i = from; i < to; i++) {
-            array[i - from] = get(i - from);
-        }
-        return array;
+        return toValues(arguments.range(from, to));
+    }
+
+    /**
+     * Returns a view of a range of the values, with offsets relative to the {@link #getOffset() current offset}.
+     * The view starts at offset zero and shares the underlying content, so no copying is done.
+     *
+     * @param from Start index on the array, relative to the {@link #getOffset() current offset}.
+     * @param to End index on the array, relative to the {@link #getOffset() current offset}.
+     *
+     * @return A view of a range of the values.
+     *
+     * @see Arguments#slice(int, int)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public ArgumentValues slice(int from, int to) {
+        return arguments.slice(from, to).values();
     }
 
     /**
@@ -204,4 +215,12 @@ public class ArgumentValues implements Iterator<String> {
     public ArgumentValues snapshot() {
         return arguments.snapshot().values();
     }
+
+    private static String[] toValues(SplitString[] strings) {
+        String[] array = new String[strings.length];
+        for(int i = 0; i < strings.length; i++) {
+            array[i] = strings[i].getValue();
+        }
+        return array;
+    }
 }
@@ -1,27 +1,68 @@
 package sox.command.argument;
 
 import sox.command.argument.split.SplitString;
+import sox.command.argument.split.TokenOffsets;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import java.util.Arrays;
 import java.util.Iterator;
 
 /**
  * Helper for reading arguments in order, without having to explicitly keep track of indexes.
+ *
+ * <br>Arguments are a view over the original content and the boundaries of each argument in it.
+ * The content is never copied: {@link SplitString split strings} are created on demand and only
+ * extract their values when read, {@link #slice(int, int) slices} and {@link #snapshot() snapshots}
+ * share the underlying data.
  */
 public class Arguments implements Iterator<SplitString> {
-    private final SplitString[] array;
-    private final ArgumentValues strings;
+    private final CharSequence source;
+    //start/end pairs, never modified after construction
+    private final int[] offsets;
+    private final int sourceStart;
+    private final int base;
+    private final int length;
+    private ArgumentValues strings;
     private int offset;
     private int mark;
 
     public Arguments(@Nonnull SplitString[] array, @Nonnegative int offset) {
-        this.array = array;
+        StringBuilder sb = new StringBuilder();
+        int[] offsets = new int[array.length * 2];
+        for(int i = 0; i < array.length; i++) {
+            sb.append(array[i].getPreviousWhitespace());
+            offsets[i * 2] = sb.length();
+            sb.append(array[i].getValue());
+            offsets[i * 2 + 1] = sb.length();
+        }
+        this.source = sb.toString();
+        this.offsets = offsets;
+        this.sourceStart = 0;
+        this.base = 0;
+        this.length = array.length;
+        this.offset = offset;
+        this.mark = offset;
+    }
+
+    /**
+     * Creates arguments backed by the content and token boundaries stored in the given buffer.
+     * <br>The content is shared, the boundaries are copied, so the buffer may be reused afterwards.
+     *
+     * @param tokens Tokens found in the content.
+     */
+    public Arguments(@Nonnull TokenOffsets tokens) {
+        this(tokens.source(), tokens.toOffsetArray(), tokens.from(), 0, tokens.count(), 0);
+    }
+
+    private Arguments(CharSequence source, int[] offsets, int sourceStart, int base, int length, int offset) {
+        this.source = source;
+        this.offsets = offsets;
+        this.sourceStart = sourceStart;
+        this.base = base;
+        this.length = length;
         this.offset = offset;
         this.mark = offset;
-        this.strings = new ArgumentValues(this);
     }
 
     /**
@@ -84,7 +125,7 @@ public class Arguments implements Iterator<SplitString> {
      * @apiNote This method should be avoided by parsers. Use the {@link #marked() marker} API instead.
      */
     public void setOffset(@Nonnegative int offset) {
-        if(offset > array.length) {
+        if(offset > length) {
             throw new IllegalArgumentException("Offset > length");
         }
         this.offset = offset;
@@ -103,7 +144,12 @@ public class Arguments implements Iterator<SplitString> {
     @Nonnull
     @CheckReturnValue
     public SplitString[] absoluteRange(int from, int to) {
-        return Arrays.copyOfRange(array, from, to);
+        checkRange(from, to);
+        SplitString[] array = new SplitString[to - from];
+        for(int i = from; i < to; i++) {
+            array[i - from] = token(i);
+        }
+        return array;
     }
 
     /**
@@ -120,6 +166,84 @@ public class Arguments implements Iterator<SplitString> {
         return absoluteRange(offset + from, offset + to);
     }
 
+    /**
+     * Returns a view of a range of the arguments, with absolute offsets. The view starts at offset zero
+     * and shares the underlying content with this object, so no copying is done.
+     *
+     * @param from Start index on the array, relative to the array start.
+     * @param to End index on the array, relative to the array start.
+     *
+     * @return A view of a range of the arguments.
+     *
+     * @apiNote When possible, prefer using {@link #slice(int, int) relative slices} instead.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public Arguments absoluteSlice(int from, int to) {
+        checkRange(from, to);
+        return new Arguments(source, offsets, sourceStart, base + from, to - from, 0);
+    }
+
+    /**
+     * Returns a view of a range of the arguments, with offsets relative to the {@link #getOffset() current offset}.
+     * The view starts at offset zero and shares the underlying content with this object, so no copying is done.
+     *
+     * @param from Start index on the array, relative to the {@link #getOffset() current offset}.
+     * @param to End index on the array, relative to the {@link #getOffset() current offset}.
+     *
+     * @return A view of a range of the arguments.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public Arguments slice(int from, int to) {
+        return absoluteSlice(offset + from, offset + to);
+    }
+
+    /**
+     * Returns the original content of a range of the arguments, including the whitespace preceding each
+     * of them, with offsets relative to the {@link #getOffset() current offset}.
+     * <br>This is equivalent to concatenating the {@link SplitString#getRawValue() raw values} of the range,
+     * but only creates a single string.
+     *
+     * @param from Start index on the array, relative to the {@link #getOffset() current offset}.
+     * @param to End index on the array, relative to the {@link #getOffset() current offset}.
+     *
+     * @return The original content of the range.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public String rawRange(int from, int to) {
+        checkRange(offset + from, offset + to);
+        if(from == to) return "";
+        return source.subSequence(whitespaceStart(base + offset + from), end(base + offset + to - 1)).toString();
+    }
+
+    /**
+     * Amount of arguments left to read.
+     *
+     * @return The amount of arguments after the {@link #getOffset() current offset}.
+     */
+    @Nonnegative
+    @CheckReturnValue
+    public int remaining() {
+        return length - offset;
+    }
+
+    /**
+     * Skips the given amount of arguments.
+     *
+     * @param amount Amount of arguments to skip.
+     *
+     * @throws IllegalArgumentException If the amount is negative or there are less remaining arguments.
+     */
+    public void skip(@Nonnegative int amount) {
+        //noinspection ConstantConditions
+        if(amount < 0 || amount > remaining()) {
+            throw new IllegalArgumentException("Cannot skip " + amount + " arguments, remaining = " + remaining());
+        }
+        offset += amount;
+    }
+
     /**
      * Gets an element of the underlying array with an index relative to the {@link #getOffset() current offset}.
      *
@@ -136,10 +260,10 @@ public class Arguments implements Iterator<SplitString> {
         if(i < 0) {
             throw new IllegalArgumentException("Negative index");
         }
-        if(i + offset >= array.length) {
-            throw new IllegalArgumentException("Out of bounds! Remaining values = " + (array.length - offset) + ", requested = " + i);
+        if(i + offset >= length) {
+            throw new IllegalArgumentException("Out of bounds! Remaining values = " + (length - offset) + ", requested = " + i);
         }
-        return array[offset + i];
+        return token(offset + i);
     }
 
     /**
@@ -158,7 +282,7 @@ public class Arguments implements Iterator<SplitString> {
         if(offset == 0) {
             throw new IllegalStateException("Already at the beginning");
         }
-        return array[--offset];
+        return token(--offset);
     }
 
     /**
@@ -197,10 +321,10 @@ public class Arguments implements Iterator<SplitString> {
     @Nonnull
     @CheckReturnValue
     public SplitString next() {
-        if(offset == array.length) {
+        if(offset == length) {
             throw new IllegalStateException("No more arguments to read");
         }
-        return array[offset++];
+        return token(offset++);
     }
 
     /**
@@ -211,7 +335,7 @@ public class Arguments implements Iterator<SplitString> {
     @Override
     @CheckReturnValue
     public boolean hasNext() {
-        return offset < array.length;
+        return offset < length;
     }
 
     /**
@@ -222,7 +346,11 @@ public class Arguments implements Iterator<SplitString> {
     @Nonnull
     @CheckReturnValue
     public ArgumentValues values() {
-        return strings;
+        ArgumentValues v = strings;
+        if(v == null) {
+            strings = v = new ArgumentValues(this);
+        }
+        return v;
     }
 
     /**
@@ -233,6 +361,49 @@ public class Arguments implements Iterator<SplitString> {
     @Nonnull
     @CheckReturnValue
     public Arguments snapshot() {
-        return new Arguments(array, offset);
+        return new Arguments(source, offsets, sourceStart, base, length, offset);
+    }
+
+    //advances past the next token, returning it's absolute index, for parsers reading the source directly
+    int nextIndex() {
+        if(offset == length) {
+            throw new IllegalStateException("No more arguments to read");
+        }
+        return base + offset++;
+    }
+
+    CharSequence source() {
+        return source;
+    }
+
+    int start(int idx) {
+        return offsets[idx * 2];
+    }
+
+    //true if both arguments are views of the same tokens, so their offsets can be compared
+    boolean sameTokens(Arguments other) {
+        return offsets == other.offsets && base == other.base && length == other.length;
+    }
+
+    private SplitString token(int i) {
+        int idx = base + i;
+        return SplitString.of(source, whitespaceStart(idx), offsets[idx * 2], end(idx));
+    }
+
+    private int whitespaceStart(int idx) {
+        return idx == 0 ? sourceStart : offsets[idx * 2 - 1];
+    }
+
+    int end(int idx) {
+        return offsets[idx * 2 + 1];
+    }
+
+    private void checkRange(int from, int to) {
+        if(from < 0 || to > length) {
+            throw new IllegalArgumentException("Out of bounds! Length = " + length + ", requested = [" + from + ", " + to + ")");
+        }
+        if(from > to) {
+            throw new IllegalArgumentException(from + " > " + to);
+        }
     }
 }
@@ -0,0 +1,112 @@
+package sox.command.argument;
+
+import sox.command.AbstractContext;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.Optional;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * {@link Parser Parser} specialized for doubles, which doesn't box results.
+ *
+ * <br>{@link Double#NaN NaN} signals parsing failed, so it can't be returned by double parsers.
+ *
+ * <br>All implementations of this interface should be immutable and thread safe.
+ */
+@FunctionalInterface
+public interface DoubleParser extends Parser<Double> {
+    /**
+     * Value returned when parsing fails.
+     */
+    double NO_MATCH = Double.NaN;
+
+    /**
+     * Parses a double from the given arguments.
+     *
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     *
+     * @return The parsed value, or {@link #NO_MATCH NaN} if parsing failed.
+     */
+    @CheckReturnValue
+    double parseDouble(@Nonnull AbstractContext<?> context, @Nonnull Arguments arguments);
+
+    @Nonnull
+    @CheckReturnValue
+    @Override
+    default Optional<Double> parse(@Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        double value = parseDouble(context, arguments);
+        return Double.isNaN(value) ? Optional.empty() : Optional.of(value);
+    }
+
+    /**
+     * Filters the result of this parser, failing when the given predicate returns false.
+     *
+     * @param predicate Filter to apply to the parsing result.
+     *
+     * @return A new parser, which applies the given filter.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default DoubleParser filterDouble(@Nonnull DoublePredicate predicate) {
+        return (c, args) -> {
+            double value = parseDouble(c, args);
+            return !Double.isNaN(value) && predicate.test(value) ? value : NO_MATCH;
+        };
+    }
+
+    /**
+     * Maps the result of this parser. If the mapper returns {@link #NO_MATCH NaN}, parsing fails.
+     *
+     * @param mapper Mapper to apply to the parsing result.
+     *
+     * @return A new parser, which applies the given mapper.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default DoubleParser mapDouble(@Nonnull DoubleUnaryOperator mapper) {
+        return (c, args) -> {
+            double value = parseDouble(c, args);
+            return Double.isNaN(value) ? NO_MATCH : mapper.applyAsDouble(value);
+        };
+    }
+
+    /**
+     * Maps the result of this parser to an object.
+     *
+     * @param mapper Mapper to apply to the parsing result.
+     * @param <U> Type returned by the returned parser.
+     *
+     * @return A new parser, which applies the given mapper.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default <U> Parser<U> mapToObj(@Nonnull DoubleFunction<? extends U> mapper) {
+        return (c, args) -> {
+            double value = parseDouble(c, args);
+            return Double.isNaN(value) ? Optional.empty() : Optional.of(mapper.apply(value));
+        };
+    }
+
+    /**
+     * Adapts a boxed parser into a double parser. {@link Double#NaN NaN} results are treated as failures.
+     *
+     * @param parser Parser to adapt.
+     *
+     * @return A double parser with the same results as the given parser.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static DoubleParser of(@Nonnull Parser<Double> parser) {
+        if(parser instanceof DoubleParser) {
+            return (DoubleParser)parser;
+        }
+        return (c, args) -> {
+            Optional<Double> value = parser.parse(c, args);
+            return value.isPresent() ? value.get() : NO_MATCH;
+        };
+    }
+}
@@ -9,4 +9,34 @@ class Helper {
         }
         return false;
     }
+
+    //same rules as Integer.parseInt(s, 10), returning IntParser.NO_MATCH instead of throwing
+    static long parseInt(CharSequence s, int start, int end) {
+        long value = parseLong(s, start, end);
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? IntParser.NO_MATCH : value;
+    }
+
+    //same rules as Long.parseLong(s, 10), returning LongParser.NO_MATCH instead of throwing
+    static long parseLong(CharSequence s, int start, int end) {
+        if(start == end) return LongParser.NO_MATCH;
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if(first == '-' || first == '+') {
+            negative = first == '-';
+            if(++i == end) return LongParser.NO_MATCH;
+        }
+        //accumulate negatively, as the negative range is bigger
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for(; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if(digit < 0 || result < multiplyLimit) return LongParser.NO_MATCH;
+            result *= 10;
+            if(result < limit + digit) return LongParser.NO_MATCH;
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
 }
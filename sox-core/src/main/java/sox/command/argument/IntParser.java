@@ -0,0 +1,113 @@
+package sox.command.argument;
+
+import sox.command.AbstractContext;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@link Parser Parser} specialized for ints, which doesn't box results.
+ *
+ * <br>Results are returned widened to a long, with {@link #NO_MATCH} signaling parsing failed,
+ * as every int value can still be returned.
+ *
+ * <br>All implementations of this interface should be immutable and thread safe.
+ */
+@FunctionalInterface
+public interface IntParser extends Parser<Integer> {
+    /**
+     * Value returned when parsing fails. Outside of the int range.
+     */
+    long NO_MATCH = Long.MIN_VALUE;
+
+    /**
+     * Parses an int from the given arguments.
+     *
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     *
+     * @return The parsed value, or {@link #NO_MATCH} if parsing failed.
+     */
+    @CheckReturnValue
+    long parseInt(@Nonnull AbstractContext<?> context, @Nonnull Arguments arguments);
+
+    @Nonnull
+    @CheckReturnValue
+    @Override
+    default Optional<Integer> parse(@Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        long value = parseInt(context, arguments);
+        return value == NO_MATCH ? Optional.empty() : Optional.of((int)value);
+    }
+
+    /**
+     * Filters the result of this parser, failing when the given predicate returns false.
+     *
+     * @param predicate Filter to apply to the parsing result.
+     *
+     * @return A new parser, which applies the given filter.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default IntParser filterInt(@Nonnull IntPredicate predicate) {
+        return (c, args) -> {
+            long value = parseInt(c, args);
+            return value != NO_MATCH && predicate.test((int)value) ? value : NO_MATCH;
+        };
+    }
+
+    /**
+     * Maps the result of this parser.
+     *
+     * @param mapper Mapper to apply to the parsing result.
+     *
+     * @return A new parser, which applies the given mapper.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default IntParser mapInt(@Nonnull IntUnaryOperator mapper) {
+        return (c, args) -> {
+            long value = parseInt(c, args);
+            return value == NO_MATCH ? NO_MATCH : mapper.applyAsInt((int)value);
+        };
+    }
+
+    /**
+     * Maps the result of this parser to an object.
+     *
+     * @param mapper Mapper to apply to the parsing result.
+     * @param <U> Type returned by the returned parser.
+     *
+     * @return A new parser, which applies the given mapper.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default <U> Parser<U> mapToObj(@Nonnull IntFunction<? extends U> mapper) {
+        return (c, args) -> {
+            long value = parseInt(c, args);
+            return value == NO_MATCH ? Optional.empty() : Optional.of(mapper.apply((int)value));
+        };
+    }
+
+    /**
+     * Adapts a boxed parser into an int parser.
+     *
+     * @param parser Parser to adapt.
+     *
+     * @return An int parser with the same results as the given parser.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static IntParser of(@Nonnull Parser<Integer> parser) {
+        if(parser instanceof IntParser) {
+            return (IntParser)parser;
+        }
+        return (c, args) -> {
+            Optional<Integer> value = parser.parse(c, args);
+            return value.isPresent() ? value.get() : NO_MATCH;
+        };
+    }
+}
@@ -2,20 +2,47 @@ package sox.command.argument;
 
 import sox.command.AbstractContext;
 
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+/**
+ * Lenient integer parsing, ignoring {@code .} and {@code ,} characters and applying
+ * {@link NumberSuffixes suffix} multipliers.
+ *
+ * <br>{@link #parse(CharSequence, int, int, long, NumberSuffixes)} does so in a single pass, accumulating
+ * the digits into a long and detecting overflows without throwing. It's used by
+ * {@link Parsers#lenientInt(NumberSuffixes)} and {@link Parsers#lenientLong(NumberSuffixes)}.
+ *
+ * @param <T> Resulting type of the parse function.
+ */
 public class IntegerTypeParser<T> implements Parser<T> {
+    /**
+     * Value returned by {@link #parse(CharSequence, int, int, long, NumberSuffixes)} when parsing fails.
+     */
+    public static final long NO_MATCH = Long.MIN_VALUE;
+
     private final BiFunction<String, Integer, T> parseFunction;
     private final Function<Exception, Optional<T>> errorHandler;
 
+    /**
+     * @deprecated Use {@link Parsers#lenientInt(NumberSuffixes)} or {@link Parsers#lenientLong(NumberSuffixes)}
+     *             and map the result instead, which don't create strings or use exceptions.
+     */
+    @Deprecated
     public IntegerTypeParser(BiFunction<String, Integer, T> parseFunction, Function<Exception, Optional<T>> errorHandler) {
         this.parseFunction = parseFunction;
         this.errorHandler = errorHandler;
     }
 
+    /**
+     * @deprecated Use {@link Parsers#lenientInt(NumberSuffixes)} or {@link Parsers#lenientLong(NumberSuffixes)}
+     *             and map the result instead, which don't create strings or use exceptions.
+     */
+    @Deprecated
     public IntegerTypeParser(BiFunction<String, Integer, T> parseFunction) {
         this(parseFunction, __ -> Optional.empty());
     }
@@ -34,19 +61,47 @@ public class IntegerTypeParser<T> implements Parser<T> {
                 builder.append(c);
             }
             if(builder.length() == 0) return Optional.empty();
-            int multiplier;
-            if(offset < s.length()) {
-                switch(s.substring(offset).toLowerCase()) {
-                    case "k": multiplier = 1000; break;
-                    case "kk": case "m": multiplier = 1000000; break;
-                    default: return Optional.empty();
-                }
-            } else {
-                multiplier = 1;
-            }
-            return Optional.of(parseFunction.apply(builder.toString(), multiplier));
+            long multiplier = NumberSuffixes.defaults().multiplier(s, offset, s.length());
+            if(multiplier == 0) return Optional.empty();
+            return Optional.of(parseFunction.apply(builder.toString(), (int)multiplier));
         } catch(Exception e) {
             return errorHandler.apply(e);
         }
     }
+
+    /**
+     * Leniently parses a non negative integer from the given range.
+     *
+     * <br>Digits are read until the first character that's not a digit, {@code .} or {@code ,}, with the
+     * separators being ignored. The rest of the range must be empty or a known suffix, whose multiplier
+     * is applied to the digits read.
+     * <br>Example: {@code 1.000k} {@literal ->} {@code 1000000}
+     *
+     * @param s String to parse from.
+     * @param start Start of the range (inclusive).
+     * @param end End of the range (exclusive).
+     * @param max Maximum value allowed. Larger values, before or after applying the multiplier, fail parsing.
+     * @param suffixes Suffixes allowed after the number.
+     *
+     * @return The parsed value, or {@link #NO_MATCH} if parsing failed.
+     */
+    @CheckReturnValue
+    public static long parse(@Nonnull CharSequence s, int start, int end, @Nonnegative long max, @Nonnull NumberSuffixes suffixes) {
+        long value = 0;
+        boolean digits = false;
+        int offset = start;
+        for(; offset < end; offset++) {
+            char c = s.charAt(offset);
+            if(c == '.' || c == ',') continue;
+            if(!Character.isDigit(c)) break;
+            int digit = Character.digit(c, 10);
+            if(value > (max - digit) / 10) return NO_MATCH;
+            value = value * 10 + digit;
+            digits = true;
+        }
+        if(!digits) return NO_MATCH;
+        long multiplier = suffixes.multiplier(s, offset, end);
+        if(multiplier == 0 || value > max / multiplier) return NO_MATCH;
+        return value * multiplier;
+    }
 }
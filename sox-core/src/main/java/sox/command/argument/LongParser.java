@@ -0,0 +1,113 @@
+package sox.command.argument;
+
+import sox.command.AbstractContext;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.Optional;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * {@link Parser Parser} specialized for longs, which doesn't box results.
+ *
+ * <br>{@link #NO_MATCH} signals parsing failed, so {@link Long#MIN_VALUE} itself can't be
+ * returned by long parsers.
+ *
+ * <br>All implementations of this interface should be immutable and thread safe.
+ */
+@FunctionalInterface
+public interface LongParser extends Parser<Long> {
+    /**
+     * Value returned when parsing fails.
+     */
+    long NO_MATCH = Long.MIN_VALUE;
+
+    /**
+     * Parses a long from the given arguments.
+     *
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     *
+     * @return The parsed value, or {@link #NO_MATCH} if parsing failed.
+     */
+    @CheckReturnValue
+    long parseLong(@Nonnull AbstractContext<?> context, @Nonnull Arguments arguments);
+
+    @Nonnull
+    @CheckReturnValue
+    @Override
+    default Optional<Long> parse(@Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        long value = parseLong(context, arguments);
+        return value == NO_MATCH ? Optional.empty() : Optional.of(value);
+    }
+
+    /**
+     * Filters the result of this parser, failing when the given predicate returns false.
+     *
+     * @param predicate Filter to apply to the parsing result.
+     *
+     * @return A new parser, which applies the given filter.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default LongParser filterLong(@Nonnull LongPredicate predicate) {
+        return (c, args) -> {
+            long value = parseLong(c, args);
+            return value != NO_MATCH && predicate.test(value) ? value : NO_MATCH;
+        };
+    }
+
+    /**
+     * Maps the result of this parser. If the mapper returns {@link #NO_MATCH}, parsing fails.
+     *
+     * @param mapper Mapper to apply to the parsing result.
+     *
+     * @return A new parser, which applies the given mapper.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default LongParser mapLong(@Nonnull LongUnaryOperator mapper) {
+        return (c, args) -> {
+            long value = parseLong(c, args);
+            return value == NO_MATCH ? NO_MATCH : mapper.applyAsLong(value);
+        };
+    }
+
+    /**
+     * Maps the result of this parser to an object.
+     *
+     * @param mapper Mapper to apply to the parsing result.
+     * @param <U> Type returned by the returned parser.
+     *
+     * @return A new parser, which applies the given mapper.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default <U> Parser<U> mapToObj(@Nonnull LongFunction<? extends U> mapper) {
+        return (c, args) -> {
+            long value = parseLong(c, args);
+            return value == NO_MATCH ? Optional.empty() : Optional.of(mapper.apply(value));
+        };
+    }
+
+    /**
+     * Adapts a boxed parser into a long parser. {@link Long#MIN_VALUE} results are treated as failures.
+     *
+     * @param parser Parser to adapt.
+     *
+     * @return A long parser with the same results as the given parser.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static LongParser of(@Nonnull Parser<Long> parser) {
+        if(parser instanceof LongParser) {
+            return (LongParser)parser;
+        }
+        return (c, args) -> {
+            Optional<Long> value = parser.parse(c, args);
+            return value.isPresent() ? value.get() : NO_MATCH;
+        };
+    }
+}
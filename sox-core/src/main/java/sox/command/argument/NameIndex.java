@@ -0,0 +1,295 @@
+package sox.command.argument;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Mutable index of the names of entities, keyed by ID, used to resolve names that may span multiple arguments.
+ * <br>Names are stored in a case insensitive character trie, so resolving a name takes a single pass over the
+ * arguments, no matter how many entities are indexed. Meant to be kept up to date incrementally, as
+ * entities are created, renamed or deleted.
+ *
+ * <br>Only IDs are stored. Entities are looked up when a name matches, and skipped if they no longer exist or
+ * were renamed, so updates missed by the index never return stale entities.
+ *
+ * <br>All methods are thread safe.
+ */
+public class NameIndex {
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Node root = new Node();
+
+    /**
+     * Adds an entity to this index, replacing the previous name of the ID, if present.
+     *
+     * @param id ID of the entity.
+     * @param name Name of the entity.
+     */
+    public synchronized void put(long id, @Nonnull String name) {
+        Entry existing = entries.get(id);
+        if(existing != null) {
+            if(existing.name.equals(name)) return;
+            unlink(existing);
+        }
+        Node node = root;
+        int length = name.length();
+        for(int i = 0; i < length; i++) {
+            node.longest = Math.max(node.longest, length);
+            node = node.childOrCreate(fold(name.charAt(i)));
+        }
+        node.longest = Math.max(node.longest, length);
+        Entry entry = new Entry(id, name);
+        if(node.values == null) node.values = new ArrayList<>(1);
+        node.values.add(entry);
+        entries.put(id, entry);
+    }
+
+    /**
+     * Removes an entity from this index.
+     *
+     * @param id ID of the entity.
+     *
+     * @return True if the entity was indexed.
+     */
+    public synchronized boolean remove(long id) {
+        Entry entry = entries.get(id);
+        if(entry == null) return false;
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Removes all entities from this index.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        root.clear();
+    }
+
+    /**
+     * Amount of indexed entities.
+     *
+     * @return The amount of entities.
+     */
+    @CheckReturnValue
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Length of the longest indexed name.
+     *
+     * @return The length of the longest name, or 0 if the index is empty.
+     */
+    @CheckReturnValue
+    public synchronized int longestName() {
+        return root.longest;
+    }
+
+    /**
+     * Returns the entity with the given name, case sensitive, or case insensitive if no names match exactly.
+     *
+     * @param name Name to look up.
+     * @param lookup Returns the entity with an ID, or null if it doesn't exist.
+     * @param nameOf Returns the current name of an entity.
+     * @param <T> Type of the entities.
+     *
+     * @return The matching entity, or null if none match.
+     */
+    @Nullable
+    @CheckReturnValue
+    public synchronized <T> T get(@Nonnull String name, @Nonnull LongFunction<? extends T> lookup,
+                                  @Nonnull Function<? super T, String> nameOf) {
+        Node node = root;
+        for(int i = 0; i < name.length() && node != null; i++) {
+            node = node.child(fold(name.charAt(i)));
+        }
+        return node == null ? null : node.best(name, lookup, nameOf);
+    }
+
+    /**
+     * Finds an entity whose name matches the next arguments. The shortest name that matches wins, and
+     * at each length a case sensitive match is preferred to a case insensitive one. Whitespace between
+     * arguments is kept as it was in the original message.
+     * <br>On success, the arguments making up the name are consumed. Otherwise, only the first argument is.
+     *
+     * @param arguments Arguments to read.
+     * @param lookup Returns the entity with an ID, or null if it doesn't exist.
+     * @param nameOf Returns the current name of an entity.
+     * @param <T> Type of the entities.
+     *
+     * @return The matching entity, or null if none match.
+     */
+    @Nullable
+    @CheckReturnValue
+    public synchronized <T> T find(@Nonnull Arguments arguments, @Nonnull LongFunction<? extends T> lookup,
+                                   @Nonnull Function<? super T, String> nameOf) {
+        if(!arguments.hasNext()) return null;
+        String first = arguments.next().getValue();
+        MarkedBlock block = arguments.marked();
+        StringBuilder search = null;
+        Node node = root;
+        String part = first;
+        int depth = 0;
+        while(true) {
+            for(int i = 0; i < part.length(); i++) {
+                node = node.child(fold(part.charAt(i)));
+                if(node == null) {
+                    block.reset();
+                    return null;
+                }
+            }
+            depth += part.length();
+            if(node.values != null) {
+                T value = node.best(search == null ? first : search.toString(), lookup, nameOf);
+                if(value != null) return value;
+            }
+            //no longer names below this node
+            if(node.longest <= depth || !arguments.hasNext()) {
+                block.reset();
+                return null;
+            }
+            if(search == null) search = new StringBuilder(node.longest).append(first);
+            part = arguments.next().getRawValue();
+            search.append(part);
+        }
+    }
+
+    //same equality as String#equalsIgnoreCase
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private void unlink(Entry entry) {
+        entries.remove(entry.id);
+        String name = entry.name;
+        List<Node> path = new ArrayList<>(name.length() + 1);
+        Node node = root;
+        path.add(node);
+        for(int i = 0; i < name.length(); i++) {
+            node = node.child(fold(name.charAt(i)));
+            path.add(node);
+        }
+        node.values.remove(entry);
+        if(node.values.isEmpty()) node.values = null;
+        //prune empty nodes and recompute the longest name below each node, bottom up
+        for(int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            current.recomputeLongest(i);
+            if(i > 0 && current.values == null && current.size == 0) {
+                path.get(i - 1).removeChild(fold(name.charAt(i - 1)));
+            }
+        }
+    }
+
+    private static class Entry {
+        final long id;
+        final String name;
+
+        Entry(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static class Node {
+        //sorted
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        int size;
+        //entries whose folded name ends here, in insertion order
+        List<Entry> values;
+        //length of the longest name ending at or below this node
+        int longest;
+
+        Node child(char c) {
+            int i = indexOf(c);
+            return i < 0 ? null : children[i];
+        }
+
+        Node childOrCreate(char c) {
+            int i = indexOf(c);
+            if(i >= 0) return children[i];
+            int insertion = -(i + 1);
+            if(size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                char[] newKeys = new char[capacity];
+                Node[] newChildren = new Node[capacity];
+                System.arraycopy(keys, 0, newKeys, 0, size);
+                System.arraycopy(children, 0, newChildren, 0, size);
+                keys = newKeys;
+                children = newChildren;
+            }
+            System.arraycopy(keys, insertion, keys, insertion + 1, size - insertion);
+            System.arraycopy(children, insertion, children, insertion + 1, size - insertion);
+            Node node = new Node();
+            keys[insertion] = c;
+            children[insertion] = node;
+            size++;
+            return node;
+        }
+
+        void removeChild(char c) {
+            int i = indexOf(c);
+            if(i < 0) return;
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(children, i + 1, children, i, size - i - 1);
+            children[--size] = null;
+        }
+
+        void recomputeLongest(int depth) {
+            int longest = values == null ? 0 : depth;
+            for(int i = 0; i < size; i++) {
+                longest = Math.max(longest, children[i].longest);
+            }
+            this.longest = longest;
+        }
+
+        //entities whose ID is gone, or whose name no longer matches the indexed one, are skipped
+        <T> T best(String name, LongFunction<? extends T> lookup, Function<? super T, String> nameOf) {
+            if(values == null) return null;
+            T ignoreCase = null;
+            for(Entry entry : values) {
+                T value = lookup.apply(entry.id);
+                if(value == null) continue;
+                String current = nameOf.apply(value);
+                if(current.equals(name)) return value;
+                if(ignoreCase == null && current.equalsIgnoreCase(name)) {
+                    ignoreCase = value;
+                }
+            }
+            return ignoreCase;
+        }
+
+        void clear() {
+            keys = new char[0];
+            children = new Node[0];
+            size = 0;
+            values = null;
+            longest = 0;
+        }
+
+        private int indexOf(char c) {
+            int low = 0;
+            int high = size - 1;
+            while(low <= high) {
+                int mid = (low + high) >>> 1;
+                char k = keys[mid];
+                if(k < c) {
+                    low = mid + 1;
+                } else if(k > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package sox.command.argument;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Immutable, case insensitive table of the suffixes accepted by {@link Parsers#lenientInt(NumberSuffixes) lenient}
+ * number parsers, mapping each suffix to the multiplier applied to the number it follows.
+ *
+ * <br>Example: with the {@link #defaults() default} suffixes, {@code 5k} is parsed as {@code 5000}.
+ * Custom suffixes can be added with {@link #with(String, long)}:
+ * <pre><code>
+ * NumberSuffixes suffixes = NumberSuffixes.defaults()
+ *     .with("b", 1_000_000_000L)
+ *     .with("t", 1_000_000_000_000L);
+ * </code></pre>
+ */
+public final class NumberSuffixes {
+    private static final NumberSuffixes NONE = new NumberSuffixes(new char[0][], new long[0]);
+    private static final NumberSuffixes DEFAULTS = NONE
+            .with("k", 1000)
+            .with("kk", 1000000)
+            .with("m", 1000000);
+
+    //lowercase
+    private final char[][] suffixes;
+    private final long[] multipliers;
+
+    private NumberSuffixes(char[][] suffixes, long[] multipliers) {
+        this.suffixes = suffixes;
+        this.multipliers = multipliers;
+    }
+
+    /**
+     * Returns a table with no suffixes.
+     *
+     * @return A table with no suffixes.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static NumberSuffixes none() {
+        return NONE;
+    }
+
+    /**
+     * Returns the default suffixes:
+     * <ul>
+     *     <li>{@code k} multiplies by 1000</li>
+     *     <li>{@code kk} or {@code m} multiply by 1000000</li>
+     * </ul>
+     *
+     * @return The default suffixes.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static NumberSuffixes defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns a copy of this table with the given suffix added, replacing any existing suffix equal to it,
+     * ignoring case.
+     *
+     * @param suffix Suffix to add. May not be empty.
+     * @param multiplier Multiplier applied to numbers followed by the suffix. Must be positive.
+     *
+     * @return A new table containing the suffix.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NumberSuffixes with(@Nonnull String suffix, @Nonnegative long multiplier) {
+        if(suffix.isEmpty()) {
+            throw new IllegalArgumentException("Empty suffix");
+        }
+        if(multiplier < 1) {
+            throw new IllegalArgumentException("Multiplier must be positive");
+        }
+        char[] lower = suffix.toCharArray();
+        for(int i = 0; i < lower.length; i++) {
+            lower[i] = Character.toLowerCase(lower[i]);
+        }
+        for(int i = 0; i < suffixes.length; i++) {
+            if(Arrays.equals(suffixes[i], lower)) {
+                long[] m = multipliers.clone();
+                m[i] = multiplier;
+                return new NumberSuffixes(suffixes, m);
+            }
+        }
+        char[][] s = Arrays.copyOf(suffixes, suffixes.length + 1);
+        long[] m = Arrays.copyOf(multipliers, multipliers.length + 1);
+        s[suffixes.length] = lower;
+        m[multipliers.length] = multiplier;
+        return new NumberSuffixes(s, m);
+    }
+
+    /**
+     * Returns the multiplier of the suffix in the given range, ignoring case.
+     *
+     * @param s String containing the suffix.
+     * @param start Start of the suffix (inclusive).
+     * @param end End of the suffix (exclusive).
+     *
+     * @return The multiplier of the suffix, 1 for an empty range, or 0 if it's unknown.
+     */
+    @Nonnegative
+    @CheckReturnValue
+    public long multiplier(@Nonnull CharSequence s, int start, int end) {
+        if(start == end) return 1;
+        int length = end - start;
+        outer:
+        for(int i = 0; i < suffixes.length; i++) {
+            char[] suffix = suffixes[i];
+            if(suffix.length != length) continue;
+            for(int j = 0; j < length; j++) {
+                if(Character.toLowerCase(s.charAt(start + j)) != suffix[j]) continue outer;
+            }
+            return multipliers[i];
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,247 @@
+package sox.command.argument;
+
+import sox.command.AbstractContext;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Optional;
+
+/**
+ * Memo table for parse results, scoped to a single command dispatch.
+ *
+ * <br>Stores the result and end offset of every parser run, keyed by the identity of the parser and the
+ * offset it started at. When the same parser runs again at the same offset, which happens when an overload
+ * fails partway through and the next one is tried, or inside {@link Parser#firstOf(Parser[]) firstOf},
+ * {@link AbstractContext#many(Parser) many} and {@link AbstractContext#takeUntil(Parser, Parser) takeUntil},
+ * the stored result is returned and the arguments jump straight to the stored end offset.
+ *
+ * <br>{@link IntParser Primitive parsers} have their own entries, storing the raw result, so memoizing
+ * them doesn't box.
+ *
+ * <br>This assumes parsers are deterministic for a given context, as {@link Parser} requires them to be
+ * immutable. Parsers run on {@link Arguments arguments} not sharing the tokens the memo was created for
+ * are never memoized.
+ *
+ * <br>Instances are <b>not</b> thread safe.
+ */
+public final class ParseMemo {
+    private static final Object[] EMPTY = new Object[0];
+    private static final int BOXED = 0;
+    private static final int PRIMITIVE = 1;
+
+    private final Arguments scope;
+    //open addressing, parser identity + start offset and entry kind -> result + end offset
+    private Object[] parsers;
+    private int[] keys;
+    private Object[] results;
+    private long[] primitiveResults;
+    private int[] ends;
+    private int size;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a memo for parsers reading from the given arguments, or any snapshot of them.
+     *
+     * @param scope Arguments being parsed.
+     */
+    public ParseMemo(@Nonnull Arguments scope) {
+        this.scope = scope;
+        this.parsers = EMPTY;
+    }
+
+    /**
+     * Runs the given parser, or returns the stored result if it already ran at the current offset.
+     *
+     * @param parser Parser to run.
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     * @param <T> Type of the object returned by the parser.
+     *
+     * @return The result of the parser.
+     */
+    @Nonnull
+    @CheckReturnValue
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> parse(@Nonnull Parser<T> parser, @Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        if(!scope.sameTokens(arguments)) {
+            return parser.parse(context, arguments);
+        }
+        int key = arguments.getOffset() << 1 | BOXED;
+        int slot = find(parser, key);
+        if(slot >= 0) {
+            arguments.setOffset(ends[slot]);
+            return (Optional<T>)results[slot];
+        }
+        Optional<T> result = parser.parse(context, arguments);
+        slot = put(parser, key, arguments.getOffset());
+        results[slot] = result;
+        return result;
+    }
+
+    /**
+     * Runs the given parser, or returns the stored result if it already ran at the current offset.
+     *
+     * @param parser Parser to run.
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     *
+     * @return The result of the parser, or {@link IntParser#NO_MATCH} if parsing failed.
+     */
+    @CheckReturnValue
+    public long parseInt(@Nonnull IntParser parser, @Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        if(!scope.sameTokens(arguments)) {
+            return parser.parseInt(context, arguments);
+        }
+        int key = arguments.getOffset() << 1 | PRIMITIVE;
+        int slot = find(parser, key);
+        if(slot >= 0) {
+            arguments.setOffset(ends[slot]);
+            return primitiveResults[slot];
+        }
+        long result = parser.parseInt(context, arguments);
+        slot = put(parser, key, arguments.getOffset());
+        primitiveResults[slot] = result;
+        return result;
+    }
+
+    /**
+     * Runs the given parser, or returns the stored result if it already ran at the current offset.
+     *
+     * @param parser Parser to run.
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     *
+     * @return The result of the parser, or {@link LongParser#NO_MATCH} if parsing failed.
+     */
+    @CheckReturnValue
+    public long parseLong(@Nonnull LongParser parser, @Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        if(!scope.sameTokens(arguments)) {
+            return parser.parseLong(context, arguments);
+        }
+        int key = arguments.getOffset() << 1 | PRIMITIVE;
+        int slot = find(parser, key);
+        if(slot >= 0) {
+            arguments.setOffset(ends[slot]);
+            return primitiveResults[slot];
+        }
+        long result = parser.parseLong(context, arguments);
+        slot = put(parser, key, arguments.getOffset());
+        primitiveResults[slot] = result;
+        return result;
+    }
+
+    /**
+     * Runs the given parser, or returns the stored result if it already ran at the current offset.
+     *
+     * @param parser Parser to run.
+     * @param context Context to parse from.
+     * @param arguments Arguments to parse from.
+     *
+     * @return The result of the parser, or {@link DoubleParser#NO_MATCH NaN} if parsing failed.
+     */
+    @CheckReturnValue
+    public double parseDouble(@Nonnull DoubleParser parser, @Nonnull AbstractContext<?> context, @Nonnull Arguments arguments) {
+        if(!scope.sameTokens(arguments)) {
+            return parser.parseDouble(context, arguments);
+        }
+        int key = arguments.getOffset() << 1 | PRIMITIVE;
+        int slot = find(parser, key);
+        if(slot >= 0) {
+            arguments.setOffset(ends[slot]);
+            return Double.longBitsToDouble(primitiveResults[slot]);
+        }
+        double result = parser.parseDouble(context, arguments);
+        slot = put(parser, key, arguments.getOffset());
+        primitiveResults[slot] = Double.doubleToRawLongBits(result);
+        return result;
+    }
+
+    /**
+     * Amount of parser runs answered from the memo.
+     *
+     * @return The amount of hits.
+     */
+    @Nonnegative
+    @CheckReturnValue
+    public int hits() {
+        return hits;
+    }
+
+    /**
+     * Amount of parser runs that actually had to run the parser.
+     *
+     * @return The amount of misses.
+     */
+    @Nonnegative
+    @CheckReturnValue
+    public int misses() {
+        return misses;
+    }
+
+    private int find(Object parser, int key) {
+        if(size != 0) {
+            int mask = parsers.length - 1;
+            for(int i = hash(parser, key) & mask; parsers[i] != null; i = (i + 1) & mask) {
+                if(parsers[i] == parser && keys[i] == key) {
+                    hits++;
+                    return i;
+                }
+            }
+        }
+        misses++;
+        return -1;
+    }
+
+    //returns the slot, for the caller to store the result in
+    private int put(Object parser, int key, int end) {
+        //keep at most half full
+        if((size + 1) * 2 > parsers.length) {
+            resize(Math.max(16, parsers.length * 2));
+        }
+        int mask = parsers.length - 1;
+        int i = hash(parser, key) & mask;
+        //nested runs of the same parser at the same offset may have stored it already
+        while(parsers[i] != null && !(parsers[i] == parser && keys[i] == key)) {
+            i = (i + 1) & mask;
+        }
+        if(parsers[i] == null) size++;
+        parsers[i] = parser;
+        keys[i] = key;
+        ends[i] = end;
+        return i;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldParsers = parsers;
+        int[] oldKeys = keys;
+        Object[] oldResults = results;
+        long[] oldPrimitiveResults = primitiveResults;
+        int[] oldEnds = ends;
+        parsers = new Object[capacity];
+        keys = new int[capacity];
+        results = new Object[capacity];
+        primitiveResults = new long[capacity];
+        ends = new int[capacity];
+        int mask = capacity - 1;
+        for(int j = 0; j < oldParsers.length; j++) {
+            Object parser = oldParsers[j];
+            if(parser == null) continue;
+            int i = hash(parser, oldKeys[j]) & mask;
+            while(parsers[i] != null) {
+                i = (i + 1) & mask;
+            }
+            parsers[i] = parser;
+            keys[i] = oldKeys[j];
+            results[i] = oldResults[j];
+            primitiveResults[i] = oldPrimitiveResults[j];
+            ends[i] = oldEnds[j];
+        }
+    }
+
+    private static int hash(Object parser, int key) {
+        int h = System.identityHashCode(parser) * 31 + key;
+        return h ^ (h >>> 16);
+    }
+}
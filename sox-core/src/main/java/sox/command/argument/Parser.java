@@ -231,8 +231,9 @@ public interface Parser<T> {
     static <T> Parser<T> firstOf(@Nonnull Parser<? extends T>... parsers) {
         return (c, args) -> {
             MarkedBlock block = args.marked();
+            ParseMemo memo = c.parseMemo();
             for(Parser<? extends T> parser : parsers) {
-                Optional<? extends T> optional = parser.parse(c, args);
+                Optional<? extends T> optional = memo == null ? parser.parse(c, args) : memo.parse(parser, c, args);
                 if(!optional.isPresent()) {
                     block.reset();
                     continue;
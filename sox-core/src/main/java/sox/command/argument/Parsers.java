@@ -35,8 +35,12 @@ public class Parsers {
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Integer> strictInt() {
-        return new CatchingParser<>(Integer::valueOf);
+    public static IntParser strictInt() {
+        return (__, args) -> {
+            if(!args.hasNext()) return IntParser.NO_MATCH;
+            int idx = args.nextIndex();
+            return Helper.parseInt(args.source(), args.start(idx), args.end(idx));
+        };
     }
 
     /**
@@ -64,12 +68,36 @@ public class Parsers {
      * </ul>
      * <br>Example: {@code 1.000k} {@literal ->} {@code 1000000}
      *
+     * <br>Numbers that don't fit an int, before or after applying the multiplier, aren't matched.
+     *
      * @return A parser that leniently matches integers.
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Integer> lenientInt() {
-        return new IntegerTypeParser<>((s, m) -> Integer.parseInt(s) * m);
+    public static IntParser lenientInt() {
+        return lenientInt(NumberSuffixes.defaults());
+    }
+
+    /**
+     * Returns a parser that leniently matches integers, with the given suffixes.
+     * <br>This parser will ignore any {@code .} and {@code ,}
+     * characters, and will multiply numbers depending on their suffix.
+     * <br>Numbers that don't fit an int, before or after applying the multiplier, aren't matched.
+     *
+     * @param suffixes Suffixes to accept.
+     *
+     * @return A parser that leniently matches integers.
+     *
+     * @see IntegerTypeParser#parse(CharSequence, int, int, long, NumberSuffixes)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static IntParser lenientInt(@Nonnull NumberSuffixes suffixes) {
+        return (__, args) -> {
+            if(!args.hasNext()) return IntParser.NO_MATCH;
+            int idx = args.nextIndex();
+            return IntegerTypeParser.parse(args.source(), args.start(idx), args.end(idx), Integer.MAX_VALUE, suffixes);
+        };
     }
 
     /**
@@ -85,14 +113,19 @@ public class Parsers {
 
     /**
      * Returns a parser that strictly matches longs.
-     * <br>This parser behaves exactly like {@link Long#valueOf(String)}.
+     * <br>This parser behaves exactly like {@link Long#valueOf(String)}, except
+     * {@link Long#MIN_VALUE} is not matched, as it signals {@link LongParser#NO_MATCH failure}.
      *
      * @return A parser that strictly matches longs.
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Long> strictLong() {
-        return new CatchingParser<>(Long::valueOf);
+    public static LongParser strictLong() {
+        return (__, args) -> {
+            if(!args.hasNext()) return LongParser.NO_MATCH;
+            int idx = args.nextIndex();
+            return Helper.parseLong(args.source(), args.start(idx), args.end(idx));
+        };
     }
 
     /**
@@ -120,23 +153,56 @@ public class Parsers {
      * </ul>
      * <br>Example: {@code 1.000k} {@literal ->} {@code 1000000}
      *
+     * <br>Numbers that don't fit a long, before or after applying the multiplier, aren't matched.
+     *
      * @return A parser that leniently matches longs.
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Long> lenientLong() {
-        return new IntegerTypeParser<>((s, m) -> Long.parseLong(s) * m);
+    public static LongParser lenientLong() {
+        return lenientLong(NumberSuffixes.defaults());
+    }
+
+    /**
+     * Returns a parser that leniently matches longs, with the given suffixes.
+     * <br>This parser will ignore any {@code .} and {@code ,}
+     * characters, and will multiply numbers depending on their suffix.
+     * <br>Numbers that don't fit a long, before or after applying the multiplier, aren't matched.
+     *
+     * @param suffixes Suffixes to accept.
+     *
+     * @return A parser that leniently matches longs.
+     *
+     * @see IntegerTypeParser#parse(CharSequence, int, int, long, NumberSuffixes)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static LongParser lenientLong(@Nonnull NumberSuffixes suffixes) {
+        return (__, args) -> {
+            if(!args.hasNext()) return LongParser.NO_MATCH;
+            int idx = args.nextIndex();
+            return IntegerTypeParser.parse(args.source(), args.start(idx), args.end(idx), Long.MAX_VALUE, suffixes);
+        };
     }
 
     /**
      * Returns a parser that matches doubles.
+     * <br>This parser behaves like {@link Double#valueOf(String)}, except {@code NaN} is not matched,
+     * as it signals {@link DoubleParser#NO_MATCH failure}.
      *
      * @return A parser that matches doubles.
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Double> parseDouble() {
-        return new CatchingParser<>(Double::valueOf);
+    public static DoubleParser parseDouble() {
+        return (__, args) -> {
+            if(!args.hasNext()) return DoubleParser.NO_MATCH;
+            try {
+                return Double.parseDouble(args.next().getValue());
+            } catch(NumberFormatException e) {
+                return DoubleParser.NO_MATCH;
+            }
+        };
     }
 
     /**
@@ -149,10 +215,10 @@ public class Parsers {
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Integer> range(int from, int to) {
+    public static IntParser range(int from, int to) {
         int smaller = Math.min(from, to);
         int larger = Math.max(from, to);
-        return lenientInt().filter(n->n >= smaller && n <= larger);
+        return lenientInt().filterInt(n->n >= smaller && n <= larger);
     }
 
     /**
@@ -165,10 +231,10 @@ public class Parsers {
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Integer> rangeStrict(int from, int to) {
+    public static IntParser rangeStrict(int from, int to) {
         int smaller = Math.min(from, to);
         int larger = Math.max(from, to);
-        return strictInt().filter(n->n >= smaller && n <= larger);
+        return strictInt().filterInt(n->n >= smaller && n <= larger);
     }
 
     /**
@@ -181,10 +247,10 @@ public class Parsers {
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Long> range(long from, long to) {
+    public static LongParser range(long from, long to) {
         long smaller = Math.min(from, to);
         long larger = Math.max(from, to);
-        return lenientLong().filter(n->n >= smaller && n <= larger);
+        return lenientLong().filterLong(n->n >= smaller && n <= larger);
     }
 
     /**
@@ -197,10 +263,10 @@ public class Parsers {
      */
     @Nonnull
     @CheckReturnValue
-    public static Parser<Long> rangeStrict(long from, long to) {
+    public static LongParser rangeStrict(long from, long to) {
         long smaller = Math.min(from, to);
         long larger = Math.max(from, to);
-        return strictLong().filter(n->n >= smaller && n <= larger);
+        return strictLong().filterLong(n->n >= smaller && n <= larger);
     }
 
     /**
@@ -296,11 +362,10 @@ public class Parsers {
     public static Parser<String> remainingContent() {
         return (__, arguments) -> {
             if(!arguments.hasNext()) return Optional.empty();
-            StringJoiner sj = new StringJoiner("");
-            while(arguments.hasNext()) {
-                sj.add(arguments.next().getRawValue());
-            }
-            return Optional.of(sj.toString());
+            int remaining = arguments.remaining();
+            String content = arguments.rawRange(0, remaining);
+            arguments.skip(remaining);
+            return Optional.of(content);
         };
     }
 
@@ -0,0 +1,141 @@
+package sox.command.argument;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+
+/**
+ * Parses discord IDs and mentions in a single pass over their characters, without regular expressions
+ * or exceptions.
+ * <br>The accepted forms are chosen by combining the flags of this class:
+ * <pre><code>
+ * LongParser channelId = Snowflakes.parser(Snowflakes.ID | Snowflakes.CHANNEL_MENTION);
+ * </code></pre>
+ * IDs are made of ASCII digits and must fit a signed long, so {@link LongParser#NO_MATCH} is never a valid ID.
+ */
+public final class Snowflakes {
+    /**
+     * Raw ID, such as {@code 123}.
+     */
+    public static final int ID = 1;
+    /**
+     * User or member mention, such as {@code <@123>} or {@code <@!123>}.
+     */
+    public static final int USER_MENTION = 1 << 1;
+    /**
+     * Channel mention, such as {@code <#123>}.
+     */
+    public static final int CHANNEL_MENTION = 1 << 2;
+    /**
+     * Role mention, such as {@code <@&123>}.
+     */
+    public static final int ROLE_MENTION = 1 << 3;
+    /**
+     * Custom emoji, such as {@code <:name:123>} or {@code <a:name:123>} for animated ones.
+     */
+    public static final int EMOJI = 1 << 4;
+    /**
+     * Any of the forms above.
+     */
+    public static final int ANY = ID | USER_MENTION | CHANNEL_MENTION | ROLE_MENTION | EMOJI;
+
+    private Snowflakes() {}
+
+    /**
+     * Returns a parser that matches the next argument if it's one of the accepted forms.
+     *
+     * @param accepted Accepted forms, combined from the flags of this class.
+     *
+     * @return A parser that matches IDs in the accepted forms.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static LongParser parser(int accepted) {
+        return (__, args) -> {
+            if(!args.hasNext()) return LongParser.NO_MATCH;
+            int idx = args.nextIndex();
+            return parse(args.source(), args.start(idx), args.end(idx), accepted);
+        };
+    }
+
+    /**
+     * Parses the ID in the given string, if it's one of the accepted forms.
+     *
+     * @param s String to parse.
+     * @param accepted Accepted forms, combined from the flags of this class.
+     *
+     * @return The ID, or {@link LongParser#NO_MATCH} if the string isn't one of the accepted forms.
+     */
+    @CheckReturnValue
+    public static long parse(@Nonnull CharSequence s, int accepted) {
+        return parse(s, 0, s.length(), accepted);
+    }
+
+    /**
+     * Parses the ID in a range of the given string, if it's one of the accepted forms.
+     *
+     * @param s String to parse.
+     * @param start Start of the range, inclusive.
+     * @param end End of the range, exclusive.
+     * @param accepted Accepted forms, combined from the flags of this class.
+     *
+     * @return The ID, or {@link LongParser#NO_MATCH} if the range isn't one of the accepted forms.
+     */
+    @CheckReturnValue
+    public static long parse(@Nonnull CharSequence s, int start, int end, int accepted) {
+        int length = end - start;
+        if(length <= 0) return LongParser.NO_MATCH;
+        if(s.charAt(start) != '<') {
+            return (accepted & ID) == 0 ? LongParser.NO_MATCH : digits(s, start, end);
+        }
+        //shortest mention is <#1>
+        if(length < 4 || s.charAt(end - 1) != '>') return LongParser.NO_MATCH;
+        int kind;
+        int idStart;
+        switch(s.charAt(start + 1)) {
+            case '@': {
+                char c = s.charAt(start + 2);
+                if(c == '&') {
+                    kind = ROLE_MENTION;
+                    idStart = start + 3;
+                } else {
+                    kind = USER_MENTION;
+                    idStart = c == '!' ? start + 3 : start + 2;
+                }
+                break;
+            }
+            case '#':
+                kind = CHANNEL_MENTION;
+                idStart = start + 2;
+                break;
+            case 'a':
+            case ':': {
+                kind = EMOJI;
+                int nameStart = s.charAt(start + 1) == 'a' ? start + 3 : start + 2;
+                if(nameStart == start + 3 && s.charAt(start + 2) != ':') return LongParser.NO_MATCH;
+                int i = nameStart;
+                while(i < end - 1 && isEmojiNameChar(s.charAt(i))) i++;
+                if(i == nameStart || i == end - 1 || s.charAt(i) != ':') return LongParser.NO_MATCH;
+                idStart = i + 1;
+                break;
+            }
+            default:
+                return LongParser.NO_MATCH;
+        }
+        return (accepted & kind) == 0 ? LongParser.NO_MATCH : digits(s, idStart, end - 1);
+    }
+
+    private static boolean isEmojiNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static long digits(CharSequence s, int start, int end) {
+        if(start >= end) return LongParser.NO_MATCH;
+        long result = 0;
+        for(int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if(c < '0' || c > '9' || result > (Long.MAX_VALUE - (c - '0')) / 10) return LongParser.NO_MATCH;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
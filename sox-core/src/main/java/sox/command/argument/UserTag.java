@@ -0,0 +1,153 @@
+package sox.command.argument;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An user tag, in the form {@code Name#discriminator}, where the name has 2 to 32 characters and the
+ * discriminator has 4 digits. Parsed without regular expressions.
+ */
+public final class UserTag {
+    //32 name characters + 1 (# character) + 4 discriminator characters
+    private static final int MAX_LENGTH = 37;
+
+    private final String name;
+    private final int discriminator;
+
+    private UserTag(String name, int discriminator) {
+        this.name = name;
+        this.discriminator = discriminator;
+    }
+
+    /**
+     * Name of the user.
+     *
+     * @return The name.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Discriminator of the user, between 0 and 9999.
+     *
+     * @return The discriminator.
+     */
+    @CheckReturnValue
+    public int discriminator() {
+        return discriminator;
+    }
+
+    /**
+     * Parses a tag.
+     *
+     * @param tag String to parse.
+     *
+     * @return The parsed tag, or null if the string isn't a valid tag.
+     */
+    @Nullable
+    @CheckReturnValue
+    public static UserTag parse(@Nonnull String tag) {
+        int discriminator = discriminator(tag);
+        if(discriminator < 0) return null;
+        return new UserTag(tag.substring(0, tag.length() - 5), discriminator);
+    }
+
+    /**
+     * Reads a tag from the next arguments. Names may contain whitespace, so arguments are joined, with their
+     * original whitespace, until they form a valid tag or are too long to be one.
+     * <br>On success, the arguments making up the tag are consumed. Otherwise, only the first argument is.
+     *
+     * @param arguments Arguments to read.
+     *
+     * @return The tag read, or null if the arguments don't start with a valid tag.
+     */
+    @Nullable
+    @CheckReturnValue
+    public static UserTag find(@Nonnull Arguments arguments) {
+        if(!arguments.hasNext()) return null;
+        String search = arguments.next().getValue();
+        MarkedBlock block = arguments.marked();
+        StringBuilder sb = null;
+        while(true) {
+            UserTag tag = parse(search);
+            if(tag != null) return tag;
+            if(search.length() >= MAX_LENGTH || !arguments.hasNext()) {
+                block.reset();
+                return null;
+            }
+            if(sb == null) sb = new StringBuilder(MAX_LENGTH + 8).append(search);
+            search = sb.append(arguments.next().getRawValue()).toString();
+        }
+    }
+
+    /**
+     * Returns the discriminator of a tag, validating it.
+     *
+     * @param tag String to check.
+     *
+     * @return The discriminator, or -1 if the string isn't a valid tag.
+     */
+    @CheckReturnValue
+    public static int discriminator(@Nonnull CharSequence tag) {
+        int length = tag.length();
+        if(length < 7 || tag.charAt(length - 5) != '#') return -1;
+        int discriminator = 0;
+        for(int i = length - 4; i < length; i++) {
+            char c = tag.charAt(i);
+            if(c < '0' || c > '9') return -1;
+            discriminator = discriminator * 10 + (c - '0');
+        }
+        for(int i = 0; i < length - 5; i++) {
+            if(isLineTerminator(tag.charAt(i))) return -1;
+        }
+        //names are limited in code points, not chars
+        int nameLength = Character.codePointCount(tag, 0, length - 5);
+        return nameLength >= 2 && nameLength <= 32 ? discriminator : -1;
+    }
+
+    /**
+     * Parses a discriminator string, as returned by discord.
+     *
+     * @param discriminator Discriminator to parse.
+     *
+     * @return The discriminator, or -1 if it doesn't have exactly 4 digits.
+     */
+    @CheckReturnValue
+    public static int parseDiscriminator(@Nonnull CharSequence discriminator) {
+        if(discriminator.length() != 4) return -1;
+        int value = 0;
+        for(int i = 0; i < 4; i++) {
+            char c = discriminator.charAt(i);
+            if(c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    //characters not matched by '.' in regular expressions
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + discriminator;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) return true;
+        if(!(obj instanceof UserTag)) return false;
+        UserTag other = (UserTag)obj;
+        return discriminator == other.discriminator && name.equals(other.name);
+    }
+
+    @Override
+    public String toString() {
+        return name + '#' + (discriminator < 1000 ? String.format("%04d", discriminator) : String.valueOf(discriminator));
+    }
+}
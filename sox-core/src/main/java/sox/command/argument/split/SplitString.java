@@ -6,16 +6,53 @@ import javax.annotation.Nonnull;
 /**
  * Represents a part of the result of splitting a string.
  * <br>Stores both the value and the previous whitespace, useful to rebuild the original string.
+ * <br>When created from {@link TokenOffsets offsets}, the value and whitespace are only extracted
+ * from the original string when first read.
  */
 public final class SplitString {
-    private final String value;
-    private final String previousWhitespace;
+    private final CharSequence source;
+    private final int whitespaceStart;
+    private final int start;
+    private final int end;
+    private String value;
+    private String previousWhitespace;
 
     SplitString(String value, String previousWhitespace) {
+        this.source = null;
+        this.whitespaceStart = 0;
+        this.start = 0;
+        this.end = 0;
         this.value = value;
         this.previousWhitespace = previousWhitespace;
     }
 
+    private SplitString(CharSequence source, int whitespaceStart, int start, int end) {
+        this.source = source;
+        this.whitespaceStart = whitespaceStart;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a split string backed by a range of the given string. The value and previous
+     * whitespace are only extracted when first read.
+     *
+     * @param source Original string.
+     * @param whitespaceStart Start offset (inclusive) of the previous whitespace.
+     * @param start Start offset (inclusive) of the value, which is also the end of the previous whitespace.
+     * @param end End offset (exclusive) of the value.
+     *
+     * @return A split string backed by the given range.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static SplitString of(@Nonnull CharSequence source, int whitespaceStart, int start, int end) {
+        if(whitespaceStart < 0 || whitespaceStart > start || start > end || end > source.length()) {
+            throw new IndexOutOfBoundsException("Invalid range " + whitespaceStart + ", " + start + ", " + end);
+        }
+        return new SplitString(source, whitespaceStart, start, end);
+    }
+
     /**
      * The value of this string, after splitting the original on whitespaces.
      * <br>Does not contain whitespace.
@@ -25,7 +62,11 @@ public final class SplitString {
     @Nonnull
     @CheckReturnValue
     public String getValue() {
-        return value;
+        String v = value;
+        if(v == null) {
+            value = v = source.subSequence(start, end).toString();
+        }
+        return v;
     }
 
     /**
@@ -36,7 +77,11 @@ public final class SplitString {
     @Nonnull
     @CheckReturnValue
     public String getPreviousWhitespace() {
-        return previousWhitespace;
+        String w = previousWhitespace;
+        if(w == null) {
+            previousWhitespace = w = source.subSequence(whitespaceStart, start).toString();
+        }
+        return w;
     }
 
     /**
@@ -47,17 +92,20 @@ public final class SplitString {
     @Nonnull
     @CheckReturnValue
     public String getRawValue() {
+        if(source != null) {
+            return source.subSequence(whitespaceStart, end).toString();
+        }
         return previousWhitespace + value;
     }
 
     @Override
     public int hashCode() {
-        return value.hashCode();
+        return getValue().hashCode();
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof SplitString && ((SplitString) obj).value.equals(value);
+        return obj instanceof SplitString && ((SplitString) obj).getValue().equals(getValue());
     }
 
     @Override
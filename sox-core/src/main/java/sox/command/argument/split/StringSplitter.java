@@ -4,6 +4,7 @@ import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import java.util.Objects;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -13,14 +14,19 @@ public class StringSplitter {
     private static final Pattern DEFAULT_PATTERN = Pattern.compile("\\s+");
 
     private final Pattern pattern;
+    private final boolean whitespace;
 
     /**
      * Creates a new string splitter with the given pattern.
+     * <br>If the pattern is equivalent to the default {@code \\s+}, a hand written scanner is used
+     * instead of the regex engine.
      *
      * @param pattern Pattern used to split strings.
      */
     public StringSplitter(@Nonnull Pattern pattern) {
         this.pattern = Objects.requireNonNull(pattern, "Pattern may not be null");
+        this.whitespace = pattern == DEFAULT_PATTERN ||
+                (pattern.flags() == 0 && pattern.pattern().equals(DEFAULT_PATTERN.pattern()));
     }
 
     /**
@@ -49,6 +55,19 @@ public class StringSplitter {
         this(DEFAULT_PATTERN);
     }
 
+    /**
+     * Returns whether or not the given character is whitespace according to the
+     * {@code \\s} character class used by the default pattern.
+     *
+     * @param c Character to check.
+     *
+     * @return True if the character is whitespace.
+     */
+    @CheckReturnValue
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
     /**
      * Splits a string, returning an array of {@link SplitString split strings}, which allow
      * getting the previous delimiter on each string.
@@ -60,6 +79,11 @@ public class StringSplitter {
     @Nonnull
     @CheckReturnValue
     public SplitString[] split(@Nonnull String string) {
+        if(whitespace) {
+            TokenOffsets offsets = new TokenOffsets();
+            tokenize(string, 0, offsets);
+            return offsets.toArray();
+        }
         String[] values = pattern.split(string);
         int remove = values.length > 0 && values[0].isEmpty() ? 1 : 0; //1 if first string is empty
         int effectiveLength = values.length - remove;
@@ -74,6 +98,46 @@ public class StringSplitter {
         return strings;
     }
 
+    /**
+     * Finds the tokens of a string, starting at the given offset, storing their boundaries in the
+     * provided buffer. Any previous contents of the buffer are discarded.
+     * <br>Unlike {@link #split(String) split}, no strings are created. Empty tokens are skipped.
+     *
+     * @param string String to tokenize.
+     * @param from Offset to start at.
+     * @param into Buffer to store the token boundaries.
+     *
+     * @return The provided buffer, for chaining calls.
+     */
+    @Nonnull
+    public TokenOffsets tokenize(@Nonnull CharSequence string, @Nonnegative int from, @Nonnull TokenOffsets into) {
+        into.reset(string, from);
+        int length = string.length();
+        if(whitespace) {
+            int i = from;
+            while(true) {
+                while(i < length && isWhitespace(string.charAt(i))) i++;
+                if(i == length) return into;
+                int start = i;
+                while(i < length && !isWhitespace(string.charAt(i))) i++;
+                into.add(start, i);
+            }
+        }
+        Matcher matcher = pattern.matcher(string);
+        matcher.region(from, length);
+        int last = from;
+        while(matcher.find()) {
+            if(matcher.start() > last) {
+                into.add(last, matcher.start());
+            }
+            last = Math.max(last, matcher.end());
+        }
+        if(last < length) {
+            into.add(last, length);
+        }
+        return into;
+    }
+
     /**
      * Splits a string, throwing away all delimiters.
      *
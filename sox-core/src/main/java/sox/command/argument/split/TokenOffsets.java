@@ -0,0 +1,173 @@
+package sox.command.argument.split;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Reusable buffer holding the boundaries of the tokens found by a {@link StringSplitter splitter}.
+ *
+ * <br>Tokens are stored as start/end offsets into the original string, so no substrings are created
+ * until a {@link SplitString split string} is {@link #get(int) requested}, and even then its value and
+ * previous whitespace are only materialized when read.
+ *
+ * <br>Instances are <b>not</b> thread safe. Calling {@link StringSplitter#tokenize(CharSequence, int, TokenOffsets) tokenize}
+ * discards the previous contents, so a buffer may be reused for any number of strings.
+ */
+public final class TokenOffsets {
+    private CharSequence source = "";
+    private int from;
+    private int[] offsets;
+    private int count;
+
+    /**
+     * Creates a new buffer with room for the given amount of tokens. The buffer grows as needed.
+     *
+     * @param initialCapacity Amount of tokens that can be stored before resizing.
+     */
+    public TokenOffsets(@Nonnegative int initialCapacity) {
+        this.offsets = new int[Math.max(initialCapacity, 1) * 2];
+    }
+
+    /**
+     * Creates a new buffer with a default initial capacity.
+     */
+    public TokenOffsets() {
+        this(16);
+    }
+
+    /**
+     * The string the offsets refer to.
+     *
+     * @return The tokenized string.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public CharSequence source() {
+        return source;
+    }
+
+    /**
+     * The offset tokenization started at. Used as the start of the previous whitespace of the first token.
+     *
+     * @return The offset tokenization started at.
+     */
+    @Nonnegative
+    @CheckReturnValue
+    public int from() {
+        return from;
+    }
+
+    /**
+     * Amount of tokens found.
+     *
+     * @return The amount of tokens.
+     */
+    @Nonnegative
+    @CheckReturnValue
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Start offset (inclusive) of the value of the given token.
+     *
+     * @param i Index of the token.
+     *
+     * @return The start offset of the token.
+     */
+    @CheckReturnValue
+    public int start(@Nonnegative int i) {
+        return offsets[checkIndex(i) * 2];
+    }
+
+    /**
+     * End offset (exclusive) of the value of the given token.
+     *
+     * @param i Index of the token.
+     *
+     * @return The end offset of the token.
+     */
+    @CheckReturnValue
+    public int end(@Nonnegative int i) {
+        return offsets[checkIndex(i) * 2 + 1];
+    }
+
+    /**
+     * Start offset (inclusive) of the delimiter preceding the given token.
+     *
+     * @param i Index of the token.
+     *
+     * @return The start offset of the previous whitespace of the token.
+     */
+    @CheckReturnValue
+    public int whitespaceStart(@Nonnegative int i) {
+        return checkIndex(i) == 0 ? from : offsets[i * 2 - 1];
+    }
+
+    /**
+     * Returns the given token as a {@link SplitString split string}, whose value and previous whitespace
+     * are lazily extracted from the source string.
+     *
+     * @param i Index of the token.
+     *
+     * @return The token at the given index.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public SplitString get(@Nonnegative int i) {
+        return SplitString.of(source, whitespaceStart(i), start(i), end(i));
+    }
+
+    /**
+     * Returns all tokens as {@link SplitString split strings}.
+     *
+     * @return All tokens.
+     *
+     * @see #get(int)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public SplitString[] toArray() {
+        SplitString[] array = new SplitString[count];
+        for(int i = 0; i < count; i++) {
+            array[i] = get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Returns a copy of the token boundaries, as consecutive start/end pairs, sized to the amount of tokens.
+     *
+     * @return A copy of the token boundaries.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public int[] toOffsetArray() {
+        return Arrays.copyOf(offsets, count * 2);
+    }
+
+    void reset(CharSequence source, int from) {
+        this.source = source;
+        this.from = from;
+        this.count = 0;
+    }
+
+    void add(int start, int end) {
+        int idx = count * 2;
+        if(idx == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[idx] = start;
+        offsets[idx + 1] = end;
+        count++;
+    }
+
+    private int checkIndex(int i) {
+        if(i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Index " + i + ", count " + count);
+        }
+        return i;
+    }
+}
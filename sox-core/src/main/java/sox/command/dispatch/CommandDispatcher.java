@@ -3,6 +3,9 @@ package sox.command.dispatch;
 import sox.command.AbstractCommand;
 import sox.command.AbstractContext;
 
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Handles dispatching the command to the appropriate method. Calls
  * {@link AbstractCommand#process(AbstractContext)} if no other method
@@ -29,4 +32,37 @@ public interface CommandDispatcher {
      * @param <T> Type of the command implementation.
      */
     <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> void dispatch(T command, C context);
+
+    /**
+     * Calls the provided command with the provided context, like {@link #dispatch(AbstractCommand, AbstractContext) dispatch},
+     * returning the {@link CompletionStage stage} returned by the called method, if any. Handler methods return
+     * a stage when the work they start only completes later, so the command call is considered to be complete
+     * when the stage completes, instead of when the method returns.
+     *
+     * <br>By default, calls {@link #dispatch(AbstractCommand, AbstractContext) dispatch} and returns null.
+     *
+     * @param command Command to run.
+     * @param context Context of the command call.
+     * @param <C> Type of the context implementation.
+     * @param <T> Type of the command implementation.
+     *
+     * @return The stage returned by the called method, or null if it didn't return one.
+     */
+    @Nullable
+    default <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CompletionStage<?> dispatchAsync(T command, C context) {
+        dispatch(command, context);
+        return null;
+    }
+
+    /**
+     * Prepares anything needed for dispatching to the provided command, such as
+     * finding it's handler methods, so the first dispatch doesn't have to.
+     * Does nothing by default.
+     *
+     * May be called concurrently for different commands, while the command is
+     * already being dispatched to.
+     *
+     * @param command Command to prepare.
+     */
+    default void prepare(AbstractCommand<?, ?> command) {}
 }
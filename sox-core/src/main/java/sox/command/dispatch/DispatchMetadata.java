@@ -2,79 +2,282 @@ package sox.command.dispatch;
 
 import sox.command.AbstractCommand;
 import sox.command.AbstractContext;
+import sox.command.argument.DoubleParser;
+import sox.command.argument.IntParser;
+import sox.command.argument.LongParser;
+import sox.command.argument.ParseMemo;
 import sox.command.argument.Parser;
 import sox.inject.Injector;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
+/**
+ * Handler methods of a command, compiled into a decision tree.
+ *
+ * <br>Handlers are sorted by {@link Injector#EXECUTABLE_COMPARATOR priority}, and consecutive handlers
+ * whose leading parameters have the same type and annotations share the nodes for those parameters,
+ * so the parser for a shared parameter runs once per dispatch instead of once per handler. The tree
+ * is walked depth first, which tries the handlers in the exact same order as testing each one in turn.
+ *
+ * <br>Handlers may return a {@link CompletionStage}, which is returned by {@link #dispatch(AbstractCommand, AbstractContext, ParseMemo) dispatch}
+ * so the command call can complete with it. Any other returned value is ignored.
+ *
+ * <br>{@code int}, {@code long} and {@code double} parameters resolved to {@link IntParser primitive parsers}
+ * are parsed and passed to the handler without boxing.
+ */
 class DispatchMetadata {
-    private final Handler[] handlers;
+    //node kind of context parameters, which are never parsed
+    private static final int CONTEXT = -1;
+    //returned by walk when no handler matched
+    private static final Object NO_MATCH = new Object();
 
-    DispatchMetadata(ParserRegistry registry, Class<?> commandClass) {
-        this.handlers = Arrays.stream(commandClass.getDeclaredMethods())
+    private final Node[] roots;
+    private final int depth;
+
+    DispatchMetadata(ParserRegistry registry, Class<?> commandClass, boolean directInvokers) {
+        Method[] methods = sortedHandlers(commandClass);
+        if(methods.length == 0) {
+            throw new IllegalStateException("Command " + commandClass + " has no valid handler methods");
+        }
+        NodeBuilder root = new NodeBuilder(null, CONTEXT, null);
+        for(Method m : methods) {
+            Parser<?>[] parsers = registry.resolve(m);
+            int[] kinds = kinds(m.getParameterTypes(), parsers);
+            root.insert(m, parsers, kinds, directInvokers ? HandlerInvoker.direct(m, kinds) : HandlerInvoker.reflective(m, kinds));
+        }
+        this.roots = root.buildChildren();
+        this.depth = depth(roots);
+    }
+
+    //handler methods declared by the class, in no particular order
+    static Method[] handlers(Class<?> commandClass) {
+        return Arrays.stream(commandClass.getDeclaredMethods())
                 .filter(m -> !m.isBridge() && !m.isSynthetic() && Modifier.isPublic(m.getModifiers()))
                 .filter(m -> m.getAnnotation(DispatchIgnore.class) == null)
                 .filter(m -> m.getName().equals("process"))
-                .sorted(Injector.EXECUTABLE_COMPARATOR)
-                .map(m -> new Handler(m, registry.resolve(m)))
-                .toArray(Handler[]::new);
-        if(this.handlers.length == 0) {
-            throw new IllegalStateException("Command " + commandClass + " has no valid handler methods");
+                .toArray(Method[]::new);
+    }
+
+    //handler methods, in the order they're tried
+    static Method[] sortedHandlers(Class<?> commandClass) {
+        Method[] methods = handlers(commandClass);
+        Arrays.sort(methods, Injector.EXECUTABLE_COMPARATOR);
+        return methods;
+    }
+
+    //returns the stage returned by the handler, if any
+    <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CompletionStage<?> dispatch(T command, C context, ParseMemo memo) {
+        Object result = walk(roots, 0, command, context, memo, true, new HandlerArguments(depth));
+        if(result == NO_MATCH) {
+            command.noMatches(context);
+            return null;
         }
+        return result instanceof CompletionStage ? (CompletionStage<?>)result : null;
     }
 
-    <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> void dispatch(T command, C context) {
-        for(Handler h : handlers) {
-            if(h.handle(command, context.snapshot())) return;
+    //when branching, each node is tried on a new snapshot, so nothing done by the parsers of a failed
+    //handler is visible to the next. nodes with a single child don't need one, as failing there fails the parent
+    private static Object walk(Node[] nodes, int depth, AbstractCommand<?, ?> command, AbstractContext<?> parent,
+                               ParseMemo memo, boolean branch, HandlerArguments values) {
+        for(Node node : nodes) {
+            AbstractContext<?> context = branch ? branch(parent, memo) : parent;
+            if(node.invoker != null) {
+                //context parameters get the context that parsed the arguments of the handler, so they're
+                //only bound here, as the nodes following them may be tried on snapshots
+                for(int i : node.contextParameters) {
+                    values.objects[i] = context;
+                }
+                //the memo is scoped to choosing a handler, not to the handler itself
+                context.setParseMemo(null);
+                return invoke(node.invoker, command, values);
+            }
+            switch(node.kind) {
+                case CONTEXT:
+                    //bound when the handler is called
+                    break;
+                case HandlerArguments.INT: {
+                    long value = context.tryInt((IntParser)node.parser);
+                    if(value == IntParser.NO_MATCH) continue;
+                    values.primitives[depth] = value;
+                    break;
+                }
+                case HandlerArguments.LONG: {
+                    long value = context.tryLong((LongParser)node.parser);
+                    if(value == LongParser.NO_MATCH) continue;
+                    values.primitives[depth] = value;
+                    break;
+                }
+                case HandlerArguments.DOUBLE: {
+                    double value = context.tryDouble((DoubleParser)node.parser);
+                    if(Double.isNaN(value)) continue;
+                    values.primitives[depth] = Double.doubleToRawLongBits(value);
+                    break;
+                }
+                default: {
+                    Optional<?> optional = context.tryArgument(node.parser);
+                    if(!optional.isPresent()) continue;
+                    values.objects[depth] = optional.get();
+                }
+            }
+            Object result = walk(node.children, depth + 1, command, context, memo, node.children.length > 1, values);
+            if(result != NO_MATCH) {
+                return result;
+            }
         }
-        command.noMatches(context);
+        return NO_MATCH;
     }
 
-    private static class Handler {
-        private final Method method;
-        private final Class<?>[] parameterTypes;
-        private final Parser<?>[] parsers;
+    private static AbstractContext<?> branch(AbstractContext<?> context, ParseMemo memo) {
+        AbstractContext<?> snapshot = context.snapshot();
+        snapshot.setParseMemo(memo);
+        return snapshot;
+    }
 
-        private Handler(Method method, Parser<?>[] parsers) {
-            this.method = method;
-            this.parameterTypes = method.getParameterTypes();
-            this.parsers = parsers;
+    //primitive parameters backed by primitive parsers are passed without boxing
+    private static int[] kinds(Class<?>[] types, Parser<?>[] parsers) {
+        int[] kinds = new int[types.length];
+        for(int i = 0; i < kinds.length; i++) {
+            if(types[i] == int.class && parsers[i] instanceof IntParser) {
+                kinds[i] = HandlerArguments.INT;
+            } else if(types[i] == long.class && parsers[i] instanceof LongParser) {
+                kinds[i] = HandlerArguments.LONG;
+            } else if(types[i] == double.class && parsers[i] instanceof DoubleParser) {
+                kinds[i] = HandlerArguments.DOUBLE;
+            } else {
+                kinds[i] = HandlerArguments.OBJECT;
+            }
         }
+        return kinds;
+    }
 
-        boolean handle(AbstractCommand<?, ?> command, AbstractContext<?> context) {
-            Object[] array = new Object[parsers.length];
+    private static int depth(Node[] nodes) {
+        int max = 0;
+        for(Node node : nodes) {
+            if(node.invoker == null) {
+                max = Math.max(max, 1 + depth(node.children));
+            }
+        }
+        return max;
+    }
+
+    private static Object invoke(HandlerInvoker invoker, AbstractCommand<?, ?> command, HandlerArguments arguments) {
+        try {
+            return invoker.invoke(command, arguments);
+        } catch(Throwable t) {
+            DispatchMetadata.<Error>uncheckedThrow(t);
+            throw new AssertionError("should not be reached");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> void uncheckedThrow(Throwable throwable) throws T {
+        throw (T)throwable;
+    }
+
+    //either a parameter, with the nodes that follow it, or a handler, if invoker is not null
+    private static class Node {
+        private final Parser<?> parser;
+        private final int kind;
+        private final Node[] children;
+        private final HandlerInvoker invoker;
+        //indexes of the context parameters of the handler
+        private final int[] contextParameters;
+
+        private Node(Parser<?> parser, int kind, Node[] children, HandlerInvoker invoker, int[] contextParameters) {
+            this.parser = parser;
+            this.kind = kind;
+            this.children = children;
+            this.invoker = invoker;
+            this.contextParameters = contextParameters;
+        }
+    }
+
+    private static class NodeBuilder {
+        private final List<NodeBuilder> children = new ArrayList<>();
+        private final ParameterKey key;
+        private final int kind;
+        private final Parser<?> parser;
+        private HandlerInvoker invoker;
+        private int[] contextParameters;
+
+        private NodeBuilder(ParameterKey key, int kind, Parser<?> parser) {
+            this.key = key;
+            this.kind = kind;
+            this.parser = parser;
+        }
+
+        void insert(Method method, Parser<?>[] parsers, int[] kinds, HandlerInvoker invoker) {
+            Class<?>[] types = method.getParameterTypes();
+            Type[] genericTypes = method.getGenericParameterTypes();
+            Annotation[][] annotations = method.getParameterAnnotations();
+            NodeBuilder node = this;
+            int[] contextParameters = new int[parsers.length];
+            int contextCount = 0;
             for(int i = 0; i < parsers.length; i++) {
-                //allow context to be passed when no arguments are provided
-                //which would cause tryArgument to always return an empty optional,
-                //even if the parser doesn't actually need any (just returns the context)
-                if(AbstractContext.class.isAssignableFrom(parameterTypes[i])) {
-                    array[i] = context;
-                    continue;
+                boolean context = AbstractContext.class.isAssignableFrom(types[i]);
+                if(context) {
+                    contextParameters[contextCount++] = i;
                 }
-                Optional<?> optional = context.tryArgument(parsers[i]);
-                if(!optional.isPresent()) {
-                    return false;
+                ParameterKey key = context ? ParameterKey.CONTEXT : new ParameterKey(genericTypes[i], annotations[i]);
+                //only merge with the last child, merging with earlier ones would change the order handlers are tried in
+                NodeBuilder last = node.children.isEmpty() ? null : node.children.get(node.children.size() - 1);
+                if(last == null || last.invoker != null || !last.key.equals(key)) {
+                    last = context ? new NodeBuilder(key, CONTEXT, null) : new NodeBuilder(key, kinds[i], parsers[i]);
+                    node.children.add(last);
                 }
-                array[i] = optional.get();
+                node = last;
             }
-            try {
-                method.invoke(command, array);
-                return true;
-            } catch(IllegalAccessException e) {
-                throw new AssertionError(e);
-            } catch(InvocationTargetException e) {
-                Handler.<Error>uncheckedThrow(e.getCause());
-                throw new AssertionError("should not be reached");
+            NodeBuilder handler = new NodeBuilder(null, CONTEXT, null);
+            handler.invoker = invoker;
+            handler.contextParameters = Arrays.copyOf(contextParameters, contextCount);
+            node.children.add(handler);
+        }
+
+        Node build() {
+            return invoker != null ? new Node(null, CONTEXT, null, invoker, contextParameters) :
+                    new Node(parser, kind, buildChildren(), null, null);
+        }
+
+        Node[] buildChildren() {
+            Node[] nodes = new Node[children.size()];
+            for(int i = 0; i < nodes.length; i++) {
+                nodes[i] = children.get(i).build();
             }
+            return nodes;
+        }
+    }
+
+    //parsers are resolved from the type and annotations of a parameter, so equal keys mean equivalent parsers
+    private static class ParameterKey {
+        static final ParameterKey CONTEXT = new ParameterKey(null, null);
+
+        private final Type type;
+        private final Annotation[] annotations;
+
+        private ParameterKey(Type type, Annotation[] annotations) {
+            this.type = type;
+            this.annotations = annotations;
+        }
+
+        @Override
+        public int hashCode() {
+            return this == CONTEXT ? 0 : type.hashCode() * 31 + Arrays.hashCode(annotations);
         }
 
-        @SuppressWarnings("unchecked")
-        private static <T extends Throwable> void uncheckedThrow(Throwable throwable) throws T {
-            throw (T)throwable;
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof ParameterKey) || this == CONTEXT || obj == CONTEXT) return false;
+            ParameterKey other = (ParameterKey)obj;
+            return type.equals(other.type) && Arrays.equals(annotations, other.annotations);
         }
     }
 }
@@ -2,17 +2,49 @@ package sox.command.dispatch;
 
 import sox.command.AbstractCommand;
 import sox.command.AbstractContext;
+import sox.command.argument.ParseMemo;
 import sox.util.MapFactory;
 
+import javax.annotation.CheckReturnValue;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Dispatches commands to their {@code process} methods, choosing the first whose arguments
+ * can be parsed from the context.
+ *
+ * <br>By default, handlers are called through {@link java.lang.invoke.MethodHandle method handles}
+ * bound to each method, which unbox primitive arguments and propagate exceptions without wrapping
+ * them. Passing {@code false} as {@code directInvokers} makes handlers be called with
+ * {@link java.lang.reflect.Method#invoke(Object, Object...) reflection} instead.
+ *
+ * <br>Handlers may return a {@link CompletionStage}, which is returned by {@link #dispatchAsync(AbstractCommand, AbstractContext) dispatchAsync}.
+ *
+ * <br>When {@link #setParseMemoization(boolean) parse memoization} is enabled, every dispatch gets its own
+ * {@link ParseMemo memo}, so parsers that already ran at a given offset aren't run again when backtracking
+ * between overloads. Disabled by default.
+ */
 public class DynamicCommandDispatcher implements CommandDispatcher {
     private final Map<Class<?>, DispatchMetadata> metadata;
     private final ParserRegistry registry = new ParserRegistry();
+    private final boolean directInvokers;
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder memoMisses = new LongAdder();
+    private volatile boolean parseMemoization;
 
-    public DynamicCommandDispatcher(MapFactory factory) {
+    public DynamicCommandDispatcher(MapFactory factory, boolean directInvokers) {
         this.metadata = factory.create();
+        this.directInvokers = directInvokers;
+    }
+
+    public DynamicCommandDispatcher(MapFactory factory) {
+        this(factory, true);
+    }
+
+    public DynamicCommandDispatcher(boolean directInvokers) {
+        this(ConcurrentHashMap::new, directInvokers);
     }
 
     public DynamicCommandDispatcher() {
@@ -23,14 +55,88 @@ public class DynamicCommandDispatcher implements CommandDispatcher {
         return registry;
     }
 
+    /**
+     * Enables or disables memoization of parse results during dispatch.
+     *
+     * @param parseMemoization Whether or not parse results should be memoized.
+     */
+    public void setParseMemoization(boolean parseMemoization) {
+        this.parseMemoization = parseMemoization;
+    }
+
+    /**
+     * Whether or not parse results are memoized during dispatch.
+     *
+     * @return True if parse results are memoized.
+     */
+    @CheckReturnValue
+    public boolean isParseMemoization() {
+        return parseMemoization;
+    }
+
+    /**
+     * Total amount of parser runs answered from a memo, across all dispatches.
+     *
+     * @return The amount of memo hits.
+     */
+    @CheckReturnValue
+    public long memoHits() {
+        return memoHits.sum();
+    }
+
+    /**
+     * Total amount of parser runs that weren't found in a memo, across all dispatches.
+     *
+     * @return The amount of memo misses.
+     */
+    @CheckReturnValue
+    public long memoMisses() {
+        return memoMisses.sum();
+    }
+
     @Override
     public void clearCaches() {
         metadata.clear();
     }
 
+    /**
+     * Builds the dispatch metadata of the command, unless it's already cached.
+     *
+     * <br>Requires the map given to the constructor to support concurrent updates, as the default one does,
+     * if called concurrently.
+     *
+     * @param command Command to prepare.
+     */
+    @Override
+    public void prepare(AbstractCommand<?, ?> command) {
+        metadata(command.getClass());
+    }
+
     @Override
     public <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> void dispatch(T command, C context) {
-        metadata.computeIfAbsent(command.getClass(), c -> new DispatchMetadata(registry, c))
-                .dispatch(command, context);
+        dispatchAsync(command, context);
+    }
+
+    @Override
+    public <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CompletionStage<?> dispatchAsync(T command, C context) {
+        DispatchMetadata m = metadata(command.getClass());
+        if(!parseMemoization) {
+            return m.dispatch(command, context, null);
+        }
+        ParseMemo memo = new ParseMemo(context.arguments());
+        try {
+            return m.dispatch(command, context, memo);
+        } finally {
+            recordMemo(memo);
+        }
+    }
+
+    void recordMemo(ParseMemo memo) {
+        memoHits.add(memo.hits());
+        memoMisses.add(memo.misses());
+    }
+
+    private DispatchMetadata metadata(Class<?> commandClass) {
+        return metadata.computeIfAbsent(commandClass, c -> new DispatchMetadata(registry, c, directInvokers));
     }
 }
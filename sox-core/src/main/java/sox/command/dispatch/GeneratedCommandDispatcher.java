@@ -0,0 +1,151 @@
+package sox.command.dispatch;
+
+import sox.command.AbstractCommand;
+import sox.command.AbstractContext;
+import sox.command.argument.ParseMemo;
+import sox.util.MapFactory;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatches commands through the {@link GeneratedDispatch dispatch code} generated for them by the
+ * {@code sox-processor} annotation processor, which calls the parsers and handler methods directly instead
+ * of walking a tree of parsers and calling handlers through method handles.
+ * <br>Commands without generated code, or whose generated code is outdated, are dispatched the same way
+ * as by a {@link DynamicCommandDispatcher dynamic dispatcher}.
+ *
+ * <br>Parsers are resolved from the {@link #registry() registry} and handlers are sorted by the same
+ * {@link sox.inject.Weight rules} as they would be for a dynamic dispatcher, so both choose the same handlers.
+ * <br>Usage:
+ * <pre><code>
+ * Sox sox = new JDASoxBuilder()
+ *     .commandDispatcher(new GeneratedCommandDispatcher())
+ *     .build();
+ * </code></pre>
+ */
+public class GeneratedCommandDispatcher extends DynamicCommandDispatcher {
+    private static final Object MISSING = new Object();
+
+    private final Map<Class<?>, Object> generated;
+
+    public GeneratedCommandDispatcher(MapFactory factory) {
+        super(factory);
+        this.generated = factory.create();
+    }
+
+    public GeneratedCommandDispatcher() {
+        this(ConcurrentHashMap::new);
+    }
+
+    /**
+     * Returns the name of the class generated for the given command class. Nested class names are
+     * joined with {@code _}, in the same package as the command.
+     * <br>Example: {@code my.bot.Music$Play} {@literal ->} {@code my.bot.Music_Play_SoxDispatch}
+     *
+     * @param commandClassName {@link Class#getName() Name} of the command class.
+     *
+     * @return Name of the generated class.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static String generatedClassName(@Nonnull String commandClassName) {
+        int lastDot = commandClassName.lastIndexOf('.');
+        return commandClassName.substring(0, lastDot + 1) +
+                commandClassName.substring(lastDot + 1).replace('$', '_') + "_SoxDispatch";
+    }
+
+    /**
+     * Whether or not the given command class is dispatched through generated code.
+     *
+     * @param commandClass Command class to check.
+     *
+     * @return True if generated code is used for the class.
+     */
+    @CheckReturnValue
+    public boolean isGenerated(@Nonnull Class<?> commandClass) {
+        return generated(commandClass) != null;
+    }
+
+    @Override
+    public void clearCaches() {
+        super.clearCaches();
+        generated.clear();
+    }
+
+    @Override
+    public void prepare(AbstractCommand<?, ?> command) {
+        if(generated(command.getClass()) == null) {
+            super.prepare(command);
+        }
+    }
+
+    @Override
+    public <C extends AbstractContext<C>, T extends AbstractCommand<C, T>> CompletionStage<?> dispatchAsync(T command, C context) {
+        GeneratedDispatch dispatch = generated(command.getClass());
+        if(dispatch == null) {
+            return super.dispatchAsync(command, context);
+        }
+        //the generated code takes it's own snapshots when branching, same as DispatchMetadata
+        C snapshot = context.snapshot();
+        ParseMemo memo = isParseMemoization() ? new ParseMemo(context.arguments()) : null;
+        snapshot.setParseMemo(memo);
+        Object result;
+        try {
+            result = dispatch.dispatch(command, snapshot);
+        } catch(Throwable t) {
+            GeneratedCommandDispatcher.<Error>uncheckedThrow(t);
+            throw new AssertionError("should not be reached");
+        } finally {
+            if(memo != null) {
+                recordMemo(memo);
+            }
+        }
+        if(result == GeneratedDispatch.NO_MATCH) {
+            command.noMatches(context);
+            return null;
+        }
+        return result instanceof CompletionStage ? (CompletionStage<?>)result : null;
+    }
+
+    private GeneratedDispatch generated(Class<?> commandClass) {
+        Object dispatch = generated.get(commandClass);
+        if(dispatch == null) {
+            dispatch = generated.computeIfAbsent(commandClass, this::load);
+        }
+        return dispatch == MISSING ? null : (GeneratedDispatch)dispatch;
+    }
+
+    private Object load(Class<?> commandClass) {
+        Class<?> generatedClass;
+        try {
+            generatedClass = Class.forName(generatedClassName(commandClass.getName()), true, commandClass.getClassLoader());
+        } catch(ClassNotFoundException | LinkageError e) {
+            return MISSING;
+        }
+        if(!GeneratedDispatch.class.isAssignableFrom(generatedClass)) {
+            return MISSING;
+        }
+        GeneratedDispatch dispatch;
+        try {
+            dispatch = (GeneratedDispatch)generatedClass.getConstructor(ParserRegistry.class).newInstance(registry());
+        } catch(ReflectiveOperationException | LinkageError e) {
+            //handlers removed after generating, or parsers that can't be resolved, which the dynamic dispatcher reports
+            return MISSING;
+        }
+        //handlers changed after generating
+        if(!Arrays.equals(dispatch.handlers(), DispatchMetadata.sortedHandlers(commandClass))) {
+            return MISSING;
+        }
+        return dispatch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> void uncheckedThrow(Throwable throwable) throws T {
+        throw (T)throwable;
+    }
+}
@@ -0,0 +1,48 @@
+package sox.command.dispatch;
+
+import sox.command.AbstractCommand;
+import sox.command.AbstractContext;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+
+/**
+ * Dispatch code of a single command class, generated at compile time by the {@code sox-processor}
+ * annotation processor and used by {@link GeneratedCommandDispatcher}.
+ *
+ * <br>Implementations are named after their command class, as returned by
+ * {@link GeneratedCommandDispatcher#generatedClassName(String)}, and have a public constructor taking the
+ * {@link ParserRegistry parser registry} to resolve their parsers from.
+ *
+ * <br>This interface isn't meant to be implemented manually.
+ */
+public interface GeneratedDispatch {
+    /**
+     * Returned by {@link #dispatch(AbstractCommand, AbstractContext) dispatch} when no handler matched.
+     */
+    Object NO_MATCH = new Object();
+
+    /**
+     * Returns the handler methods of the command, in the order they're tried. Used for detecting outdated
+     * classes, whose handlers or their order don't match the ones found at runtime.
+     *
+     * @return The handler methods.
+     */
+    @Nonnull
+    @CheckReturnValue
+    Method[] handlers();
+
+    /**
+     * Parses the arguments of the first matching handler and calls it.
+     *
+     * @param command Command to call. Always an instance of the command class.
+     * @param context Context to parse the arguments from, with the {@link AbstractContext#setParseMemo(sox.command.argument.ParseMemo) memo}
+     *                of the dispatch already set.
+     *
+     * @return The value returned by the called handler, null if it returns void, or {@link #NO_MATCH} if none matched.
+     *
+     * @throws Throwable Any exception thrown by the handler, unwrapped.
+     */
+    Object dispatch(@Nonnull AbstractCommand<?, ?> command, @Nonnull AbstractContext<?> context) throws Throwable;
+}
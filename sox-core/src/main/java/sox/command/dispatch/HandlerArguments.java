@@ -0,0 +1,59 @@
+package sox.command.dispatch;
+
+/**
+ * Parsed arguments of a handler call. Parameters backed by {@link sox.command.argument.IntParser primitive parsers}
+ * are stored in {@link #primitives}, doubles as their raw long bits, so they're never boxed. All others are
+ * stored in {@link #objects}.
+ */
+final class HandlerArguments {
+    static final int OBJECT = 0;
+    static final int INT = 1;
+    static final int LONG = 2;
+    static final int DOUBLE = 3;
+
+    final Object[] objects;
+    final long[] primitives;
+
+    HandlerArguments(int size) {
+        this.objects = new Object[size];
+        this.primitives = new long[size];
+    }
+
+    /**
+     * Boxes the first {@code kinds.length} arguments into an array, for reflective calls.
+     *
+     * @param kinds Kind of each argument.
+     *
+     * @return The arguments, as an array.
+     */
+    Object[] toArray(int[] kinds) {
+        Object[] array = new Object[kinds.length];
+        for(int i = 0; i < kinds.length; i++) {
+            switch(kinds[i]) {
+                case INT: array[i] = intValue(this, i); break;
+                case LONG: array[i] = longValue(this, i); break;
+                case DOUBLE: array[i] = doubleValue(this, i); break;
+                default: array[i] = objectValue(this, i);
+            }
+        }
+        return array;
+    }
+
+    //used by HandlerInvoker.direct as method handle filters
+
+    static Object objectValue(HandlerArguments arguments, int i) {
+        return arguments.objects[i];
+    }
+
+    static int intValue(HandlerArguments arguments, int i) {
+        return (int)arguments.primitives[i];
+    }
+
+    static long longValue(HandlerArguments arguments, int i) {
+        return arguments.primitives[i];
+    }
+
+    static double doubleValue(HandlerArguments arguments, int i) {
+        return Double.longBitsToDouble(arguments.primitives[i]);
+    }
+}
@@ -0,0 +1,115 @@
+package sox.command.dispatch;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Calls a handler method of a command with already parsed arguments.
+ */
+@FunctionalInterface
+interface HandlerInvoker {
+    /**
+     * Calls the handler.
+     *
+     * @param command Command instance to call the handler on.
+     * @param arguments Arguments for the handler, matching it's parameter types.
+     *
+     * @return The value returned by the handler, or null if it returns void.
+     *
+     * @throws Throwable Any exception thrown by the handler, unwrapped.
+     */
+    Object invoke(@Nonnull Object command, @Nonnull HandlerArguments arguments) throws Throwable;
+
+    /**
+     * Creates an invoker for the given method, using a direct {@link MethodHandle method handle}
+     * adapted to read each parameter from the handler arguments. Primitive parameters are read
+     * without boxing when their kind is primitive, or unboxed by the handle itself otherwise,
+     * and exceptions are not wrapped.
+     * <br>Falls back to {@link #reflective(Method, int[]) reflection} if a handle can't be created.
+     *
+     * @param method Handler method.
+     * @param kinds Kind of each parameter, as defined by {@link HandlerArguments}.
+     *
+     * @return An invoker for the method.
+     */
+    @Nonnull
+    static HandlerInvoker direct(@Nonnull Method method, @Nonnull int[] kinds) {
+        MethodHandle handle;
+        try {
+            handle = unreflect(method);
+        } catch(IllegalAccessException | RuntimeException e) {
+            return reflective(method, kinds);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        MethodHandle[] getters = new MethodHandle[parameterTypes.length];
+        for(int i = 0; i < getters.length; i++) {
+            getters[i] = getter(kinds[i], i).asType(MethodType.methodType(parameterTypes[i], HandlerArguments.class));
+        }
+        //(Object, HandlerArguments...)Object -> (Object, HandlerArguments)Object, void handlers return null
+        MethodHandle filtered = MethodHandles.filterArguments(
+                handle.asType(handle.type().changeReturnType(Object.class).changeParameterType(0, Object.class)),
+                1, getters
+        );
+        int[] reorder = new int[getters.length + 1];
+        for(int i = 1; i < reorder.length; i++) {
+            reorder[i] = 1;
+        }
+        MethodHandle bound = MethodHandles.permuteArguments(filtered,
+                MethodType.methodType(Object.class, Object.class, HandlerArguments.class), reorder);
+        return (command, arguments) -> (Object)bound.invokeExact(command, arguments);
+    }
+
+    /**
+     * Creates an invoker for the given method, using {@link Method#invoke(Object, Object...) reflection}.
+     *
+     * @param method Handler method.
+     * @param kinds Kind of each parameter, as defined by {@link HandlerArguments}.
+     *
+     * @return An invoker for the method.
+     */
+    @Nonnull
+    static HandlerInvoker reflective(@Nonnull Method method, @Nonnull int[] kinds) {
+        return (command, arguments) -> {
+            try {
+                return method.invoke(command, arguments.toArray(kinds));
+            } catch(IllegalAccessException e) {
+                throw new AssertionError(e);
+            } catch(InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            return lookup.unreflect(method);
+        } catch(IllegalAccessException e) {
+            //public handlers on non public classes
+            method.setAccessible(true);
+            return lookup.unreflect(method);
+        }
+    }
+
+    static MethodHandle getter(int kind, int index) {
+        String name;
+        Class<?> type;
+        switch(kind) {
+            case HandlerArguments.INT: name = "intValue"; type = int.class; break;
+            case HandlerArguments.LONG: name = "longValue"; type = long.class; break;
+            case HandlerArguments.DOUBLE: name = "doubleValue"; type = double.class; break;
+            default: name = "objectValue"; type = Object.class;
+        }
+        try {
+            MethodHandle getter = MethodHandles.lookup().findStatic(HandlerArguments.class, name,
+                    MethodType.methodType(type, HandlerArguments.class, int.class));
+            return MethodHandles.insertArguments(getter, 1, index);
+        } catch(NoSuchMethodException | IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
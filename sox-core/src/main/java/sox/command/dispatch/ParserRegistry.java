@@ -1,6 +1,9 @@
 package sox.command.dispatch;
 
 import sox.command.AbstractContext;
+import sox.command.argument.IntParser;
+import sox.command.argument.LongParser;
+import sox.command.argument.NumberSuffixes;
 import sox.command.argument.Parser;
 import sox.command.argument.Parsers;
 import sox.command.dispatch.config.AllowedProtocols;
@@ -38,23 +41,31 @@ import java.util.stream.Stream;
 
 public class ParserRegistry {
     private static final Map<TypeWrapper, ParserFactory> DEFAULT_FACTORIES = new HashMap<TypeWrapper, ParserFactory>(){{
+        //lenient parsers use the suffixes of the registry resolving them
+        ParserFactory<Integer> intBase = (registry, __, annotations) ->
+                has(annotations, Lenient.class) ? Parsers.lenientInt(registry.suffixes()) : Parsers.strictInt();
         ParserFactory<Integer> intFactory =
-                ParserFactory.of(Parsers.strictInt())
-                .replaceIfPresent(Lenient.class, Parsers.lenientInt())
-                .mapIfPresent(Range.class, (parser, range) -> {
+                intBase.mapIfPresent(Range.class, (parser, range) -> {
                     long min = Math.min(range.from(), range.to());
                     long max = Math.max(range.from(), range.to());
+                    //keep primitive parsers unboxed
+                    if(parser instanceof IntParser) {
+                        return ((IntParser)parser).filterInt(v -> v >= min && v <= max);
+                    }
                     return parser.filter(v -> v >= min && v <= max);
                 });
         put(wrap(int.class), intFactory);
         put(wrap(Integer.class), intFactory);
 
+        ParserFactory<Long> longBase = (registry, __, annotations) ->
+                has(annotations, Lenient.class) ? Parsers.lenientLong(registry.suffixes()) : Parsers.strictLong();
         ParserFactory<Long> longFactory =
-                ParserFactory.of(Parsers.strictLong())
-                .replaceIfPresent(Lenient.class, Parsers.lenientLong())
-                .mapIfPresent(Range.class, (parser, range) -> {
+                longBase.mapIfPresent(Range.class, (parser, range) -> {
                     long min = Math.min(range.from(), range.to());
                     long max = Math.max(range.from(), range.to());
+                    if(parser instanceof LongParser) {
+                        return ((LongParser)parser).filterLong(v -> v >= min && v <= max);
+                    }
                     return parser.filter(v -> v >= min && v <= max);
                 });
         put(wrap(long.class), longFactory);
@@ -125,6 +136,7 @@ public class ParserRegistry {
 
     private final Map<TypeWrapper, ParserFactory> factories;
     private final List<DynamicParserFactory> dynamicFactories;
+    private NumberSuffixes suffixes = NumberSuffixes.defaults();
 
     public ParserRegistry(MapFactory mapFactory, ListFactory listFactory) {
         this.factories = mapFactory.create();
@@ -137,6 +149,27 @@ public class ParserRegistry {
         this(HashMap::new, ArrayList::new);
     }
 
+    /**
+     * Suffixes accepted by {@link Lenient lenient} int and long parameters.
+     *
+     * @return The accepted suffixes.
+     */
+    public NumberSuffixes suffixes() {
+        return suffixes;
+    }
+
+    /**
+     * Adds a suffix accepted by {@link Lenient lenient} int and long parameters, such as {@code b} for billions.
+     * <br>Only affects parsers resolved afterwards, so it should be called before commands are dispatched
+     * for the first time.
+     *
+     * @param suffix Suffix to accept, case insensitive.
+     * @param multiplier Multiplier applied to numbers followed by the suffix.
+     */
+    public void registerSuffix(String suffix, long multiplier) {
+        suffixes = suffixes.with(suffix, multiplier);
+    }
+
     public <T> void register(Class<T> tClass, Parser<T> parser) {
         factories.put(wrap(tClass), wrap(parser));
     }
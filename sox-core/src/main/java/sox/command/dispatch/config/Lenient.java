@@ -16,6 +16,8 @@ import java.lang.annotation.Target;
  *     <li>{@link Long longs}</li>
  * </ul>
  *
+ * Suffixes are taken from the {@link sox.command.dispatch.ParserRegistry#suffixes() registry}.
+ *
  * @see Parsers#lenientInt()
  * @see Parsers#lenientLong()
  */
@@ -0,0 +1,67 @@
+package sox.command.execution;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs messages on an executor, rejecting them once too many are pending.
+ *
+ * @param <M> Type of the messages.
+ */
+class BoundedDispatchExecutor<M> implements DispatchExecutor<M> {
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Executor executor;
+    //shut down with this executor, if created by it
+    private final ExecutorService owned;
+    private final int maxPending;
+    private final DispatchRejectionHandler<M> rejectionHandler;
+
+    BoundedDispatchExecutor(Executor executor, ExecutorService owned, int maxPending, DispatchRejectionHandler<M> rejectionHandler) {
+        if(maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be positive");
+        }
+        this.executor = executor;
+        this.owned = owned;
+        this.maxPending = maxPending;
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    @Override
+    public void execute(@Nonnull M message, @Nullable Object key, @Nonnull Runnable task) {
+        if(pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejectionHandler.rejected(message, key, task);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch(RejectedExecutionException e) {
+            pending.decrementAndGet();
+            rejectionHandler.rejected(message, key, task);
+        }
+    }
+
+    @CheckReturnValue
+    @Override
+    public int pending() {
+        return pending.get();
+    }
+
+    @Override
+    public void shutdown() {
+        if(owned != null) {
+            owned.shutdown();
+        }
+    }
+}
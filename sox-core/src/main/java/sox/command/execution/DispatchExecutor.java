@@ -0,0 +1,172 @@
+package sox.command.execution;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the thread that processes each received message, from finding it's prefix to calling
+ * the command. Set with {@link sox.SoxBuilder#dispatchExecutor(DispatchExecutor)}.
+ *
+ * <br>Messages are submitted with a key, the guild they were sent in or the channel for direct messages,
+ * which executors may use to order the processing of related messages.
+ * <br>Usage:
+ * <pre><code>
+ * Sox sox = new JDASoxBuilder()
+ *     .dispatchExecutor(DispatchExecutor.serialized(Executors.newFixedThreadPool(8), 16, DispatchRejectionHandler.log()))
+ *     .build();
+ * </code></pre>
+ *
+ * @param <M> Type of the messages.
+ */
+@FunctionalInterface
+public interface DispatchExecutor<M> {
+    /**
+     * Runs, or schedules running, the processing of a message. If the message can't be accepted, it's passed
+     * to the executor's {@link DispatchRejectionHandler rejection handler} instead.
+     *
+     * @param message Message being processed.
+     * @param key Key of the message, or null if it has none.
+     * @param task Processing of the message.
+     */
+    void execute(@Nonnull M message, @Nullable Object key, @Nonnull Runnable task);
+
+    /**
+     * Amount of messages waiting to be processed or being processed. Always zero for executors that
+     * process messages on the submitting thread.
+     *
+     * @return The amount of pending messages.
+     */
+    @CheckReturnValue
+    default int pending() {
+        return 0;
+    }
+
+    /**
+     * Stops any threads created by this executor, after processing the already submitted messages.
+     * Does nothing by default.
+     */
+    default void shutdown() {}
+
+    /**
+     * Returns an executor that processes messages on the thread that received them. This is the default.
+     *
+     * @param <M> Type of the messages.
+     *
+     * @return An executor that processes messages on the calling thread.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchExecutor<M> callerThread() {
+        return (__, ___, task) -> task.run();
+    }
+
+    /**
+     * Returns an executor that processes messages on the given executor, allowing at most {@code maxPending}
+     * messages to be pending at any time.
+     *
+     * @param executor Executor to run the processing of messages on.
+     * @param maxPending Maximum amount of messages waiting or being processed.
+     * @param rejectionHandler Handler for messages submitted when the limit is reached, or rejected by the executor.
+     * @param <M> Type of the messages.
+     *
+     * @return An executor backed by the given executor.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchExecutor<M> fromExecutor(@Nonnull Executor executor, int maxPending,
+                                                @Nonnull DispatchRejectionHandler<M> rejectionHandler) {
+        return new BoundedDispatchExecutor<>(executor, null, maxPending, rejectionHandler);
+    }
+
+    /**
+     * Returns an executor that processes messages on a fixed size pool of daemon threads, allowing at most
+     * {@code maxPending} messages to be pending at any time.
+     *
+     * @param threads Amount of threads.
+     * @param maxPending Maximum amount of messages waiting or being processed.
+     * @param rejectionHandler Handler for messages submitted when the limit is reached.
+     * @param <M> Type of the messages.
+     *
+     * @return An executor backed by a new thread pool, which is stopped by {@link #shutdown()}.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchExecutor<M> boundedPool(int threads, int maxPending, @Nonnull DispatchRejectionHandler<M> rejectionHandler) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "sox-dispatch-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        //pending messages are limited by the dispatch executor, so the queue never grows past maxPending
+        ExecutorService pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        return new BoundedDispatchExecutor<>(pool, pool, maxPending, rejectionHandler);
+    }
+
+    /**
+     * Returns an executor that processes each message on a new virtual thread, allowing at most
+     * {@code maxPending} messages to be pending at any time. Requires Java 21 or newer.
+     *
+     * @param maxPending Maximum amount of messages being processed.
+     * @param rejectionHandler Handler for messages submitted when the limit is reached.
+     * @param <M> Type of the messages.
+     *
+     * @return An executor backed by virtual threads.
+     *
+     * @throws UnsupportedOperationException If virtual threads aren't supported by the running JVM.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchExecutor<M> virtualThreads(int maxPending, @Nonnull DispatchRejectionHandler<M> rejectionHandler) {
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(NoSuchMethodException | IllegalAccessException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer", e);
+        } catch(InvocationTargetException e) {
+            throw new UnsupportedOperationException("Unable to create virtual thread executor", e.getCause());
+        }
+        return new BoundedDispatchExecutor<>(executor, executor, maxPending, rejectionHandler);
+    }
+
+    /**
+     * Returns an executor that processes messages with the same key one at a time, in the order they were
+     * submitted, on the given executor. Messages with different keys are processed concurrently, and messages
+     * without a key aren't ordered.
+     * <br>Keeps a single guild or channel from taking over the executor, and keeps commands from the same guild
+     * from racing each other.
+     *
+     * @param executor Executor to run the processing of messages on.
+     * @param maxPendingPerKey Maximum amount of messages waiting or being processed for a single key.
+     * @param rejectionHandler Handler for messages submitted when the limit is reached, or rejected by the executor.
+     * @param <M> Type of the messages.
+     *
+     * @return An executor that serializes messages by key.
+     *
+     * @apiNote Processing of a message ends when the thread running it returns, even if work for the message
+     *          is still running asynchronously. This includes commands returning a
+     *          {@link java.util.concurrent.CompletionStage CompletionStage} that's still running, and prefix
+     *          providers returning a stage that isn't completed yet, in which case the command is found and
+     *          called once the stage completes, possibly after or concurrently with later messages of the same
+     *          key. Per key ordering is only guaranteed when the prefixes of every message are resolved
+     *          synchronously, for example by static providers or by {@code cached} providers whose
+     *          {@link sox.command.prefix.PrefixCache PrefixCache} already holds the key.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchExecutor<M> serialized(@Nonnull Executor executor, int maxPendingPerKey,
+                                              @Nonnull DispatchRejectionHandler<M> rejectionHandler) {
+        return new SerializedDispatchExecutor<>(executor, maxPendingPerKey, rejectionHandler);
+    }
+}
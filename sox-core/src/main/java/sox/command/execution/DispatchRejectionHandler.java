@@ -0,0 +1,70 @@
+package sox.command.execution;
+
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Called when a {@link DispatchExecutor dispatch executor} refuses to run the processing of a message,
+ * because too many messages are already waiting to be processed.
+ *
+ * @param <M> Type of the messages.
+ */
+@FunctionalInterface
+public interface DispatchRejectionHandler<M> {
+    /**
+     * Called when the processing of a message is rejected.
+     *
+     * @param message Message that was rejected.
+     * @param key Key the message was submitted with.
+     * @param task Processing of the message. Can still be run by the handler.
+     */
+    void rejected(@Nonnull M message, @Nullable Object key, @Nonnull Runnable task);
+
+    /**
+     * Returns a handler that silently drops rejected messages.
+     *
+     * @param <M> Type of the messages.
+     *
+     * @return A handler that drops rejected messages.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchRejectionHandler<M> discard() {
+        return (__, ___, ____) -> {};
+    }
+
+    /**
+     * Returns a handler that drops rejected messages, logging a warning for each of them.
+     *
+     * @param <M> Type of the messages.
+     *
+     * @return A handler that logs and drops rejected messages.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchRejectionHandler<M> log() {
+        return (message, key, __) -> LoggerFactory.getLogger(DispatchExecutor.class)
+                .warn("Dropped message {} (key {}), too many messages waiting to be processed", message, key);
+    }
+
+    /**
+     * Returns a handler that processes rejected messages on the thread that submitted them, slowing down
+     * the submitting thread until the executor catches up.
+     *
+     * @param <M> Type of the messages.
+     *
+     * @return A handler that runs rejected messages on the submitting thread.
+     *
+     * @apiNote Messages processed by this handler are not ordered with the ones waiting in a
+     *          {@link DispatchExecutor#serialized(java.util.concurrent.Executor, int, DispatchRejectionHandler) serialized}
+     *          executor.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static <M> DispatchRejectionHandler<M> callerRuns() {
+        return (__, ___, task) -> task.run();
+    }
+}
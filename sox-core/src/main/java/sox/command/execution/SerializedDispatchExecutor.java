@@ -0,0 +1,165 @@
+package sox.command.execution;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs messages on an executor, one at a time per key. Each key with pending messages has a queue, which
+ * runs a single message each time it's scheduled on the executor, so busy keys don't starve others.
+ * Queues are removed once empty.
+ *
+ * @param <M> Type of the messages.
+ */
+class SerializedDispatchExecutor<M> implements DispatchExecutor<M> {
+    private final Map<Object, KeyQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Executor executor;
+    private final int maxPendingPerKey;
+    private final DispatchRejectionHandler<M> rejectionHandler;
+
+    SerializedDispatchExecutor(Executor executor, int maxPendingPerKey, DispatchRejectionHandler<M> rejectionHandler) {
+        if(maxPendingPerKey < 1) {
+            throw new IllegalArgumentException("maxPendingPerKey must be positive");
+        }
+        this.executor = executor;
+        this.maxPendingPerKey = maxPendingPerKey;
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    @Override
+    public void execute(@Nonnull M message, @Nullable Object key, @Nonnull Runnable task) {
+        if(key == null) {
+            executeUnordered(message, task);
+            return;
+        }
+        KeyQueue queue;
+        boolean start;
+        while(true) {
+            queue = queues.computeIfAbsent(key, KeyQueue::new);
+            synchronized(queue) {
+                //emptied and removed after being looked up
+                if(queue.removed) continue;
+                if(queue.entries.size() >= maxPendingPerKey) {
+                    start = false;
+                    queue = null;
+                } else {
+                    queue.entries.add(new Entry<>(message, task));
+                    pending.incrementAndGet();
+                    start = !queue.running;
+                    queue.running = true;
+                }
+            }
+            break;
+        }
+        if(queue == null) {
+            rejectionHandler.rejected(message, key, task);
+            return;
+        }
+        if(start) {
+            schedule(queue);
+        }
+    }
+
+    @CheckReturnValue
+    @Override
+    public int pending() {
+        return pending.get();
+    }
+
+    private void executeUnordered(M message, Runnable task) {
+        pending.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch(RejectedExecutionException e) {
+            pending.decrementAndGet();
+            rejectionHandler.rejected(message, null, task);
+        }
+    }
+
+    private void schedule(KeyQueue queue) {
+        try {
+            executor.execute(queue);
+        } catch(RejectedExecutionException e) {
+            List<Entry<M>> rejected;
+            synchronized(queue) {
+                rejected = new ArrayList<>(queue.entries);
+                queue.entries.clear();
+                queue.remove();
+            }
+            for(Entry<M> entry : rejected) {
+                pending.decrementAndGet();
+                rejectionHandler.rejected(entry.message, queue.key, entry.task);
+            }
+        }
+    }
+
+    private static class Entry<M> {
+        final M message;
+        final Runnable task;
+
+        Entry(M message, Runnable task) {
+            this.message = message;
+            this.task = task;
+        }
+    }
+
+    private class KeyQueue implements Runnable {
+        //the first entry is the one running, so it counts towards the limit
+        final ArrayDeque<Entry<M>> entries = new ArrayDeque<>();
+        final Object key;
+        boolean running;
+        boolean removed;
+
+        KeyQueue(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            Entry<M> entry;
+            synchronized(this) {
+                entry = entries.peek();
+            }
+            //cleared by a rejected schedule
+            if(entry == null) return;
+            try {
+                entry.task.run();
+            } finally {
+                pending.decrementAndGet();
+                boolean more;
+                synchronized(this) {
+                    entries.poll();
+                    more = !entries.isEmpty();
+                    if(!more) {
+                        remove();
+                    }
+                }
+                if(more) {
+                    schedule(this);
+                }
+            }
+        }
+
+        //must hold the lock
+        void remove() {
+            running = false;
+            removed = true;
+            queues.remove(key, this);
+        }
+    }
+}
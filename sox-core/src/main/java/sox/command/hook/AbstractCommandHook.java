@@ -5,13 +5,39 @@ import sox.command.AbstractContext;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Empty command hook. Does nothing by default.
  *
+ * <br>The {@link #phases() phases} of a hook are the ones whose methods are overridden by it, so
+ * no-op methods are never called.
+ *
  * @param <C> Type of the context implementation.
  */
 public abstract class AbstractCommandHook<C extends AbstractContext<C>, T extends AbstractCommand<C, T>> implements CommandHook<C, T> {
+    private static final ClassValue<Set<HookPhase>> PHASES = new ClassValue<Set<HookPhase>>() {
+        @Override
+        protected Set<HookPhase> computeValue(Class<?> type) {
+            Set<HookPhase> phases = EnumSet.noneOf(HookPhase.class);
+            if(overrides(type, "shouldRunCommand", AbstractContext.class, AbstractCommand.class)) {
+                phases.add(HookPhase.FILTER);
+            }
+            if(overrides(type, "beforeCommand", AbstractContext.class, AbstractCommand.class)) {
+                phases.add(HookPhase.BEFORE);
+            }
+            if(overrides(type, "afterCommand", AbstractContext.class, AbstractCommand.class)) {
+                phases.add(HookPhase.AFTER);
+            }
+            if(overrides(type, "onCommandError", AbstractContext.class, AbstractCommand.class, Exception.class)) {
+                phases.add(HookPhase.ERROR);
+            }
+            return Collections.unmodifiableSet(phases);
+        }
+    };
+
     @CheckReturnValue
     public boolean shouldRunCommand(@Nonnull C context, @Nonnull T command) {
         return true;
@@ -25,4 +51,20 @@ public abstract class AbstractCommandHook<C extends AbstractContext<C>, T extend
     public boolean onCommandError(@Nonnull C context, @Nonnull T command, @Nonnull Exception e) {
         return false;
     }
+
+    @Nonnull
+    @CheckReturnValue
+    @Override
+    public Set<HookPhase> phases() {
+        return PHASES.get(getClass());
+    }
+
+    private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+        //overrides with narrower parameter types also declare a bridge method with the erased ones
+        try {
+            return type.getMethod(name, parameterTypes).getDeclaringClass() != AbstractCommandHook.class;
+        } catch(NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
 }
@@ -5,10 +5,18 @@ import sox.command.AbstractContext;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Hook for command calls. Can do pre-command and post-command tasks, abort command execution and handle errors.
  *
+ * <br>Handler methods may return a {@link java.util.concurrent.CompletionStage CompletionStage}, in which case
+ * {@link #afterCommand(AbstractContext, AbstractCommand) afterCommand} and
+ * {@link #onCommandError(AbstractContext, AbstractCommand, Exception) onCommandError} are called once the
+ * stage completes, on the thread that completes it, instead of when the handler returns. Stages failing with
+ * a throwable that isn't an exception, such as an {@link Error}, aren't passed to the hooks and are logged instead.
+ *
  * @param <C> Type of the context implementation.
  * @param <T> Type of the command implementation.
  *
@@ -57,6 +65,21 @@ public interface CommandHook<C extends AbstractContext<C>, T extends AbstractCom
     @CheckReturnValue
     boolean onCommandError(@Nonnull C context, @Nonnull T command, @Nonnull Exception e);
 
+    /**
+     * Returns the phases this hook takes part in. The hook is only called for the returned phases, so
+     * other methods may be left as no-ops.
+     *
+     * <br>Read once when the hooks are compiled by the {@link sox.command.CommandManager command manager},
+     * so the returned value should not change.
+     *
+     * @return The phases of this hook. Defaults to all of them.
+     */
+    @Nonnull
+    @CheckReturnValue
+    default Set<HookPhase> phases() {
+        return EnumSet.allOf(HookPhase.class);
+    }
+
     /**
      * Creates a hook from an {@link AfterCommand after command} action.
      *
@@ -0,0 +1,26 @@
+package sox.command.hook;
+
+/**
+ * Phases of a command call a {@link CommandHook hook} can take part in. Used to skip hooks in the phases
+ * they don't implement.
+ *
+ * @see CommandHook#phases()
+ */
+public enum HookPhase {
+    /**
+     * {@link CommandHook#shouldRunCommand(sox.command.AbstractContext, sox.command.AbstractCommand) shouldRunCommand}
+     */
+    FILTER,
+    /**
+     * {@link CommandHook#beforeCommand(sox.command.AbstractContext, sox.command.AbstractCommand) beforeCommand}
+     */
+    BEFORE,
+    /**
+     * {@link CommandHook#afterCommand(sox.command.AbstractContext, sox.command.AbstractCommand) afterCommand}
+     */
+    AFTER,
+    /**
+     * {@link CommandHook#onCommandError(sox.command.AbstractContext, sox.command.AbstractCommand, Exception) onCommandError}
+     */
+    ERROR
+}
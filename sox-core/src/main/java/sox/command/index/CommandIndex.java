@@ -0,0 +1,437 @@
+package sox.command.index;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the command classes of a project, generated at compile time by the {@code sox-processor}
+ * annotation processor and stored in the {@value #RESOURCE} resource.
+ *
+ * <br>Every non abstract command class is indexed, along with it's name, {@link sox.command.meta.Alias aliases},
+ * {@link sox.command.meta.Meta meta}, {@link sox.command.meta.Category category} and the parameter types of
+ * it's {@code process} methods. Static nested command classes are indexed as well, allowing the subcommand
+ * tree of a command to be found without reflection.
+ *
+ * <br>Instances are immutable.
+ */
+public final class CommandIndex {
+    /**
+     * Location of the index in the class path.
+     */
+    public static final String RESOURCE = "META-INF/sox/commands.index";
+
+    private static final String HEADER = "#sox command index v1";
+    private static final CommandIndex EMPTY = new CommandIndex(Collections.emptyList());
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, List<Entry>> nested = new LinkedHashMap<>();
+    private final List<Entry> topLevel = new ArrayList<>();
+
+    /**
+     * Creates an index with the given entries. If multiple entries have the same class name, the first one is used.
+     *
+     * @param entries Entries of the index.
+     */
+    public CommandIndex(@Nonnull Collection<Entry> entries) {
+        for(Entry e : entries) {
+            if(this.entries.putIfAbsent(e.className(), e) != null) continue;
+            if(e.enclosingClass() == null) {
+                topLevel.add(e);
+            } else {
+                nested.computeIfAbsent(e.enclosingClass(), __ -> new ArrayList<>()).add(e);
+            }
+        }
+    }
+
+    /**
+     * Returns an index with no entries.
+     *
+     * @return An empty index.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static CommandIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads and merges all indexes visible to the given class loader.
+     *
+     * @param loader Class loader to search.
+     *
+     * @return The merged index, empty if none were found.
+     *
+     * @throws UncheckedIOException If reading an index fails.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static CommandIndex load(@Nonnull ClassLoader loader) {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            Enumeration<URL> urls = loader.getResources(RESOURCE);
+            while(urls.hasMoreElements()) {
+                try(Reader reader = new InputStreamReader(urls.nextElement().openStream(), StandardCharsets.UTF_8)) {
+                    entries.addAll(read(reader).entries());
+                }
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException("Unable to read command index", e);
+        }
+        return entries.isEmpty() ? EMPTY : new CommandIndex(entries);
+    }
+
+    /**
+     * Reads an index previously {@link #write(Writer) written}.
+     *
+     * @param reader Reader to read from. Not closed by this method.
+     *
+     * @return The index read.
+     *
+     * @throws IOException If reading fails or the index is malformed.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static CommandIndex read(@Nonnull Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        String header = in.readLine();
+        if(!HEADER.equals(header)) {
+            throw new IOException("Unknown command index format: " + header);
+        }
+        List<Entry> entries = new ArrayList<>();
+        EntryBuilder current = null;
+        String line;
+        while((line = in.readLine()) != null) {
+            if(line.isEmpty()) continue;
+            String[] fields = line.split("\t", -1);
+            for(int i = 0; i < fields.length; i++) {
+                fields[i] = unescape(fields[i]);
+            }
+            if(fields[0].equals("command")) {
+                if(current != null) entries.add(current.build());
+                if(fields.length != 4) throw malformed(line);
+                current = new EntryBuilder(fields[1], fields[2].isEmpty() ? null : fields[2], fields[3]);
+                continue;
+            }
+            if(current == null) throw malformed(line);
+            switch(fields[0]) {
+                case "category":
+                    if(fields.length != 2) throw malformed(line);
+                    current.category = fields[1];
+                    break;
+                case "alias":
+                    if(fields.length != 2) throw malformed(line);
+                    current.aliases.add(fields[1]);
+                    break;
+                case "meta":
+                    if(fields.length != 3) throw malformed(line);
+                    current.meta.put(fields[1], fields[2]);
+                    break;
+                case "handler":
+                    List<String> parameters = new ArrayList<>(fields.length - 1);
+                    for(int i = 1; i < fields.length; i++) {
+                        parameters.add(fields[i]);
+                    }
+                    current.handlers.add(Collections.unmodifiableList(parameters));
+                    break;
+                default:
+                    throw malformed(line);
+            }
+        }
+        if(current != null) entries.add(current.build());
+        return new CommandIndex(entries);
+    }
+
+    /**
+     * Writes this index in the format expected by {@link #read(Reader)}.
+     *
+     * @param writer Writer to write to. Not closed by this method.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void write(@Nonnull Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+        for(Entry e : entries.values()) {
+            line(writer, "command", e.className(), e.enclosingClass() == null ? "" : e.enclosingClass(), e.name());
+            if(e.category() != null) {
+                line(writer, "category", e.category());
+            }
+            for(String alias : e.aliases()) {
+                line(writer, "alias", alias);
+            }
+            for(Map.Entry<String, String> m : e.meta().entrySet()) {
+                line(writer, "meta", m.getKey(), m.getValue());
+            }
+            for(List<String> handler : e.handlers()) {
+                List<String> fields = new ArrayList<>(handler.size() + 1);
+                fields.add("handler");
+                fields.addAll(handler);
+                line(writer, fields.toArray(new String[0]));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Whether or not this index has no entries.
+     *
+     * @return True if this index is empty.
+     */
+    @CheckReturnValue
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns all entries of this index, in the order they were added.
+     *
+     * @return All entries.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Returns the entry of the given class, or null if it's not indexed.
+     *
+     * @param className {@link Class#getName() Name} of the command class.
+     *
+     * @return The entry for the class, or null.
+     */
+    @Nullable
+    @CheckReturnValue
+    public Entry get(@Nonnull String className) {
+        return entries.get(className);
+    }
+
+    /**
+     * Returns the entries of all top level command classes.
+     *
+     * @return The top level entries.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public List<Entry> topLevel() {
+        return Collections.unmodifiableList(topLevel);
+    }
+
+    /**
+     * Returns the entries of all command classes nested directly inside the given class. If the given class is a
+     * command, these are it's subcommands.
+     *
+     * @param className {@link Class#getName() Name} of the enclosing class.
+     *
+     * @return The nested entries.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public List<Entry> nested(@Nonnull String className) {
+        List<Entry> list = nested.get(className);
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public String toString() {
+        return "CommandIndex(" + entries.size() + " commands)";
+    }
+
+    private static void line(Writer writer, String... fields) throws IOException {
+        for(int i = 0; i < fields.length; i++) {
+            if(i != 0) writer.write('\t');
+            writer.write(escape(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = null;
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String replacement;
+            switch(c) {
+                case '\\': replacement = "\\\\"; break;
+                case '\t': replacement = "\\t"; break;
+                case '\n': replacement = "\\n"; break;
+                case '\r': replacement = "\\r"; break;
+                default: replacement = null;
+            }
+            if(replacement == null) {
+                if(sb != null) sb.append(c);
+                continue;
+            }
+            if(sb == null) sb = new StringBuilder(s.length() + 8).append(s, 0, i);
+            sb.append(replacement);
+        }
+        return sb == null ? s : sb.toString();
+    }
+
+    private static String unescape(String s) throws IOException {
+        if(s.indexOf('\\') == -1) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if(c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if(++i == s.length()) throw new IOException("Unterminated escape in " + s);
+            switch(s.charAt(i)) {
+                case '\\': sb.append('\\'); break;
+                case 't': sb.append('\t'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                default: throw new IOException("Invalid escape in " + s);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static IOException malformed(String line) {
+        return new IOException("Malformed command index line: " + line);
+    }
+
+    private static class EntryBuilder {
+        final String className;
+        final String enclosingClass;
+        final String name;
+        final List<String> aliases = new ArrayList<>();
+        final Map<String, String> meta = new LinkedHashMap<>();
+        final List<List<String>> handlers = new ArrayList<>();
+        String category;
+
+        EntryBuilder(String className, String enclosingClass, String name) {
+            this.className = className;
+            this.enclosingClass = enclosingClass;
+            this.name = name;
+        }
+
+        Entry build() {
+            return new Entry(className, enclosingClass, name, category, aliases, meta, handlers);
+        }
+    }
+
+    /**
+     * Indexed data of a command class.
+     */
+    public static final class Entry {
+        private final String className;
+        private final String enclosingClass;
+        private final String name;
+        private final String category;
+        private final List<String> aliases;
+        private final Map<String, String> meta;
+        private final List<List<String>> handlers;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param className {@link Class#getName() Name} of the command class.
+         * @param enclosingClass Name of the class the command is nested in, or null if it's a top level class.
+         * @param name Name of the command, as returned by {@link sox.command.AbstractCommand#name()}.
+         * @param category Category of the command, or null.
+         * @param aliases Aliases of the command.
+         * @param meta Meta of the command.
+         * @param handlers Parameter types of the {@code process} methods, in declaration order.
+         *                 Types are named as returned by {@link Class#getName()}.
+         */
+        public Entry(@Nonnull String className, @Nullable String enclosingClass, @Nonnull String name,
+                     @Nullable String category, @Nonnull List<String> aliases, @Nonnull Map<String, String> meta,
+                     @Nonnull List<List<String>> handlers) {
+            this.className = className;
+            this.enclosingClass = enclosingClass;
+            this.name = name;
+            this.category = category;
+            this.aliases = Collections.unmodifiableList(new ArrayList<>(aliases));
+            this.meta = Collections.unmodifiableMap(new LinkedHashMap<>(meta));
+            List<List<String>> h = new ArrayList<>(handlers.size());
+            for(List<String> parameters : handlers) {
+                h.add(Collections.unmodifiableList(new ArrayList<>(parameters)));
+            }
+            this.handlers = Collections.unmodifiableList(h);
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        public String className() {
+            return className;
+        }
+
+        @Nullable
+        @CheckReturnValue
+        public String enclosingClass() {
+            return enclosingClass;
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        public String name() {
+            return name;
+        }
+
+        @Nullable
+        @CheckReturnValue
+        public String category() {
+            return category;
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        public List<String> aliases() {
+            return aliases;
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        public Map<String, String> meta() {
+            return meta;
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        public List<List<String>> handlers() {
+            return handlers;
+        }
+
+        /**
+         * Loads the indexed class, without initializing it.
+         *
+         * @param loader Class loader to load the class with.
+         *
+         * @return The command class.
+         *
+         * @throws IllegalStateException If the class can't be found, such as when the index is outdated.
+         */
+        @Nonnull
+        @CheckReturnValue
+        public Class<?> load(@Nonnull ClassLoader loader) {
+            try {
+                return Class.forName(className, false, loader);
+            } catch(ClassNotFoundException e) {
+                throw new IllegalStateException("Indexed command class " + className + " not found", e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "CommandIndex.Entry(" + className + ")";
+        }
+    }
+}
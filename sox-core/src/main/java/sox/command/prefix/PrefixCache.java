@@ -0,0 +1,346 @@
+package sox.command.prefix;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Size bounded cache of prefixes, keyed by guild or channel ID. Used by the {@code cached} prefix providers
+ * of each discord library module.
+ * <br>Usage:
+ * <pre><code>
+ * PrefixCache cache = new PrefixCache(10000, 10, TimeUnit.MINUTES);
+ * Sox sox = new JDASoxBuilder()
+ *     .prefixes(PrefixProvider.cached(PrefixProvider.fromService(PrefixService.class, PrefixService::prefixes), cache))
+ *     .build();
+ * //when a guild changes it's prefix
+ * cache.invalidate(guildId);
+ * </code></pre>
+ *
+ * <br>Concurrent lookups of a missing key share a single load, and loads that fail aren't cached. Entries
+ * expire a fixed time after being loaded, and the least recently used entries are evicted once the cache
+ * is full. Keys are split between independently locked segments, each evicting on it's own, so the cache
+ * may evict slightly before reaching the maximum size.
+ */
+public class PrefixCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize Maximum amount of keys cached.
+     * @param ttl Time entries stay cached after being loaded, or 0 to never expire them.
+     * @param unit Unit of the time to live.
+     */
+    public PrefixCache(int maximumSize, long ttl, @Nonnull TimeUnit unit) {
+        if(maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if(ttl < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        int segmentCount = Math.min(SEGMENTS, Integer.highestOneBit(maximumSize));
+        this.segments = new Segment[segmentCount];
+        for(int i = 0; i < segmentCount; i++) {
+            //spread the remainder over the first segments
+            segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns the cached prefixes for a key, loading them if they're missing or expired.
+     *
+     * @param key Guild or channel ID.
+     * @param loader Loads the prefixes of a key.
+     *
+     * @return The prefixes, possibly still being loaded.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public CompletionStage<List<String>> get(long key, @Nonnull LongFunction<CompletionStage<List<String>>> loader) {
+        long hash = hash(key);
+        Segment segment = segments[(int)(hash >>> 60) & (segments.length - 1)];
+        Entry entry;
+        synchronized(segment) {
+            entry = segment.find(key, hash);
+            if(entry != null) {
+                if(!entry.loaded || ttlNanos == 0 || System.nanoTime() - entry.expiresAt < 0) {
+                    segment.touch(entry);
+                    hits.increment();
+                    return entry.future;
+                }
+                segment.remove(entry);
+            }
+            misses.increment();
+            entry = new Entry(key, hash);
+            if(segment.add(entry)) {
+                evictions.increment();
+            }
+        }
+        load(segment, entry, loader);
+        return entry.future;
+    }
+
+    /**
+     * Removes the prefixes of a key, so they're loaded again when next needed.
+     *
+     * @param key Guild or channel ID.
+     */
+    public void invalidate(long key) {
+        long hash = hash(key);
+        Segment segment = segments[(int)(hash >>> 60) & (segments.length - 1)];
+        synchronized(segment) {
+            Entry entry = segment.find(key, hash);
+            if(entry != null) {
+                segment.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached prefixes.
+     */
+    public void invalidateAll() {
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Amount of keys cached, including ones being loaded.
+     *
+     * @return The amount of keys cached.
+     */
+    @CheckReturnValue
+    public int size() {
+        int size = 0;
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Amount of lookups answered from the cache, including lookups that joined a load in progress.
+     *
+     * @return The amount of hits.
+     */
+    @CheckReturnValue
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Amount of lookups that had to load the prefixes.
+     *
+     * @return The amount of misses.
+     */
+    @CheckReturnValue
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Amount of entries evicted because the cache was full.
+     *
+     * @return The amount of evictions.
+     */
+    @CheckReturnValue
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Ratio of lookups answered from the cache.
+     *
+     * @return The hit rate, between 0 and 1, or 1 if there were no lookups.
+     */
+    @CheckReturnValue
+    public double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 1 : (double)hits / total;
+    }
+
+    private void load(Segment segment, Entry entry, LongFunction<CompletionStage<List<String>>> loader) {
+        CompletionStage<List<String>> stage;
+        try {
+            stage = loader.apply(entry.key);
+        } catch(RuntimeException | Error e) {
+            fail(segment, entry, e);
+            return;
+        }
+        if(stage == null) {
+            fail(segment, entry, new NullPointerException("Prefix loader returned null for key " + entry.key));
+            return;
+        }
+        stage.whenComplete((prefixes, error) -> {
+            if(error != null) {
+                fail(segment, entry, error);
+                return;
+            }
+            synchronized(segment) {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+                entry.loaded = true;
+            }
+            entry.future.complete(prefixes);
+        });
+    }
+
+    private static void fail(Segment segment, Entry entry, Throwable error) {
+        synchronized(segment) {
+            //might have been invalidated or evicted already
+            if(segment.find(entry.key, entry.hash) == entry) {
+                segment.remove(entry);
+            }
+        }
+        entry.future.completeExceptionally(error);
+    }
+
+    //snowflakes share their high bits, so they're mixed before choosing the segment and bucket
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static class Entry {
+        final CompletableFuture<List<String>> future = new CompletableFuture<>();
+        final long key;
+        final long hash;
+        //guarded by the segment
+        boolean loaded;
+        long expiresAt;
+        Entry nextInBucket;
+        Entry previous;
+        Entry next;
+
+        Entry(long key, long hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    //hash table of entries, linked from least to most recently used
+    private static class Segment {
+        private static final int INITIAL_BUCKETS = 16;
+        private static final int MAXIMUM_BUCKETS = 1 << 30;
+
+        private final int capacity;
+        private Entry[] buckets = new Entry[INITIAL_BUCKETS];
+        private Entry head;
+        private Entry tail;
+        private int size;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        Entry find(long key, long hash) {
+            for(Entry e = buckets[bucket(hash)]; e != null; e = e.nextInBucket) {
+                if(e.key == key) return e;
+            }
+            return null;
+        }
+
+        //returns true if an entry was evicted to make room
+        boolean add(Entry entry) {
+            int bucket = bucket(entry.hash);
+            entry.nextInBucket = buckets[bucket];
+            buckets[bucket] = entry;
+            link(entry);
+            if(++size > capacity) {
+                remove(head);
+                return true;
+            }
+            //grown with the entries instead of sized for the capacity, which may never be reached
+            if(size > buckets.length - (buckets.length >>> 2) && buckets.length < MAXIMUM_BUCKETS) {
+                resize(buckets.length * 2);
+            }
+            return false;
+        }
+
+        void touch(Entry entry) {
+            if(tail == entry) return;
+            unlink(entry);
+            link(entry);
+        }
+
+        void remove(Entry entry) {
+            int bucket = bucket(entry.hash);
+            Entry previous = null;
+            for(Entry e = buckets[bucket]; e != null; previous = e, e = e.nextInBucket) {
+                if(e == entry) {
+                    if(previous == null) {
+                        buckets[bucket] = e.nextInBucket;
+                    } else {
+                        previous.nextInBucket = e.nextInBucket;
+                    }
+                    break;
+                }
+            }
+            entry.nextInBucket = null;
+            unlink(entry);
+            size--;
+        }
+
+        void clear() {
+            buckets = new Entry[INITIAL_BUCKETS];
+            head = tail = null;
+            size = 0;
+        }
+
+        private int bucket(long hash) {
+            return (int)(hash >>> 32) & (buckets.length - 1);
+        }
+
+        private void resize(int length) {
+            buckets = new Entry[length];
+            for(Entry e = head; e != null; e = e.next) {
+                int bucket = bucket(e.hash);
+                e.nextInBucket = buckets[bucket];
+                buckets[bucket] = e;
+            }
+        }
+
+        private void link(Entry entry) {
+            entry.previous = tail;
+            entry.next = null;
+            if(tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+        }
+
+        private void unlink(Entry entry) {
+            if(entry.previous == null) {
+                head = entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if(entry.next == null) {
+                tail = entry.previous;
+            } else {
+                entry.next.previous = entry.previous;
+            }
+            entry.previous = null;
+            entry.next = null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package sox.command.prefix;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, case sensitive character trie matching a set of prefixes against the start of a message,
+ * in a single pass over it.
+ *
+ * <br>When more than one prefix matches, the one that comes first in the list given to {@link #of(List) of}
+ * wins, same as testing each prefix in order with {@link String#startsWith(String) startsWith}.
+ * Most messages aren't commands, and are rejected by the first character.
+ */
+public final class PrefixMatcher {
+    private static final PrefixMatcher EMPTY = new PrefixMatcher(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PrefixMatcher(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Creates a matcher for the given prefixes. Null prefixes are ignored, an empty prefix matches everything.
+     *
+     * @param prefixes Prefixes to match, in order of priority.
+     *
+     * @return A matcher for the prefixes.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static PrefixMatcher of(@Nonnull List<String> prefixes) {
+        NodeBuilder root = new NodeBuilder();
+        int size = 0;
+        for(int i = 0; i < prefixes.size(); i++) {
+            String prefix = prefixes.get(i);
+            if(prefix == null) continue;
+            NodeBuilder node = root;
+            for(int j = 0; j < prefix.length(); j++) {
+                node = node.children.computeIfAbsent(prefix.charAt(j), __ -> new NodeBuilder());
+            }
+            //duplicates keep their first position
+            if(node.rank < 0) {
+                node.rank = i;
+                size++;
+            }
+        }
+        return size == 0 ? EMPTY : new PrefixMatcher(root.build(), size);
+    }
+
+    /**
+     * Returns a matcher that matches nothing.
+     *
+     * @return An empty matcher.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public static PrefixMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Amount of distinct prefixes matched.
+     *
+     * @return The amount of prefixes.
+     */
+    @CheckReturnValue
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the prefix the given content starts with.
+     *
+     * @param content Content to match.
+     *
+     * @return Length of the matched prefix, or -1 if the content doesn't start with any of the prefixes.
+     */
+    @CheckReturnValue
+    public int match(@Nonnull String content) {
+        Node node = root;
+        if(node == null) return -1;
+        int length = content.length();
+        int bestRank = node.rank < 0 ? Integer.MAX_VALUE : node.rank;
+        int bestLength = node.rank < 0 ? -1 : 0;
+        if(node.minRank >= bestRank) return bestLength;
+        for(int i = 0; i < length; i++) {
+            node = node.child(content.charAt(i));
+            if(node == null) break;
+            if(node.rank >= 0 && node.rank < bestRank) {
+                bestRank = node.rank;
+                bestLength = i + 1;
+            }
+            //no longer prefix can have a better rank
+            if(node.minRank >= bestRank) break;
+        }
+        return bestLength;
+    }
+
+    private static final class Node {
+        //sorted
+        private final char[] keys;
+        private final Node[] children;
+        //position of the prefix ending here, or -1
+        private final int rank;
+        //lowest rank of any prefix ending below this node
+        private final int minRank;
+
+        private Node(char[] keys, Node[] children, int rank, int minRank) {
+            this.keys = keys;
+            this.children = children;
+            this.rank = rank;
+            this.minRank = minRank;
+        }
+
+        Node child(char c) {
+            char[] keys = this.keys;
+            //small nodes are faster to scan
+            if(keys.length <= 4) {
+                for(int i = 0; i < keys.length; i++) {
+                    if(keys[i] == c) return children[i];
+                }
+                return null;
+            }
+            int low = 0;
+            int high = keys.length - 1;
+            while(low <= high) {
+                int mid = (low + high) >>> 1;
+                char k = keys[mid];
+                if(k < c) {
+                    low = mid + 1;
+                } else if(k > c) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class NodeBuilder {
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+        private int rank = -1;
+
+        Node build() {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int minRank = Integer.MAX_VALUE;
+            int i = 0;
+            for(Map.Entry<Character, NodeBuilder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build();
+                minRank = Math.min(minRank, Math.min(nodes[i].minRank, nodes[i].rank < 0 ? Integer.MAX_VALUE : nodes[i].rank));
+                i++;
+            }
+            return new Node(keys, nodes, rank, minRank);
+        }
+    }
+}
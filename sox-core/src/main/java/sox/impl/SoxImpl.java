@@ -5,7 +5,9 @@ import sox.command.AbstractCommand;
 import sox.command.AbstractContext;
 import sox.command.CommandManager;
 import sox.command.dispatch.CommandDispatcher;
+import sox.command.execution.DispatchExecutor;
 import sox.inject.Injector;
+import sox.service.ScopedServices;
 import sox.service.ServiceManager;
 
 import javax.annotation.Nonnull;
@@ -15,6 +17,7 @@ import java.util.function.Consumer;
 public abstract class SoxImpl<M, C extends AbstractContext<C>, T extends AbstractCommand<C, T>> implements Sox, Consumer<M> {
     protected final AtomicReference<CommandManager<M, C, T>> commandManagerReference = new AtomicReference<>();
     protected final AtomicReference<CommandDispatcher> commandDispatcherReference = new AtomicReference<>();
+    protected final AtomicReference<DispatchExecutor<M>> dispatchExecutorReference = new AtomicReference<>();
     protected final ServiceManager serviceManager;
     protected final Injector injector;
 
@@ -23,6 +26,7 @@ public abstract class SoxImpl<M, C extends AbstractContext<C>, T extends Abstrac
         this.injector = new Injector(serviceManager);
         serviceManager.registerService(serviceManager);
         serviceManager.registerService(injector);
+        serviceManager.registerService(new ScopedServices());
         serviceManager.registerService(this);
     }
 
@@ -39,6 +43,29 @@ public abstract class SoxImpl<M, C extends AbstractContext<C>, T extends Abstrac
         }
     }
 
+    public void registerDispatchExecutor(DispatchExecutor<M> executor) {
+        if(!dispatchExecutorReference.compareAndSet(null, executor)) {
+            throw new IllegalStateException("Dispatch executor already set!");
+        }
+    }
+
+    /**
+     * Runs the processing of a message with the {@link #registerDispatchExecutor(DispatchExecutor) registered}
+     * dispatch executor, or on the calling thread if none was registered.
+     *
+     * @param message Message being processed.
+     * @param key Key of the message, usually the guild it was sent in, or null if it has none.
+     * @param task Processing of the message.
+     */
+    protected void execute(M message, Object key, Runnable task) {
+        DispatchExecutor<M> executor = dispatchExecutorReference.get();
+        if(executor == null) {
+            task.run();
+        } else {
+            executor.execute(message, key, task);
+        }
+    }
+
     public void withCommandManager(Consumer<CommandManager<M, C, T>> action) {
         CommandManager<M, C, T> manager = commandManagerReference.get();
         if(manager != null) {
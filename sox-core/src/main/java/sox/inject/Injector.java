@@ -4,7 +4,10 @@ import sox.service.ServiceManager;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.InvocationTargetException;
@@ -13,14 +16,26 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Instantiates classes by finding a suitable constructor. Arguments are searched
  * for in a {@link ServiceManager service manager}.
+ *
+ * <br>The constructors of each class are sorted and unreflected once, and shared by all injectors. The
+ * arguments found for them are {@link ServiceManager#resolve(Object, Function) cached by the
+ * service manager} until it's services change.
  */
 public class Injector {
     public static final Comparator<Executable> EXECUTABLE_COMPARATOR = new ExecutableComparator();
 
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<InjectionPlan>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return InjectionPlan.create(type);
+        }
+    };
+
     private final ServiceManager serviceManager;
 
     public Injector(ServiceManager serviceManager) {
@@ -41,70 +56,61 @@ public class Injector {
     @Nonnull
     @CheckReturnValue
     public <T> T instantiate(@Nonnull Class<T> targetClass) {
+        InjectionPlan plan = PLANS.get(targetClass);
+        if(plan.error != null) {
+            throw new IllegalArgumentException(plan.error);
+        }
+        Object[][] arguments = plan.arguments(serviceManager);
+        for(int i = 0; i < plan.constructors.length; i++) {
+            if(arguments[i] == null) continue;
+            Object instance = plan.constructors[i].newInstance(arguments[i]);
+            if(instance != null) {
+                return (T)instance;
+            }
+        }
+        throw new IllegalArgumentException("Unable to find suitable constructor");
+    }
+
+    @Nullable
+    private static String validate(@Nonnull Class<?> targetClass) {
         if(targetClass.isPrimitive()) {
-            throw new IllegalArgumentException("Cannot instantiate primitive classes");
+            return "Cannot instantiate primitive classes";
         }
         if(targetClass.isEnum()) {
-            throw new IllegalArgumentException("Cannot instantiate enums");
+            return "Cannot instantiate enums";
         }
         if(targetClass.isArray()) {
-            throw new IllegalArgumentException("Cannot instantiate arrays");
+            return "Cannot instantiate arrays";
         }
         if(targetClass.isInterface()) {
-            throw new IllegalArgumentException("Cannot instantiate interfaces");
+            return "Cannot instantiate interfaces";
         }
         if(Modifier.isAbstract(targetClass.getModifiers())) {
-            throw new IllegalArgumentException("Cannot instantiate abstract classes");
+            return "Cannot instantiate abstract classes";
         }
         if(targetClass.isMemberClass() && !Modifier.isStatic(targetClass.getModifiers())) {
-            throw new IllegalArgumentException("Cannot instantiate non static inner classes");
-        }
-        List<Constructor<?>> list = new ArrayList<>();
-        for(Constructor<?> constructor : targetClass.getConstructors()) {
-            if(isValid(constructor)) {
-                list.add(constructor);
-            }
+            return "Cannot instantiate non static inner classes";
         }
-        list.sort(EXECUTABLE_COMPARATOR);
-        for(Constructor<?> constructor : list) {
-            Object instance = tryConstructor(constructor);
-            if(instance != null) {
-                return (T)instance;
-            }
-        }
-        throw new IllegalArgumentException("Unable to find suitable constructor");
+        return null;
     }
 
-    private Object tryConstructor(Constructor<?> constructor) {
-        Class<?>[] argClasses = constructor.getParameterTypes();
-        Annotation[][] argAnnotations = constructor.getParameterAnnotations();
+    //null if no services can be found for a parameter without @AllowNull
+    @Nullable
+    private static Object[] findArguments(@Nonnull ServiceManager serviceManager, @Nonnull ConstructorPlan constructor) {
+        Class<?>[] argClasses = constructor.parameterTypes;
         Object[] args = new Object[argClasses.length];
         for(int i = 0; i < argClasses.length; i++) {
-            Annotation[] annotations = argAnnotations[i];
             Set<?> found = serviceManager.findServices(argClasses[i], false);
             if(found.isEmpty()) {
                 found = serviceManager.findServices(argClasses[i], true);
                 if(found.isEmpty()) {
-                    boolean allowNull = false;
-                    for(Annotation annotation : annotations) {
-                        if(annotation instanceof AllowNull) {
-                            allowNull = true;
-                            break;
-                        }
-                    }
-                    if(!allowNull) return null;
+                    if(!constructor.allowNull[i]) return null;
+                    continue;
                 }
             }
-            if(found.isEmpty()) continue;
             args[i] = found.size() == 1 ? found.iterator().next() : findBestMatch(argClasses[i], found);
         }
-        try {
-            return constructor.newInstance(args);
-        } catch(IllegalAccessException e) {
-            throw new AssertionError(e);
-        } catch(InstantiationException|InvocationTargetException e) {
-            return null;
-        }
+        return args;
     }
 
     private static boolean isValid(Constructor<?> constructor) {
@@ -112,11 +118,19 @@ public class Injector {
     }
 
     private static Object findBestMatch(Class<?> target, Set<?> values) {
-        return values.stream()
-                .map(v->new WeightedValue(v, distance(target, v)))
-                .min(Comparator.comparingInt(v->v.weight))
-                .map(v->v.value)
-                .orElseThrow(AssertionError::new);
+        Object best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for(Object value : values) {
+            int distance = distance(target, value);
+            if(distance < bestDistance) {
+                best = value;
+                bestDistance = distance;
+            }
+        }
+        if(best == null) {
+            throw new AssertionError();
+        }
+        return best;
     }
 
     private static int distance(Class<?> target, Object value) {
@@ -143,13 +157,106 @@ public class Injector {
         return -1;
     }
 
-    private static class WeightedValue {
-        final Object value;
-        final int weight;
+    private static class InjectionPlan {
+        final String error;
+        final ConstructorPlan[] constructors;
+        private final Function<ServiceManager, Object[][]> resolver = this::findAll;
+
+        private InjectionPlan(String error, ConstructorPlan[] constructors) {
+            this.error = error;
+            this.constructors = constructors;
+        }
+
+        static InjectionPlan create(Class<?> targetClass) {
+            String error = validate(targetClass);
+            if(error != null) {
+                return new InjectionPlan(error, new ConstructorPlan[0]);
+            }
+            List<Constructor<?>> list = new ArrayList<>();
+            for(Constructor<?> constructor : targetClass.getConstructors()) {
+                if(isValid(constructor)) {
+                    list.add(constructor);
+                }
+            }
+            list.sort(EXECUTABLE_COMPARATOR);
+            ConstructorPlan[] constructors = new ConstructorPlan[list.size()];
+            for(int i = 0; i < constructors.length; i++) {
+                constructors[i] = new ConstructorPlan(list.get(i));
+            }
+            return new InjectionPlan(null, constructors);
+        }
+
+        //arguments for each constructor, null for constructors that can't be called
+        Object[][] arguments(ServiceManager serviceManager) {
+            return serviceManager.resolve(this, resolver);
+        }
+
+        private Object[][] findAll(ServiceManager serviceManager) {
+            Object[][] arguments = new Object[constructors.length][];
+            for(int i = 0; i < arguments.length; i++) {
+                arguments[i] = findArguments(serviceManager, constructors[i]);
+            }
+            return arguments;
+        }
+    }
+
+    private static class ConstructorPlan {
+        final Constructor<?> constructor;
+        final Class<?>[] parameterTypes;
+        final boolean[] allowNull;
+        //(Object[])Object, or null if the constructor can't be unreflected
+        final MethodHandle handle;
+
+        private ConstructorPlan(Constructor<?> constructor) {
+            this.constructor = constructor;
+            this.parameterTypes = constructor.getParameterTypes();
+            Annotation[][] annotations = constructor.getParameterAnnotations();
+            this.allowNull = new boolean[parameterTypes.length];
+            for(int i = 0; i < allowNull.length; i++) {
+                for(Annotation annotation : annotations[i]) {
+                    if(annotation instanceof AllowNull) {
+                        allowNull[i] = true;
+                        break;
+                    }
+                }
+            }
+            this.handle = unreflect(constructor);
+        }
 
-        private WeightedValue(Object value, int weight) {
-            this.value = value;
-            this.weight = weight;
+        //null if the constructor throws
+        Object newInstance(Object[] args) {
+            if(handle == null) {
+                try {
+                    return constructor.newInstance(args);
+                } catch(IllegalAccessException e) {
+                    throw new AssertionError(e);
+                } catch(InstantiationException|InvocationTargetException e) {
+                    return null;
+                }
+            }
+            try {
+                return (Object)handle.invokeExact(args);
+            } catch(Throwable t) {
+                return null;
+            }
+        }
+
+        private static MethodHandle unreflect(Constructor<?> constructor) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle;
+            try {
+                try {
+                    handle = lookup.unreflectConstructor(constructor);
+                } catch(IllegalAccessException e) {
+                    //public constructors of non public classes
+                    constructor.setAccessible(true);
+                    handle = lookup.unreflectConstructor(constructor);
+                }
+            } catch(IllegalAccessException|RuntimeException e) {
+                return null;
+            }
+            return handle.asType(handle.type().changeReturnType(Object.class))
+                    .asSpreader(Object[].class, constructor.getParameterCount());
         }
     }
 
@@ -182,6 +289,7 @@ public class Injector {
             for(int i = 0; i < args1.length; i++) {
                 Class<?> c1 = args1[i];
                 Class<?> c2 = args2[i];
+                if(c1 == c2) continue;
                 if(c1.isAssignableFrom(c2)) {
                     return 1;
                 }
@@ -189,6 +297,11 @@ public class Injector {
                     return -1;
                 }
             }
+            //unrelated types, ordered by name so the result doesn't depend on the order reflection returns them in
+            for(int i = 0; i < args1.length; i++) {
+                int c = args1[i].getName().compareTo(args2[i].getName());
+                if(c != 0) return c;
+            }
             return 0;
         }
     }
@@ -16,7 +16,8 @@ import java.lang.annotation.Target;
  *     <ul>
  *         <li>If one has more arguments, it'll be attempted before</li>
  *         <li>Otherwise, the one with the first more specific type will be attempted before</li>
- *         <li>If no more specific constructor is found, the order between them is undefined</li>
+ *         <li>If no more specific constructor is found, the one with the first parameter type whose
+ *         {@link Class#getName() name} sorts lower will be attempted before</li>
  *     </ul>
  *     </li>
  * </ul>
@@ -0,0 +1,12 @@
+package sox.service;
+
+/**
+ * Implemented by {@link Scoped#pooled() pooled} services that need to clear their state before being reused.
+ */
+@FunctionalInterface
+public interface Reusable {
+    /**
+     * Called when the invocation using this instance ends, before it's returned to the pool.
+     */
+    void reset();
+}
@@ -0,0 +1,36 @@
+package sox.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the {@link ServiceScope scope} of a service class.
+ *
+ * <br>Classes without this annotation keep the default behavior of
+ * {@link sox.command.AbstractContext#service(Class) AbstractContext.service}: a new instance is created for
+ * every lookup, unless the context has it's own service manager, in which case the instance is registered to it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Scoped {
+    ServiceScope value();
+
+    /**
+     * Whether or not {@link ServiceScope#INVOCATION invocation} scoped instances should be returned to a pool
+     * once the invocation ends, to be reused by later invocations. Instances implementing {@link Reusable}
+     * are {@link Reusable#reset() reset} before being pooled.
+     * <br>Ignored for other scopes.
+     *
+     * @return Whether or not instances are pooled.
+     */
+    boolean pooled() default false;
+
+    /**
+     * Maximum amount of idle instances kept in the pool. Instances released while the pool is full are discarded.
+     *
+     * @return Maximum size of the pool.
+     */
+    int poolSize() default 16;
+}
@@ -0,0 +1,139 @@
+package sox.service;
+
+import sox.inject.Injector;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stores the instances of {@link Scoped scoped} services that outlive a single command invocation: guild
+ * scoped instances and the pools of pooled invocation scoped ones.
+ *
+ * <br>An instance is registered as a service by every {@link sox.Sox sox} instance.
+ */
+public class ScopedServices {
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Object>> guildInstances = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Pool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the service registered to the given manager for the given class, creating and registering
+     * one if there's none.
+     *
+     * @param serviceClass Class of the wanted service.
+     * @param serviceManager Manager to register the instance to.
+     * @param <T> Type of the wanted service.
+     *
+     * @return The singleton instance.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public <T> T singleton(@Nonnull Class<T> serviceClass, @Nonnull ServiceManager serviceManager) {
+        T instance = serviceManager.handle(serviceClass).getIfPresent();
+        if(instance != null) return instance;
+        synchronized(this) {
+            instance = serviceManager.handle(serviceClass).getIfPresent();
+            if(instance == null) {
+                instance = new Injector(serviceManager).instantiate(serviceClass);
+                serviceManager.registerService(instance);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Returns the instance of the given class for a guild, creating one if there's none.
+     *
+     * @param serviceClass Class of the wanted service.
+     * @param guildKey Key of the guild, as returned by {@link sox.command.AbstractContext#guildKey() guildKey}.
+     * @param serviceManager Manager used to find the constructor arguments of new instances.
+     * @param <T> Type of the wanted service.
+     *
+     * @return The instance for the guild.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    @CheckReturnValue
+    public <T> T guild(@Nonnull Class<T> serviceClass, @Nonnull Object guildKey, @Nonnull ServiceManager serviceManager) {
+        ConcurrentMap<Object, Object> instances = guildInstances.get(serviceClass);
+        if(instances == null) {
+            instances = guildInstances.computeIfAbsent(serviceClass, __ -> new ConcurrentHashMap<>());
+        }
+        Object instance = instances.get(guildKey);
+        if(instance == null) {
+            instance = instances.computeIfAbsent(guildKey, __ -> new Injector(serviceManager).instantiate(serviceClass));
+        }
+        return (T)instance;
+    }
+
+    /**
+     * Removes all guild scoped instances of a guild, such as when the bot leaves it.
+     *
+     * @param guildKey Key of the guild, as returned by {@link sox.command.AbstractContext#guildKey() guildKey}.
+     */
+    public void clearGuild(@Nonnull Object guildKey) {
+        for(ConcurrentMap<Object, Object> instances : guildInstances.values()) {
+            instances.remove(guildKey);
+        }
+    }
+
+    /**
+     * Takes an instance of the given class from it's pool, or creates one if the pool is empty.
+     *
+     * @param serviceClass Class of the wanted service.
+     * @param serviceManager Manager used to find the constructor arguments of new instances.
+     * @param <T> Type of the wanted service.
+     *
+     * @return An instance of the service, to be {@link #release(Object) released} once the invocation ends.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public <T> T acquire(@Nonnull Class<T> serviceClass, @Nonnull ServiceManager serviceManager) {
+        T instance = serviceClass.cast(pool(serviceClass).poll());
+        return instance == null ? new Injector(serviceManager).instantiate(serviceClass) : instance;
+    }
+
+    /**
+     * Returns an instance {@link #acquire(Class, ServiceManager) acquired} from a pool, {@link Reusable#reset() resetting}
+     * it if needed. The instance is discarded if the pool is full.
+     *
+     * @param instance Instance to return.
+     */
+    public void release(@Nonnull Object instance) {
+        if(instance instanceof Reusable) {
+            ((Reusable)instance).reset();
+        }
+        pool(instance.getClass()).offer(instance);
+    }
+
+    @Nonnull
+    private Pool pool(@Nonnull Class<?> serviceClass) {
+        Pool pool = pools.get(serviceClass);
+        if(pool == null) {
+            Scoped scoped = serviceClass.getAnnotation(Scoped.class);
+            pool = pools.computeIfAbsent(serviceClass, __ -> new Pool(scoped == null ? 0 : scoped.poolSize()));
+        }
+        return pool;
+    }
+
+    private static class Pool {
+        private final ArrayDeque<Object> idle = new ArrayDeque<>();
+        private final int maxSize;
+
+        Pool(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        synchronized Object poll() {
+            return idle.poll();
+        }
+
+        synchronized void offer(Object instance) {
+            if(idle.size() < maxSize) {
+                idle.push(instance);
+            }
+        }
+    }
+}
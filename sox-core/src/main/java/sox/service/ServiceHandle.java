@@ -0,0 +1,112 @@
+package sox.service;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Set;
+
+/**
+ * Cached result of {@link ServiceManager#getService(Class) looking up} a service class in a
+ * {@link ServiceManager service manager}.
+ *
+ * <br>Handles are obtained with {@link ServiceManager#handle(Class)}, and resolve their service once. The resolved
+ * instance is kept until a service that changes the result of the lookup is registered to the manager, so repeated
+ * lookups only need a volatile read.
+ *
+ * <br>Instances are thread safe.
+ *
+ * @param <T> Type of the service.
+ */
+public final class ServiceHandle<T> {
+    private final ServiceManager manager;
+    private final Class<T> serviceClass;
+    private volatile Resolution resolution;
+
+    ServiceHandle(@Nonnull ServiceManager manager, @Nonnull Class<T> serviceClass) {
+        this.manager = manager;
+        this.serviceClass = serviceClass;
+    }
+
+    /**
+     * Returns the class this handle looks up.
+     *
+     * @return The service class.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public Class<T> serviceClass() {
+        return serviceClass;
+    }
+
+    /**
+     * Returns the service matching the class of this handle. Throws if the number of matching services is not 1.
+     *
+     * @return An instance of the wanted service.
+     *
+     * @see ServiceManager#getService(Class)
+     */
+    @Nonnull
+    @CheckReturnValue
+    public T get() {
+        T instance = getIfPresent();
+        if(instance == null) {
+            throw new NoServiceMatchException(serviceClass);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the service matching the class of this handle, or null if there are none. Throws if multiple
+     * services match.
+     *
+     * @return An instance of the wanted service, or null.
+     */
+    @Nullable
+    @CheckReturnValue
+    @SuppressWarnings("unchecked")
+    public T getIfPresent() {
+        Resolution r = resolve();
+        if(r.multiple) {
+            throw new MultipleServiceMatchException(serviceClass);
+        }
+        return (T)r.instance;
+    }
+
+    @Nonnull
+    private Resolution resolve() {
+        Resolution r = resolution;
+        Object generation = manager.generation();
+        if(r != null && r.generation == generation) {
+            return r;
+        }
+        Set<?> services = manager.findServices(serviceClass, false);
+        //the manager reuses the previous result if registering didn't change it
+        if(r != null && r.services == services) {
+            r = new Resolution(generation, services, r.instance, r.multiple);
+        } else {
+            r = new Resolution(generation, services, services.size() == 1 ? services.iterator().next() : null, services.size() > 1);
+        }
+        //racing threads store equivalent resolutions
+        resolution = r;
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceHandle(" + serviceClass.getName() + ")";
+    }
+
+    private static class Resolution {
+        final Object generation;
+        final Set<?> services;
+        final Object instance;
+        final boolean multiple;
+
+        Resolution(Object generation, Set<?> services, Object instance, boolean multiple) {
+            this.generation = generation;
+            this.services = services;
+            this.instance = instance;
+            this.multiple = multiple;
+        }
+    }
+}
@@ -13,23 +13,42 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Registers objects based on their types (including supertypes and interfaces), providing lookups
  * based on any of those.
+ *
+ * <br>Registered services are kept in an immutable index, which is replaced by an updated copy whenever a
+ * service is registered. The index remembers the result of every lookup made on it, and those results are
+ * computed again for the new index when it's replaced, so lookups of previously seen classes are a single
+ * map read, without locking or allocating.
+ *
+ * <br>Code looking up the same service repeatedly should use {@link #handle(Class) handles}, which keep
+ * the resolved service until a relevant service is registered.
+ *
+ * <br>{@link #overlay() Overlays} provide cheap, short lived managers on top of another one, such as the
+ * managers of {@link sox.command.AbstractContext#serviceManager() contexts}.
  */
 public class ServiceManager {
     private final MapFactory factory;
-    private final Map<Class<?>, Object> directMap;
-    private final Map<Class<?>, List<IndirectEntry>> indirectMap;
-    private final Map<Class<?>, Set<Class<?>>> subclassMap;
+    private final ServiceManager parent;
+    private final ConcurrentMap<Class<?>, ServiceHandle<?>> handles = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, Resolved> resolved = new ConcurrentHashMap<>();
+    private volatile Index index;
+    private volatile OverlayGeneration overlayGeneration;
 
     public ServiceManager(@Nonnull MapFactory factory) {
+        this(factory, new Index(factory), null);
+    }
+
+    private ServiceManager(@Nonnull MapFactory factory, @Nonnull Index index, @Nullable ServiceManager parent) {
         this.factory = factory;
-        this.directMap = factory.create();
-        this.indirectMap = factory.create();
-        this.subclassMap = factory.create();
+        this.index = index;
+        this.parent = parent;
     }
 
     public ServiceManager() {
@@ -53,16 +72,21 @@ public class ServiceManager {
      * @param service Service to register.
      * @param override Whether or not a registered service of the same type should be replaced, if it exists.
      *                 If false, and a service for the given type already exists, an exception is thrown.
+     *                 For overlays, only services registered to the overlay itself are checked.
      */
     public synchronized void registerService(@Nonnull Object service, boolean override) {
         Objects.requireNonNull(service, "Service may not be null");
         Class<?> serviceClass = service.getClass();
-        Object existing = directMap.get(serviceClass);
+        Index current = index;
+        Object existing = current.directMap.get(serviceClass);
         if(existing != null && !override) {
             throw new DuplicateServiceDefinitionException(serviceClass);
         }
-        directMap.put(serviceClass, service);
-        register(new IndirectEntry(serviceClass, service));
+        Index updated = current.copy(factory);
+        updated.directMap.put(serviceClass, service);
+        updated.register(new IndirectEntry(serviceClass, service));
+        updated.warmUp(current);
+        index = updated;
     }
 
     /**
@@ -73,10 +97,9 @@ public class ServiceManager {
      *
      * @return An instance of the wanted service
      */
-    @SuppressWarnings("unchecked")
     @Nonnull
     @CheckReturnValue
-    public synchronized <T> T getService(@Nonnull Class<T> serviceClass) {
+    public <T> T getService(@Nonnull Class<T> serviceClass) {
         Set<T> set = findServices(serviceClass, false);
         switch(set.size()) {
             case 0: throw new NoServiceMatchException(serviceClass);
@@ -93,25 +116,74 @@ public class ServiceManager {
      *                   <b>This does not mean the list will have only one element</b>
      * @param <T> Type of the wanted service.
      *
-     * @return Set of services matching the given class.
+     * @return Unmodifiable set of services matching the given class.
      */
     @SuppressWarnings("unchecked")
     @Nonnull
     @CheckReturnValue
-    public synchronized <T> Set<T> findServices(@Nonnull Class<T> serviceClass, boolean fullSearch) {
+    public <T> Set<T> findServices(@Nonnull Class<T> serviceClass, boolean fullSearch) {
         Objects.requireNonNull(serviceClass, "Service class may not be null");
-        Set<T> set = new HashSet<>();
-        Object instance = directMap.get(serviceClass);
-        if(instance != null) {
-            set.add((T)instance);
-            if(!fullSearch) return set;
+        Index current = index;
+        if(parent == null) {
+            return (Set<T>)current.find(serviceClass, fullSearch);
         }
-        set.addAll(convert(fromList(indirectMap.get(serviceClass))));
-        if(!fullSearch && !set.isEmpty()) return set;
-        set.addAll(convert(findByInterfaces(serviceClass, fullSearch)));
-        if(!fullSearch && !set.isEmpty()) return set;
-        set.addAll(convert(findBySubclasses(serviceClass, fullSearch)));
-        return set;
+        if(!current.isEmpty()) {
+            Set<?> set = current.find(serviceClass, fullSearch);
+            if(!set.isEmpty()) return (Set<T>)set;
+        }
+        return parent.findServices(serviceClass, fullSearch);
+    }
+
+    /**
+     * Returns a {@link ServiceHandle handle} for looking up the given class in this manager.
+     *
+     * @param serviceClass Class of the wanted service.
+     * @param <T> Type of the wanted service.
+     *
+     * @return A handle for the service.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    @CheckReturnValue
+    public <T> ServiceHandle<T> handle(@Nonnull Class<T> serviceClass) {
+        Objects.requireNonNull(serviceClass, "Service class may not be null");
+        ServiceHandle<?> handle = handles.get(serviceClass);
+        if(handle == null) {
+            handle = new ServiceHandle<>(this, serviceClass);
+            ServiceHandle<?> existing = handles.putIfAbsent(serviceClass, handle);
+            if(existing != null) handle = existing;
+        }
+        return (ServiceHandle<T>)handle;
+    }
+
+    /**
+     * Returns a value computed from the services of this manager, caching it until the
+     * {@link #generation() services change}. Used by {@link sox.inject.Injector injectors} to remember the
+     * constructor arguments found for each class.
+     *
+     * <br>Each manager has it's own cache, so values never outlive the manager that computed them.
+     * Overlays without services of their own use the cache of the manager they're layered on.
+     *
+     * @param key Key of the value, compared by {@link Object#equals(Object) equals}.
+     * @param resolver Computes the value from the services of a manager.
+     * @param <T> Type of the value.
+     *
+     * @return The cached value, or the newly computed one.
+     */
+    @SuppressWarnings("unchecked")
+    @CheckReturnValue
+    public <T> T resolve(@Nonnull Object key, @Nonnull Function<ServiceManager, T> resolver) {
+        if(parent != null && index.isEmpty()) {
+            return parent.resolve(key, resolver);
+        }
+        Object generation = generation();
+        Resolved r = resolved.get(key);
+        if(r == null || r.generation != generation) {
+            //racing threads store equivalent values
+            r = new Resolved(generation, resolver.apply(this));
+            resolved.put(key, r);
+        }
+        return (T)r.value;
     }
 
     /**
@@ -125,104 +197,248 @@ public class ServiceManager {
     @Nonnull
     @CheckReturnValue
     public ServiceManager snapshot(@Nonnull MapFactory factory) {
-        ServiceManager sm = new ServiceManager(factory);
-        sm.directMap.putAll(directMap);
-        indirectMap.forEach((k, v) -> {
-            List<IndirectEntry> copy = new ArrayList<>(v);
-            sm.indirectMap.put(k, copy);
-        });
-        subclassMap.forEach((k, v) -> {
-            Set<Class<?>> copy = new HashSet<>(v);
-            sm.subclassMap.put(k, copy);
-        });
-        return sm;
+        return new ServiceManager(factory, index.copy(factory), parent);
     }
 
     /**
      * Returns a snapshot of this manager. Changes made to this manager or the snapshot will
      * have no effect on the other.
      *
+     * <br>The snapshot shares the index of this manager, including the remembered lookups, until either
+     * of them registers a service, so taking a snapshot is cheap.
+     *
      * @return A snapshot of this manager.
      */
     @Nonnull
     @CheckReturnValue
     public ServiceManager snapshot() {
-        return snapshot(factory);
-    }
-
-    private void register(@Nonnull IndirectEntry entry) {
-        Class<?> c = entry.realClass;
-        while(c != null) {
-            List<IndirectEntry> list = indirectMap.computeIfAbsent(c, k->new ArrayList<>());
-            list.removeIf(e->e.realClass == entry.realClass);
-            list.add(entry);
-            registerByInterfaces(c, entry);
-            Class<?> superclass = c.getSuperclass();
-            if(superclass != null) {
-                subclassMap.computeIfAbsent(superclass, k->new HashSet<>()).add(c);
-            }
-            c = superclass;
-        }
+        return new ServiceManager(factory, index, parent);
     }
 
-    private void registerByInterfaces(@Nonnull Class<?> c, @Nonnull IndirectEntry entry) {
-        Class<?>[] interfaces = c.getInterfaces();
-        for(Class<?> itf : interfaces) {
-            registerByInterfaces(itf, entry);
-            List<IndirectEntry> list = indirectMap.computeIfAbsent(itf, k->new ArrayList<>());
-            list.removeIf(e->e.realClass == entry.realClass);
-            list.add(entry);
-        }
+    /**
+     * Returns a new manager layered on top of this one.
+     *
+     * <br>Services registered to the overlay are only visible through it, and lookups are answered by the
+     * services registered to the overlay, falling back to this manager if none of them match. Services
+     * registered to this manager later are visible through the overlay.
+     *
+     * <br>Creating an overlay doesn't copy anything, and until a service is registered to it, lookups
+     * cost the same as on this manager.
+     *
+     * @return An overlay of this manager.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public ServiceManager overlay() {
+        return new ServiceManager(factory, Index.EMPTY, this);
     }
 
+    /**
+     * Returns an object identifying the services currently registered. A different object is returned after
+     * every registration, and snapshots return the same object as this manager until either of them registers
+     * a service, so it can be compared by identity to tell whether results computed from the services are
+     * still valid.
+     *
+     * @return The current generation of services.
+     */
     @Nonnull
     @CheckReturnValue
-    private List<Object> findBySubclasses(@Nonnull Class<?> search, boolean fullSearch) {
-        List<Object> res = new ArrayList<>();
-        Set<Class<?>> subclasses = subclassMap.get(search);
-        if(subclasses == null) return res;
-        for(Class<?> sub : subclasses) {
-            List<Object> list = fromList(indirectMap.get(sub));
-            if(!list.isEmpty()) {
-                res.addAll(list);
+    public Object generation() {
+        Index current = index;
+        if(parent == null) return current;
+        Object parentGeneration = parent.generation();
+        if(current.isEmpty()) return parentGeneration;
+        OverlayGeneration g = overlayGeneration;
+        if(g == null || g.index != current || g.parent != parentGeneration) {
+            //racing threads may create different objects, which only costs a cache miss
+            overlayGeneration = g = new OverlayGeneration(current, parentGeneration);
+        }
+        return g;
+    }
+
+    /**
+     * Immutable view of the registered services. Only modified while being built by
+     * {@link #registerService(Object, boolean) registerService}, before being published.
+     */
+    private static final class Index {
+        static final Index EMPTY = new Index(HashMap::new);
+
+        final Map<Class<?>, Object> directMap;
+        final Map<Class<?>, List<IndirectEntry>> indirectMap;
+        final Map<Class<?>, Set<Class<?>>> subclassMap;
+        //results of every lookup made, they never change as the index doesn't
+        final ConcurrentMap<Class<?>, Set<?>> exactResults = new ConcurrentHashMap<>();
+        final ConcurrentMap<Class<?>, Set<?>> fullResults = new ConcurrentHashMap<>();
+
+        Index(@Nonnull MapFactory factory) {
+            this.directMap = factory.create();
+            this.indirectMap = factory.create();
+            this.subclassMap = factory.create();
+        }
+
+        boolean isEmpty() {
+            return directMap.isEmpty();
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        Index copy(@Nonnull MapFactory factory) {
+            Index index = new Index(factory);
+            index.directMap.putAll(directMap);
+            indirectMap.forEach((k, v) -> {
+                List<IndirectEntry> copy = new ArrayList<>(v);
+                index.indirectMap.put(k, copy);
+            });
+            subclassMap.forEach((k, v) -> {
+                Set<Class<?>> copy = new HashSet<>(v);
+                index.subclassMap.put(k, copy);
+            });
+            return index;
+        }
+
+        //compute the results of everything looked up in the previous index, before this one is published.
+        //results that didn't change are reused, so handles can tell their service is still valid
+        void warmUp(@Nonnull Index previous) {
+            warmUp(previous.exactResults, exactResults, false);
+            warmUp(previous.fullResults, fullResults, true);
+        }
+
+        private void warmUp(@Nonnull Map<Class<?>, Set<?>> previous, @Nonnull Map<Class<?>, Set<?>> into, boolean fullSearch) {
+            previous.forEach((c, old) -> {
+                Set<?> set = search(c, fullSearch);
+                into.put(c, sameInstances(set, old) ? old : set);
+            });
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        Set<?> find(@Nonnull Class<?> serviceClass, boolean fullSearch) {
+            ConcurrentMap<Class<?>, Set<?>> results = fullSearch ? fullResults : exactResults;
+            Set<?> set = results.get(serviceClass);
+            if(set == null) {
+                set = search(serviceClass, fullSearch);
+                Set<?> existing = results.putIfAbsent(serviceClass, set);
+                if(existing != null) set = existing;
+            }
+            return set;
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        private Set<?> search(@Nonnull Class<?> serviceClass, boolean fullSearch) {
+            Set<Object> set = new HashSet<>();
+            Object instance = directMap.get(serviceClass);
+            if(instance != null) {
+                set.add(instance);
+                if(!fullSearch) return Collections.unmodifiableSet(set);
+            }
+            set.addAll(fromList(indirectMap.get(serviceClass)));
+            if(!fullSearch && !set.isEmpty()) return Collections.unmodifiableSet(set);
+            set.addAll(findByInterfaces(serviceClass, fullSearch));
+            if(!fullSearch && !set.isEmpty()) return Collections.unmodifiableSet(set);
+            set.addAll(findBySubclasses(serviceClass, fullSearch));
+            return set.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(set);
+        }
+
+        private void register(@Nonnull IndirectEntry entry) {
+            Class<?> c = entry.realClass;
+            while(c != null) {
+                List<IndirectEntry> list = indirectMap.computeIfAbsent(c, k->new ArrayList<>());
+                list.removeIf(e->e.realClass == entry.realClass);
+                list.add(entry);
+                registerByInterfaces(c, entry);
+                Class<?> superclass = c.getSuperclass();
+                if(superclass != null) {
+                    subclassMap.computeIfAbsent(superclass, k->new HashSet<>()).add(c);
+                }
+                c = superclass;
+            }
+        }
+
+        private void registerByInterfaces(@Nonnull Class<?> c, @Nonnull IndirectEntry entry) {
+            Class<?>[] interfaces = c.getInterfaces();
+            for(Class<?> itf : interfaces) {
+                registerByInterfaces(itf, entry);
+                List<IndirectEntry> list = indirectMap.computeIfAbsent(itf, k->new ArrayList<>());
+                list.removeIf(e->e.realClass == entry.realClass);
+                list.add(entry);
+            }
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        private List<Object> findBySubclasses(@Nonnull Class<?> search, boolean fullSearch) {
+            List<Object> res = new ArrayList<>();
+            Set<Class<?>> subclasses = subclassMap.get(search);
+            if(subclasses == null) return res;
+            for(Class<?> sub : subclasses) {
+                List<Object> list = fromList(indirectMap.get(sub));
+                if(!list.isEmpty()) {
+                    res.addAll(list);
+                    if(!fullSearch && !res.isEmpty()) return res;
+                }
+                res.addAll(findByInterfaces(sub, fullSearch));
+                if(!fullSearch && !res.isEmpty()) return res;
+                res.addAll(findBySubclasses(sub, fullSearch));
                 if(!fullSearch && !res.isEmpty()) return res;
             }
-            res.addAll(findByInterfaces(sub, fullSearch));
-            if(!fullSearch && !res.isEmpty()) return res;
-            res.addAll(findBySubclasses(sub, fullSearch));
-            if(!fullSearch && !res.isEmpty()) return res;
+            return res;
         }
-        return res;
-    }
 
-    @Nonnull
-    @CheckReturnValue
-    private List<Object> findByInterfaces(@Nonnull Class<?> search, boolean fullSearch) {
-        List<Object> res = new ArrayList<>();
-        Class<?>[] interfaces = search.getInterfaces();
-        for(Class<?> c : interfaces) {
-            List<Object> list = fromList(indirectMap.get(c));
-            if(!list.isEmpty()) {
-                res.addAll(list);
+        @Nonnull
+        @CheckReturnValue
+        private List<Object> findByInterfaces(@Nonnull Class<?> search, boolean fullSearch) {
+            List<Object> res = new ArrayList<>();
+            Class<?>[] interfaces = search.getInterfaces();
+            for(Class<?> c : interfaces) {
+                List<Object> list = fromList(indirectMap.get(c));
+                if(!list.isEmpty()) {
+                    res.addAll(list);
+                    if(!fullSearch && !res.isEmpty()) return res;
+                }
+                res.addAll(findByInterfaces(c, fullSearch));
                 if(!fullSearch && !res.isEmpty()) return res;
             }
-            res.addAll(findByInterfaces(c, fullSearch));
-            if(!fullSearch && !res.isEmpty()) return res;
+            return res;
+        }
+
+        private static boolean sameInstances(@Nonnull Set<?> a, @Nonnull Set<?> b) {
+            if(a.size() != b.size()) return false;
+            outer:
+            for(Object x : a) {
+                for(Object y : b) {
+                    if(x == y) continue outer;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Nonnull
+        @CheckReturnValue
+        private static List<Object> fromList(@Nullable List<IndirectEntry> instances) {
+            return instances == null ? Collections.emptyList() : instances.stream().map(x->x.instance).collect(Collectors.toList());
         }
-        return res;
     }
 
-    @Nonnull
-    @CheckReturnValue
-    private static List<Object> fromList(@Nullable List<IndirectEntry> instances) {
-        return instances == null ? Collections.emptyList() : instances.stream().map(x->x.instance).collect(Collectors.toList());
+    private static class OverlayGeneration {
+        final Index index;
+        final Object parent;
+
+        private OverlayGeneration(@Nonnull Index index, @Nonnull Object parent) {
+            this.index = index;
+            this.parent = parent;
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    @Nonnull
-    @CheckReturnValue
-    private static <T> List<T> convert(@Nonnull List<?> list) {
-        return (List<T>)list;
+    private static class Resolved {
+        final Object generation;
+        final Object value;
+
+        private Resolved(@Nonnull Object generation, @Nullable Object value) {
+            this.generation = generation;
+            this.value = value;
+        }
     }
 
     private static class IndirectEntry {
@@ -0,0 +1,29 @@
+package sox.service;
+
+/**
+ * Lifecycle of services created by {@link sox.command.AbstractContext#service(Class) AbstractContext.service}
+ * when no registered service matches. Selected with {@link Scoped @Scoped} on the service class.
+ */
+public enum ServiceScope {
+    /**
+     * A single instance is created, and registered to the {@link sox.Sox#serviceManager() global} service manager.
+     */
+    SINGLETON,
+    /**
+     * An instance is created for each command invocation, and registered to the
+     * {@link sox.command.AbstractContext#serviceManager() context's} service manager.
+     * <br>Instances may be {@link Scoped#pooled() pooled}, and reused by later invocations.
+     */
+    INVOCATION,
+    /**
+     * An instance is created for each guild, and shared by all invocations in that guild.
+     * <br>Contexts not belonging to a guild, such as direct messages, use {@link #INVOCATION invocation} scope.
+     *
+     * @see ScopedServices#clearGuild(Object)
+     */
+    GUILD,
+    /**
+     * A new instance is created for every lookup.
+     */
+    PROTOTYPE
+}
@@ -0,0 +1,116 @@
+package sox.command.dispatch;
+
+import org.junit.Test;
+import sox.Sox;
+import sox.SoxBuilder;
+import sox.command.AbstractCommand;
+import sox.command.AbstractContext;
+import sox.command.ReflectiveCommandManager;
+import sox.command.argument.Arguments;
+import sox.command.argument.split.StringSplitter;
+import sox.command.argument.split.TokenOffsets;
+import sox.impl.SoxImpl;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class DispatchMetadataTest {
+    @Test
+    public void sharedContextParameterGetsParsingContext() {
+        assertEquals("int and string 5 tail, next -, memo cleared", dispatch(new SharedContext(), "5 tail"));
+        assertEquals("int 5, next -, memo cleared", dispatch(new SharedContext(), "5"));
+        assertEquals("string x, next y, memo cleared", dispatch(new SharedContext(), "x y"));
+    }
+
+    @Test
+    public void sharedContextParameterGetsParsingContextWithMemo() {
+        DynamicCommandDispatcher dispatcher = new DynamicCommandDispatcher();
+        dispatcher.setParseMemoization(true);
+        assertEquals("int and string 5 tail, next -, memo cleared", dispatch(dispatcher, new SharedContext(), "5 tail"));
+        assertEquals("string x, next y, memo cleared", dispatch(dispatcher, new SharedContext(), "x y"));
+    }
+
+    private static String dispatch(TestCommand command, String content) {
+        return dispatch(new DynamicCommandDispatcher(), command, content);
+    }
+
+    private static String dispatch(DynamicCommandDispatcher dispatcher, TestCommand command, String content) {
+        Sox sox = new TestSoxBuilder().commandDispatcher(dispatcher).build();
+        Arguments arguments = new Arguments(new StringSplitter().tokenize(content, 0, new TokenOffsets()));
+        dispatcher.dispatchAsync(command, new TestContext(sox, arguments));
+        return command.result;
+    }
+
+    public static class SharedContext extends TestCommand {
+        public void process(TestContext context, int i, String s) {
+            result = "int and string " + i + " " + s + rest(context);
+        }
+
+        public void process(TestContext context, int i) {
+            result = "int " + i + rest(context);
+        }
+
+        public void process(TestContext context, String s) {
+            result = "string " + s + rest(context);
+        }
+
+        //the context must be the one the arguments of the handler were parsed from
+        private static String rest(TestContext context) {
+            Arguments arguments = context.arguments();
+            return ", next " + (arguments.hasNext() ? arguments.next().getValue() : "-") +
+                    (context.parseMemo() == null ? ", memo cleared" : ", memo set");
+        }
+    }
+
+    public static abstract class TestCommand extends AbstractCommand<TestContext, TestCommand> {
+        String result = "no match";
+
+        @Override
+        public void noMatches(TestContext context) {}
+    }
+
+    public static class TestContext extends AbstractContext<TestContext> {
+        TestContext(Sox sox, Arguments arguments) {
+            super(sox, arguments, new HashMap<>());
+        }
+
+        private TestContext(TestContext other) {
+            super(other);
+        }
+
+        @Nonnull
+        @Override
+        public TestContext snapshot() {
+            return new TestContext(this);
+        }
+    }
+
+    private static class TestSoxBuilder extends SoxBuilder<String, TestContext, TestCommand, TestSoxBuilder> {
+        TestSoxBuilder() {
+            super(sox -> new ReflectiveCommandManager<String, TestContext, TestCommand>(sox) {
+                @Override
+                public Class<? extends AbstractCommand<TestContext, TestCommand>> commandClass() {
+                    return TestCommand.class;
+                }
+
+                @Override
+                public TestContext createContext(String message, Arguments arguments) {
+                    return new TestContext(sox(), arguments);
+                }
+            });
+        }
+
+        @Nonnull
+        @Override
+        protected SoxImpl<String, TestContext, TestCommand> newInstance() {
+            return new SoxImpl<String, TestContext, TestCommand>() {
+                @Override
+                public void accept(String message) {
+                    withCommandManager(cm -> cm.process(message, message));
+                }
+            };
+        }
+    }
+}
@@ -44,7 +44,7 @@ public class JDASoxBuilder extends SoxBuilder<Message, Context, Command, JDASoxB
 
     @Override
     protected void addDefaultErrorHandlers(CommandManager<Message, Context, Command> manager) {
-        manager.commandHooks().add(CommandHook.fromErrorHandler((context, command, e) -> {
+        manager.addHook(CommandHook.fromErrorHandler((context, command, e) -> {
             if(e instanceof ArgumentParseError) {
                 context.send("Bad argument: " + e.getMessage());
                 return true;
@@ -1,11 +1,15 @@
 package sox.command.jda;
 
+import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Message;
 import sox.Sox;
+import sox.command.prefix.PrefixCache;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -17,6 +21,19 @@ public interface PrefixProvider {
     @Nonnull
     CompletionStage<List<String>> getPrefixes(@Nonnull Sox sox, @Nonnull Message message);
 
+    /**
+     * Returns the prefixes returned by this provider for every message, if they never change.
+     * <br>Static prefixes of consecutive providers are merged into a single {@link sox.command.prefix.PrefixMatcher matcher},
+     * and {@link #getPrefixes(Sox, Message) getPrefixes} is never called for them.
+     *
+     * @return The prefixes of this provider, or null if they depend on the message. Defaults to null.
+     */
+    @Nullable
+    @CheckReturnValue
+    default List<String> staticPrefixes() {
+        return null;
+    }
+
     @Nonnull
     @CheckReturnValue
     static <T> PrefixProvider fromServiceBlocking(@Nonnull Class<T> serviceClass, @Nonnull BiFunction<T, Message, List<String>> function) {
@@ -37,6 +54,27 @@ public interface PrefixProvider {
         };
     }
 
+    /**
+     * Caches the prefixes returned by a provider, per guild, or per channel for direct messages.
+     * <br>The cache should be {@link PrefixCache#invalidate(long) invalidated} when the prefixes of a guild change.
+     *
+     * @param provider Provider to cache.
+     * @param cache Cache to store the prefixes in. Shouldn't be shared with other providers.
+     *
+     * @return A provider that caches the given provider's prefixes.
+     */
+    @Nonnull
+    @CheckReturnValue
+    static PrefixProvider cached(@Nonnull PrefixProvider provider, @Nonnull PrefixCache cache) {
+        //nothing to cache
+        if(provider.staticPrefixes() != null) return provider;
+        return (sox, message) -> {
+            Guild guild = message.getGuild();
+            long key = guild == null ? message.getChannel().getIdLong() : guild.getIdLong();
+            return cache.get(key, __ -> provider.getPrefixes(sox, message));
+        };
+    }
+
     @Nonnull
     @CheckReturnValue
     static PrefixProvider mention() {
@@ -49,7 +87,19 @@ public interface PrefixProvider {
     @Nonnull
     @CheckReturnValue
     static PrefixProvider startingWith(@Nonnull String... options) {
-        List<String> list = Arrays.asList(options);
-        return (__1, __2) -> CompletableFuture.completedFuture(list);
+        List<String> list = Collections.unmodifiableList(Arrays.asList(options));
+        CompletableFuture<List<String>> future = CompletableFuture.completedFuture(list);
+        return new PrefixProvider() {
+            @Nonnull
+            @Override
+            public CompletionStage<List<String>> getPrefixes(@Nonnull Sox sox, @Nonnull Message message) {
+                return future;
+            }
+
+            @Override
+            public List<String> staticPrefixes() {
+                return list;
+            }
+        };
     }
 }
@@ -0,0 +1,198 @@
+package sox.command.jda.argument;
+
+import net.dv8tion.jda.core.entities.Category;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.VoiceChannel;
+import net.dv8tion.jda.core.events.Event;
+import net.dv8tion.jda.core.events.ReconnectedEvent;
+import net.dv8tion.jda.core.events.channel.category.GenericCategoryEvent;
+import net.dv8tion.jda.core.events.channel.text.GenericTextChannelEvent;
+import net.dv8tion.jda.core.events.channel.voice.GenericVoiceChannelEvent;
+import net.dv8tion.jda.core.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.core.events.guild.GuildUnavailableEvent;
+import sox.command.argument.Arguments;
+import sox.command.argument.NameIndex;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per guild {@link NameIndex name indexes} of text channels, voice channels and categories, used by the
+ * channel parsers in {@link JDAParsers}.
+ * <br>Guilds are indexed from their cache when first needed, then kept up to date from channel events.
+ * Indexes only hold IDs, resolved from the guild cache when a name matches, and are dropped when a guild
+ * becomes available or unavailable and when a shard reconnects, as channel events may have been missed.
+ * Registered as a service by default.
+ */
+public class ChannelNameIndex {
+    private final Map<Long, GuildIndex> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the text channel index of a guild, building it if needed.
+     *
+     * @param guild Guild to get the index for.
+     *
+     * @return The text channel index of the guild.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NameIndex textChannels(@Nonnull Guild guild) {
+        return guild(guild).textChannels;
+    }
+
+    /**
+     * Returns the voice channel index of a guild, building it if needed.
+     *
+     * @param guild Guild to get the index for.
+     *
+     * @return The voice channel index of the guild.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NameIndex voiceChannels(@Nonnull Guild guild) {
+        return guild(guild).voiceChannels;
+    }
+
+    /**
+     * Returns the category index of a guild, building it if needed.
+     *
+     * @param guild Guild to get the index for.
+     *
+     * @return The category index of the guild.
+     */
+    @Nonnull
+    @CheckReturnValue
+    public NameIndex categories(@Nonnull Guild guild) {
+        return guild(guild).categories;
+    }
+
+    /**
+     * Drops the indexes of a guild, so they're rebuilt from the cache when next needed.
+     *
+     * @param guildId ID of the guild.
+     */
+    public void invalidate(long guildId) {
+        guilds.remove(guildId);
+    }
+
+    /**
+     * Finds the text channel of a guild whose name matches the next arguments.
+     *
+     * @param guild Guild of the channel.
+     * @param arguments Arguments to read.
+     *
+     * @return The matching channel, or null if none match.
+     *
+     * @see NameIndex#find(Arguments, java.util.function.LongFunction, java.util.function.Function)
+     */
+    @Nullable
+    @CheckReturnValue
+    public TextChannel findTextChannel(@Nonnull Guild guild, @Nonnull Arguments arguments) {
+        return textChannels(guild).find(arguments, guild::getTextChannelById, TextChannel::getName);
+    }
+
+    /**
+     * Finds the voice channel of a guild whose name matches the next arguments.
+     *
+     * @param guild Guild of the channel.
+     * @param arguments Arguments to read.
+     *
+     * @return The matching channel, or null if none match.
+     *
+     * @see NameIndex#find(Arguments, java.util.function.LongFunction, java.util.function.Function)
+     */
+    @Nullable
+    @CheckReturnValue
+    public VoiceChannel findVoiceChannel(@Nonnull Guild guild, @Nonnull Arguments arguments) {
+        return voiceChannels(guild).find(arguments, guild::getVoiceChannelById, VoiceChannel::getName);
+    }
+
+    /**
+     * Finds the category of a guild whose name matches the next arguments.
+     *
+     * @param guild Guild of the category.
+     * @param arguments Arguments to read.
+     *
+     * @return The matching category, or null if none match.
+     *
+     * @see NameIndex#find(Arguments, java.util.function.LongFunction, java.util.function.Function)
+     */
+    @Nullable
+    @CheckReturnValue
+    public Category findCategory(@Nonnull Guild guild, @Nonnull Arguments arguments) {
+        return categories(guild).find(arguments, guild::getCategoryById, Category::getName);
+    }
+
+    /**
+     * Updates the indexes from a channel or guild event. Other events are ignored.
+     *
+     * @param event Event received.
+     */
+    public void onEvent(@Nonnull Event event) {
+        //computeIfPresent waits for indexes being built, so no updates are lost
+        if(event instanceof GenericTextChannelEvent) {
+            TextChannel channel = ((GenericTextChannelEvent)event).getChannel();
+            Guild guild = channel.getGuild();
+            guilds.computeIfPresent(guild.getIdLong(), (__, index) -> {
+                update(index.textChannels, channel.getIdLong(), channel.getName(),
+                        guild.getTextChannelById(channel.getIdLong()) != null);
+                return index;
+            });
+        } else if(event instanceof GenericVoiceChannelEvent) {
+            VoiceChannel channel = ((GenericVoiceChannelEvent)event).getChannel();
+            Guild guild = channel.getGuild();
+            guilds.computeIfPresent(guild.getIdLong(), (__, index) -> {
+                update(index.voiceChannels, channel.getIdLong(), channel.getName(),
+                        guild.getVoiceChannelById(channel.getIdLong()) != null);
+                return index;
+            });
+        } else if(event instanceof GenericCategoryEvent) {
+            Category category = ((GenericCategoryEvent)event).getCategory();
+            Guild guild = category.getGuild();
+            guilds.computeIfPresent(guild.getIdLong(), (__, index) -> {
+                update(index.categories, category.getIdLong(), category.getName(),
+                        guild.getCategoryById(category.getIdLong()) != null);
+                return index;
+            });
+        } else if(event instanceof GuildLeaveEvent) {
+            invalidate(((GuildLeaveEvent)event).getGuild().getIdLong());
+        } else if(event instanceof GuildAvailableEvent) {
+            invalidate(((GuildAvailableEvent)event).getGuild().getIdLong());
+        } else if(event instanceof GuildUnavailableEvent) {
+            invalidate(((GuildUnavailableEvent)event).getGuild().getIdLong());
+        } else if(event instanceof ReconnectedEvent) {
+            //reconnecting without resuming recreates the cache of the shard, without firing channel events
+            event.getJDA().getGuildCache().forEach(g -> invalidate(g.getIdLong()));
+        }
+    }
+
+    //the cache is updated before events are fired, so deleted channels are no longer in it
+    private static void update(NameIndex index, long id, String name, boolean exists) {
+        if(exists) {
+            index.put(id, name);
+        } else {
+            index.remove(id);
+        }
+    }
+
+    private GuildIndex guild(Guild guild) {
+        return guilds.computeIfAbsent(guild.getIdLong(), __ -> new GuildIndex(guild));
+    }
+
+    private static class GuildIndex {
+        final NameIndex textChannels = new NameIndex();
+        final NameIndex voiceChannels = new NameIndex();
+        final NameIndex categories = new NameIndex();
+
+        GuildIndex(Guild guild) {
+            guild.getTextChannelCache().forEach(c -> textChannels.put(c.getIdLong(), c.getName()));
+            guild.getVoiceChannelCache().forEach(c -> voiceChannels.put(c.getIdLong(), c.getName()));
+            guild.getCategoryCache().forEach(c -> categories.put(c.getIdLong(), c.getName()));
+        }
+    }
+}
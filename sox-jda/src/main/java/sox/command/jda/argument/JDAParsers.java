@@ -8,22 +8,17 @@ import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.entities.VoiceChannel;
 import net.dv8tion.jda.core.utils.cache.SnowflakeCacheView;
+import sox.command.argument.LongParser;
 import sox.command.argument.Parser;
-import sox.command.argument.Parsers;
+import sox.command.argument.Snowflakes;
+import sox.command.argument.UserTag;
 import sox.command.jda.Context;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
-import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public final class JDAParsers {
-    private static final Pattern CHANNEL_MENTION_PATTERN = Pattern.compile("^<#(\\d{1,20})>$");
-    private static final Pattern MENTION_PATTERN = Pattern.compile("^<@!?(\\d{1,20})>$");
-    private static final Pattern TAG_PATTERN = Pattern.compile("^(.{2,32})#(\\d{4})$");
-
     private JDAParsers() {}
 
     /**
@@ -76,45 +71,32 @@ public final class JDAParsers {
     @Nonnull
     @CheckReturnValue
     public static Parser<User> user(boolean useShardManager) {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID | Snowflakes.USER_MENTION);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             JDA jda = c.message().getJDA();
             SnowflakeCacheView<User> userCache = useShardManager ?
                     jda.asBot().getShardManager().getUserCache() : jda.getUserCache();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(userCache::getElementById);
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(userCache.getElementById(id));
             }
             arguments.back();
-            String search = arguments.next().getValue();
-            Matcher mention = MENTION_PATTERN.matcher(search);
-            if(mention.find()) {
-                try {
-                    return Optional.ofNullable(userCache.getElementById(Long.parseUnsignedLong(mention.group(1))));
-                } catch(NumberFormatException e) {
-                    return Optional.empty();
-                }
-            }
-            Matcher tagMatcher = TAG_PATTERN.matcher(search);
-            while(!search.contains("#") || !tagMatcher.find()) {
-                //37 = 32 name characters + 1 (# character) + 4 discriminator characters
-                if(search.length() >= 37 || !arguments.hasNext()) {
-                    return Optional.empty();
-                }
-                search += arguments.next().getRawValue();
-                tagMatcher = TAG_PATTERN.matcher(search);
+            UserTag tag = UserTag.find(arguments);
+            if(tag == null) return Optional.empty();
+            UserTagIndex index = c.sox().serviceManager().handle(UserTagIndex.class).getIfPresent();
+            if(index != null) {
+                return Optional.ofNullable(index.find(jda, useShardManager, tag));
             }
-            String username = tagMatcher.group(1);
-            String discriminator = tagMatcher.group(2);
-            Optional<User> exactName = userCache.getElementsByName(username, false)
+            //not receiving events, scan the cache instead
+            Optional<User> exactName = userCache.getElementsByName(tag.name(), false)
                     .stream()
-                    .filter(user -> user.getDiscriminator().equals(discriminator))
+                    .filter(user -> UserTag.parseDiscriminator(user.getDiscriminator()) == tag.discriminator())
                     .findFirst();
             if(exactName.isPresent()) return exactName;
-            return userCache.getElementsByName(username, true)
+            return userCache.getElementsByName(tag.name(), true)
                     .stream()
-                    .filter(user -> user.getDiscriminator().equals(discriminator))
+                    .filter(user -> UserTag.parseDiscriminator(user.getDiscriminator()) == tag.discriminator())
                     .findFirst();
         };
     }
@@ -133,41 +115,18 @@ public final class JDAParsers {
      * @return A parser that matches a text channel of the current guild.
      */
     public static Parser<TextChannel> textChannel() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID | Snowflakes.CHANNEL_MENTION);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             if(c.channel().getType() != ChannelType.TEXT) return Optional.empty();
             SnowflakeCacheView<TextChannel> channelCache = c.guild().getTextChannelCache();
             if(channelCache.isEmpty()) return Optional.empty();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(channelCache::getElementById);
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(channelCache.getElementById(id));
             }
             arguments.back();
-            String search = arguments.next().getValue();
-            Matcher mention = CHANNEL_MENTION_PATTERN.matcher(search);
-            if(mention.find()) {
-                try {
-                    return Optional.ofNullable(channelCache.getElementById(Long.parseUnsignedLong(mention.group(1))));
-                } catch(NumberFormatException e) {
-                    return Optional.empty();
-                }
-            }
-            int longest = channelCache.stream().mapToInt(tc -> tc.getName().length())
-                    .max()
-                    .orElseThrow(IllegalStateException::new);
-            while(search.length() < longest) {
-                List<TextChannel> channels = channelCache.getElementsByName(search);
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.get(0));
-                }
-                channels = channelCache.getElementsByName(search, true);
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.get(0));
-                }
-                search += arguments.next().getRawValue();
-            }
-            return Optional.empty();
+            return Optional.ofNullable(channelNameIndex(c).findTextChannel(c.guild(), arguments));
         };
     }
 
@@ -184,33 +143,18 @@ public final class JDAParsers {
      * @return A parser that matches a voice channel of the current guild.
      */
     public static Parser<VoiceChannel> voiceChannel() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             if(c.channel().getType() != ChannelType.TEXT) return Optional.empty();
             SnowflakeCacheView<VoiceChannel> channelCache = c.guild().getVoiceChannelCache();
             if(channelCache.isEmpty()) return Optional.empty();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(channelCache::getElementById);
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(channelCache.getElementById(id));
             }
             arguments.back();
-            int longest = channelCache.stream().mapToInt(tc -> tc.getName().length())
-                    .max()
-                    .orElseThrow(IllegalStateException::new);
-            String search = arguments.next().getValue();
-            while(search.length() < longest) {
-                List<VoiceChannel> channels = channelCache.getElementsByName(search);
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.get(0));
-                }
-                channels = channelCache.getElementsByName(search, true);
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.get(0));
-                }
-                search += arguments.next().getRawValue();
-            }
-            return Optional.empty();
+            return Optional.ofNullable(channelNameIndex(c).findVoiceChannel(c.guild(), arguments));
         };
     }
 
@@ -227,33 +171,24 @@ public final class JDAParsers {
      * @return A parser that matches a category of the current guild.
      */
     public static Parser<Category> category() {
-        Parser<Long> longParser = Parsers.strictLong();
+        LongParser idParser = Snowflakes.parser(Snowflakes.ID);
         return (abstractContext, arguments) -> {
             Context c = (Context)abstractContext;
             if(c.channel().getType() != ChannelType.TEXT) return Optional.empty();
             SnowflakeCacheView<Category> categoryCache = c.guild().getCategoryCache();
             if(categoryCache.isEmpty()) return Optional.empty();
-            Optional<Long> id = longParser.parse(c, arguments);
-            if(id.isPresent()) {
-                return id.map(categoryCache::getElementById);
+            long id = idParser.parseLong(c, arguments);
+            if(id != LongParser.NO_MATCH) {
+                return Optional.ofNullable(categoryCache.getElementById(id));
             }
             arguments.back();
-            int longest = categoryCache.stream().mapToInt(tc -> tc.getName().length())
-                    .max()
-                    .orElseThrow(IllegalStateException::new);
-            String search = arguments.next().getValue();
-            while(search.length() < longest) {
-                List<Category> channels = categoryCache.getElementsByName(search);
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.get(0));
-                }
-                channels = categoryCache.getElementsByName(search, true);
-                if(!channels.isEmpty()) {
-                    return Optional.of(channels.get(0));
-                }
-                search += arguments.next().getRawValue();
-            }
-            return Optional.empty();
+            return Optional.ofNullable(channelNameIndex(c).findCategory(c.guild(), arguments));
         };
     }
+
+    //registered index, or a temporary one built from the cache if sox isn't receiving events
+    private static ChannelNameIndex channelNameIndex(Context c) {
+        ChannelNameIndex index = c.sox().serviceManager().handle(ChannelNameIndex.class).getIfPresent();
+        return index == null ? new ChannelNameIndex() : index;
+    }
 }
@@ -0,0 +1,253 @@
+package sox.command.jda.argument;
+
+import net.dv8tion.jda.bot.sharding.ShardManager;
+import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.entities.User;
+import net.dv8tion.jda.core.events.Event;
+import net.dv8tion.jda.core.events.ReconnectedEvent;
+import net.dv8tion.jda.core.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.core.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.core.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberLeaveEvent;
+import net.dv8tion.jda.core.events.user.update.UserUpdateDiscriminatorEvent;
+import net.dv8tion.jda.core.events.user.update.UserUpdateNameEvent;
+import net.dv8tion.jda.core.utils.cache.SnowflakeCacheView;
+import sox.command.argument.UserTag;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of users by tag, shared by every shard sox receives events from, used by {@link JDAParsers#user(boolean)}.
+ * <br>Maps a case insensitive hash of each tag to the IDs of the users with it, so resolving a tag takes a
+ * hash lookup instead of a scan of the user cache. Candidates are resolved from the cache and checked
+ * against the tag, so stale entries are never returned.
+ * <br>Shards are indexed from their cache when first needed, then kept up to date from guild, member and
+ * user update events. Shards that reconnect are indexed again from their cache when next needed.
+ * Registered as a service by default.
+ */
+public class UserTagIndex {
+    private static final int SEGMENTS = 16;
+
+    private final Set<JDA> indexedShards = ConcurrentHashMap.newKeySet();
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public UserTagIndex() {
+        for(int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Finds the user with the given tag. Names are matched case sensitively first, then case insensitively.
+     *
+     * @param jda Shard the lookup is made from.
+     * @param useShardManager Whether or not to look up users from all shards of the shard manager, if there's one.
+     * @param tag Tag to look up.
+     *
+     * @return The matching user, or null if none match.
+     */
+    @Nullable
+    @CheckReturnValue
+    public User find(@Nonnull JDA jda, boolean useShardManager, @Nonnull UserTag tag) {
+        ShardManager shardManager = useShardManager ? jda.asBot().getShardManager() : null;
+        SnowflakeCacheView<User> cache;
+        if(shardManager == null) {
+            index(jda);
+            cache = jda.getUserCache();
+        } else {
+            for(JDA shard : shardManager.getShards()) {
+                index(shard);
+            }
+            cache = shardManager.getUserCache();
+        }
+        long key = key(tag.name(), tag.discriminator());
+        long[] ids = segment(key).get(key);
+        User ignoreCase = null;
+        for(long id : ids) {
+            User user = cache.getElementById(id);
+            if(user == null || UserTag.parseDiscriminator(user.getDiscriminator()) != tag.discriminator()) continue;
+            if(user.getName().equals(tag.name())) return user;
+            if(ignoreCase == null && user.getName().equalsIgnoreCase(tag.name())) {
+                ignoreCase = user;
+            }
+        }
+        return ignoreCase;
+    }
+
+    /**
+     * Updates the index from a guild, member or user event. Other events, and events from shards that weren't
+     * indexed yet, are ignored.
+     *
+     * @param event Event received.
+     */
+    public void onEvent(@Nonnull Event event) {
+        if(!indexedShards.contains(event.getJDA())) return;
+        if(event instanceof UserUpdateNameEvent) {
+            UserUpdateNameEvent e = (UserUpdateNameEvent)event;
+            User user = e.getUser();
+            remove(e.getOldName(), user.getDiscriminator(), user.getIdLong());
+            add(user);
+        } else if(event instanceof UserUpdateDiscriminatorEvent) {
+            UserUpdateDiscriminatorEvent e = (UserUpdateDiscriminatorEvent)event;
+            User user = e.getUser();
+            remove(user.getName(), e.getOldDiscriminator(), user.getIdLong());
+            add(user);
+        } else if(event instanceof GuildMemberJoinEvent) {
+            add(((GuildMemberJoinEvent)event).getUser());
+        } else if(event instanceof GuildJoinEvent) {
+            ((GuildJoinEvent)event).getGuild().getMemberCache().forEach(m -> add(m.getUser()));
+        } else if(event instanceof GuildReadyEvent) {
+            ((GuildReadyEvent)event).getGuild().getMemberCache().forEach(m -> add(m.getUser()));
+        } else if(event instanceof GuildAvailableEvent) {
+            ((GuildAvailableEvent)event).getGuild().getMemberCache().forEach(m -> add(m.getUser()));
+        } else if(event instanceof ReconnectedEvent) {
+            //reconnecting without resuming recreates the cache of the shard, without firing member events.
+            //stale entries are harmless, as candidates are checked against the cache
+            indexedShards.remove(event.getJDA());
+        } else if(event instanceof GuildMemberLeaveEvent) {
+            User user = ((GuildMemberLeaveEvent)event).getUser();
+            JDA jda = event.getJDA();
+            ShardManager shardManager = jda.asBot().getShardManager();
+            //still visible from another guild or shard
+            if(jda.getUserById(user.getIdLong()) != null) return;
+            if(shardManager != null && shardManager.getUserById(user.getIdLong()) != null) return;
+            remove(user.getName(), user.getDiscriminator(), user.getIdLong());
+        }
+    }
+
+    private void index(JDA jda) {
+        if(indexedShards.contains(jda)) return;
+        synchronized(this) {
+            //marked first, so updates received while indexing aren't lost
+            if(!indexedShards.add(jda)) return;
+            jda.getUserCache().forEach(this::add);
+        }
+    }
+
+    private void add(User user) {
+        int discriminator = UserTag.parseDiscriminator(user.getDiscriminator());
+        if(discriminator < 0) return;
+        long key = key(user.getName(), discriminator);
+        segment(key).add(key, user.getIdLong());
+    }
+
+    private void remove(String name, String discriminatorString, long id) {
+        int discriminator = UserTag.parseDiscriminator(discriminatorString);
+        if(discriminator < 0) return;
+        long key = key(name, discriminator);
+        segment(key).remove(key, id);
+    }
+
+    private Segment segment(long key) {
+        return segments[(int)(key >>> 60) & (SEGMENTS - 1)];
+    }
+
+    //hash of the case folded name and discriminator, same equality as String#equalsIgnoreCase
+    private static long key(String name, int discriminator) {
+        long h = 0xcbf29ce484222325L;
+        for(int i = 0; i < name.length(); i++) {
+            h ^= Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+            h *= 0x100000001b3L;
+        }
+        h ^= discriminator;
+        h *= 0x100000001b3L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    //open addressing multimap of key to user ID, with linear probing. IDs are never 0, so 0 marks empty slots.
+    private static class Segment {
+        private long[] keys = new long[16];
+        private long[] ids = new long[16];
+        private int size;
+
+        synchronized long[] get(long key) {
+            long[] keys = this.keys;
+            long[] ids = this.ids;
+            int mask = keys.length - 1;
+            long[] found = null;
+            int count = 0;
+            for(int i = (int)key & mask; ids[i] != 0; i = (i + 1) & mask) {
+                if(keys[i] != key) continue;
+                if(found == null) {
+                    found = new long[2];
+                } else if(count == found.length) {
+                    long[] grown = new long[count * 2];
+                    System.arraycopy(found, 0, grown, 0, count);
+                    found = grown;
+                }
+                found[count++] = ids[i];
+            }
+            if(found == null) return new long[0];
+            if(count == found.length) return found;
+            long[] result = new long[count];
+            System.arraycopy(found, 0, result, 0, count);
+            return result;
+        }
+
+        synchronized void add(long key, long id) {
+            int mask = keys.length - 1;
+            int i = (int)key & mask;
+            for(; ids[i] != 0; i = (i + 1) & mask) {
+                if(ids[i] == id && keys[i] == key) return;
+            }
+            keys[i] = key;
+            ids[i] = id;
+            //keep the load factor under 0.6
+            if(++size * 5 > keys.length * 3) {
+                resize();
+            }
+        }
+
+        synchronized void remove(long key, long id) {
+            int mask = keys.length - 1;
+            int i = (int)key & mask;
+            while(ids[i] != id || keys[i] != key) {
+                if(ids[i] == 0) return;
+                i = (i + 1) & mask;
+            }
+            //shift back following entries of the probe sequence, so lookups don't stop at the hole
+            int j = i;
+            while(true) {
+                j = (j + 1) & mask;
+                if(ids[j] == 0) break;
+                int home = (int)keys[j] & mask;
+                boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if(movable) {
+                    keys[i] = keys[j];
+                    ids[i] = ids[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            ids[i] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldIds = ids;
+            keys = new long[oldKeys.length * 2];
+            ids = new long[oldIds.length * 2];
+            int mask = keys.length - 1;
+            for(int j = 0; j < oldIds.length; j++) {
+                if(oldIds[j] == 0) continue;
+                int i = (int)oldKeys[j] & mask;
+                while(ids[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                ids[i] = oldIds[j];
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package sox.impl;
 
 import net.dv8tion.jda.core.entities.Category;
+import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.TextChannel;
@@ -16,18 +17,29 @@ import sox.command.dispatch.ParserRegistry;
 import sox.command.jda.Command;
 import sox.command.jda.Context;
 import sox.command.jda.PrefixProvider;
+import sox.command.jda.argument.ChannelNameIndex;
 import sox.command.jda.argument.JDAParsers;
+import sox.command.jda.argument.UserTagIndex;
 import sox.command.jda.dispatch.config.CurrentShard;
+import sox.command.prefix.PrefixMatcher;
 
 import java.lang.annotation.Annotation;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public class JDASoxImpl extends SoxImpl<Message, Context, Command> implements EventListener {
     protected final List<PrefixProvider> prefixProviders;
+    protected final ChannelNameIndex channelNameIndex = new ChannelNameIndex();
+    protected final UserTagIndex userTagIndex = new UserTagIndex();
+    private final PrefixStep[] prefixSteps;
 
     public JDASoxImpl(List<PrefixProvider> prefixProviders) {
         this.prefixProviders = prefixProviders;
+        this.prefixSteps = PrefixStep.compile(prefixProviders);
+        serviceManager.registerService(channelNameIndex);
+        serviceManager.registerService(userTagIndex);
     }
 
     @Override
@@ -52,35 +64,98 @@ public class JDASoxImpl extends SoxImpl<Message, Context, Command> implements Ev
     public void onEvent(Event event) {
         if(event instanceof MessageReceivedEvent) {
             accept(((MessageReceivedEvent)event).getMessage());
+        } else {
+            channelNameIndex.onEvent(event);
+            userTagIndex.onEvent(event);
         }
     }
 
     @Override
     public void accept(Message message) {
         if(message.isWebhookMessage() || message.getAuthor().isBot()) return;
-        withCommandManager(cm -> {
-            Iterator<PrefixProvider> it = prefixProviders.iterator();
-            tryNextPrefix(cm, it, message);
-        });
+        execute(message, dispatchKey(message), () -> withCommandManager(cm -> tryPrefixes(cm, message, 0)));
     }
 
-    private static void tryNextPrefix(CommandManager<Message, Context, Command> manager, Iterator<PrefixProvider> providers, Message message) {
-        if(!providers.hasNext()) return;
-        providers.next().getPrefixes(manager.sox(), message)
-                .handle((prefixes, error) -> {
-                    if(prefixes.isEmpty() || error != null) {
-                        tryNextPrefix(manager, providers, message);
-                        return null;
-                    }
-                    String content = message.getContentRaw();
-                    for(String prefix : prefixes) {
-                        if(content.startsWith(prefix)) {
-                            manager.process(message, content.substring(prefix.length()).trim());
-                            return null;
-                        }
-                    }
-                    tryNextPrefix(manager, providers, message);
-                    return null;
-                });
+    //guild ID, or channel ID for direct messages
+    private static Object dispatchKey(Message message) {
+        Guild guild = message.getGuild();
+        return guild == null ? message.getChannel().getIdLong() : guild.getIdLong();
+    }
+
+    private void tryPrefixes(CommandManager<Message, Context, Command> manager, Message message, int firstStep) {
+        String content = message.getContentRaw();
+        PrefixStep[] steps = prefixSteps;
+        for(int i = firstStep; i < steps.length; i++) {
+            PrefixStep step = steps[i];
+            if(step.matcher != null) {
+                int length = step.matcher.match(content);
+                if(length >= 0) {
+                    manager.process(message, content.substring(length).trim());
+                    return;
+                }
+                continue;
+            }
+            CompletionStage<List<String>> stage = step.provider.getPrefixes(manager.sox(), message);
+            //already completed stages are handled without chaining
+            if(stage instanceof CompletableFuture && ((CompletableFuture<?>)stage).isDone()) {
+                CompletableFuture<List<String>> future = (CompletableFuture<List<String>>)stage;
+                if(!future.isCompletedExceptionally() && tryProcess(manager, message, content, future.join())) {
+                    return;
+                }
+                continue;
+            }
+            int next = i + 1;
+            stage.handle((prefixes, error) -> {
+                if(error != null || !tryProcess(manager, message, content, prefixes)) {
+                    tryPrefixes(manager, message, next);
+                }
+                return null;
+            });
+            return;
+        }
+    }
+
+    private static boolean tryProcess(CommandManager<Message, Context, Command> manager, Message message, String content, List<String> prefixes) {
+        if(prefixes == null) return false;
+        for(String prefix : prefixes) {
+            if(content.startsWith(prefix)) {
+                manager.process(message, content.substring(prefix.length()).trim());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //either a matcher for the static prefixes of consecutive providers, or a single dynamic provider
+    private static class PrefixStep {
+        final PrefixMatcher matcher;
+        final PrefixProvider provider;
+
+        private PrefixStep(PrefixMatcher matcher, PrefixProvider provider) {
+            this.matcher = matcher;
+            this.provider = provider;
+        }
+
+        static PrefixStep[] compile(List<PrefixProvider> providers) {
+            List<PrefixStep> steps = new ArrayList<>();
+            List<String> merged = null;
+            for(PrefixProvider provider : providers) {
+                List<String> prefixes = provider.staticPrefixes();
+                if(prefixes != null) {
+                    if(merged == null) merged = new ArrayList<>();
+                    merged.addAll(prefixes);
+                    continue;
+                }
+                if(merged != null) {
+                    steps.add(new PrefixStep(PrefixMatcher.of(merged), null));
+                    merged = null;
+                }
+                steps.add(new PrefixStep(null, provider));
+            }
+            if(merged != null) {
+                steps.add(new PrefixStep(PrefixMatcher.of(merged), null));
+            }
+            return steps.toArray(new PrefixStep[0]);
+        }
     }
 }
@@ -0,0 +1,201 @@
+package sox.processor;
+
+import sox.command.dispatch.DispatchIgnore;
+import sox.command.index.CommandIndex;
+import sox.command.meta.Alias;
+import sox.command.meta.Category;
+import sox.command.meta.Meta;
+import sox.command.meta.OverrideName;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor generating the {@link CommandIndex command index} of the classes being compiled.
+ * <br>Usage, with gradle:
+ * <pre><code>
+ * dependencies {
+ *     annotationProcessor 'com.github.natanbc:sox-processor:VERSION'
+ * }
+ * </code></pre>
+ *
+ * <br>Commands don't need to be annotated, every subclass of {@link sox.command.AbstractCommand AbstractCommand}
+ * is indexed. When compiling incrementally, entries of a previously generated index are kept as long as their
+ * classes still exist and are still commands.
+ */
+@SupportedAnnotationTypes("*")
+public class CommandIndexProcessor extends AbstractProcessor {
+    private static final String COMMAND_CLASS = "sox.command.AbstractCommand";
+
+    private final Map<String, CommandIndex.Entry> entries = new LinkedHashMap<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+    private Elements elements;
+    private Types types;
+    private TypeNames typeNames;
+    private TypeMirror commandType;
+    private boolean loadedPrevious;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.typeNames = new TypeNames(elements, types);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if(commandType == null) {
+            TypeElement command = elements.getTypeElement(COMMAND_CLASS);
+            //sox isn't in the class path, nothing to index
+            if(command == null) return false;
+            commandType = types.erasure(command.asType());
+        }
+        if(roundEnv.processingOver()) {
+            if(!loadedPrevious) return false;
+            writeIndex();
+            return false;
+        }
+        for(Element element : roundEnv.getRootElements()) {
+            if(element.getKind().isClass() || element.getKind().isInterface()) {
+                visit((TypeElement)element);
+            }
+        }
+        if(!loadedPrevious) {
+            loadedPrevious = true;
+            loadPrevious();
+        }
+        return false;
+    }
+
+    private void visit(TypeElement type) {
+        if(isIndexed(type)) {
+            entries.put(binaryName(type), entry(type));
+            originatingElements.add(type);
+        }
+        for(TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            visit(nested);
+        }
+    }
+
+    private void loadPrevious() {
+        CommandIndex previous;
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", CommandIndex.RESOURCE);
+            try(Reader reader = file.openReader(true)) {
+                previous = CommandIndex.read(reader);
+            }
+        } catch(IOException e) {
+            //no previous index
+            return;
+        }
+        for(CommandIndex.Entry old : previous.entries()) {
+            if(entries.containsKey(old.className())) continue;
+            TypeElement type = elements.getTypeElement(old.className().replace('$', '.'));
+            if(type != null && binaryName(type).equals(old.className()) && isIndexed(type)) {
+                entries.put(old.className(), entry(type));
+            }
+        }
+    }
+
+    private void writeIndex() {
+        if(entries.isEmpty()) return;
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    CommandIndex.RESOURCE, originatingElements.toArray(new Element[0]));
+            try(Writer writer = file.openWriter()) {
+                new CommandIndex(new ArrayList<>(entries.values())).write(writer);
+            }
+        } catch(IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write command index: " + e);
+        }
+    }
+
+    private boolean isIndexed(TypeElement type) {
+        if(type.getKind() != ElementKind.CLASS) return false;
+        if(type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        NestingKind nesting = type.getNestingKind();
+        if(nesting != NestingKind.TOP_LEVEL &&
+                (nesting != NestingKind.MEMBER || !type.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+        return types.isSubtype(types.erasure(type.asType()), commandType);
+    }
+
+    private CommandIndex.Entry entry(TypeElement type) {
+        //same rules as AbstractCommand
+        OverrideName overrideName = type.getAnnotation(OverrideName.class);
+        String name;
+        if(overrideName == null || overrideName.value().trim().isEmpty()) {
+            name = type.getSimpleName().toString().toLowerCase();
+        } else {
+            name = overrideName.value().trim().toLowerCase();
+        }
+        Category category = type.getAnnotation(Category.class);
+        List<String> aliases = new ArrayList<>();
+        for(Alias alias : type.getAnnotationsByType(Alias.class)) {
+            aliases.add(alias.value());
+        }
+        Map<String, String> meta = new LinkedHashMap<>();
+        for(Meta m : type.getAnnotationsByType(Meta.class)) {
+            if(meta.put(m.name(), m.value()) != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Duplicate meta for key " + m.name(), type);
+            }
+        }
+        List<List<String>> handlers = new ArrayList<>();
+        for(ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if(!method.getSimpleName().contentEquals("process")) continue;
+            if(!method.getModifiers().contains(Modifier.PUBLIC)) continue;
+            if(method.getAnnotation(DispatchIgnore.class) != null) continue;
+            List<String> parameters = new ArrayList<>();
+            for(VariableElement parameter : method.getParameters()) {
+                parameters.add(typeNames.className(parameter.asType()));
+            }
+            handlers.add(parameters);
+        }
+        Element enclosing = type.getEnclosingElement();
+        return new CommandIndex.Entry(
+                binaryName(type),
+                type.getNestingKind() == NestingKind.MEMBER ? binaryName((TypeElement)enclosing) : null,
+                name,
+                category == null ? null : category.value(),
+                aliases,
+                meta,
+                handlers
+        );
+    }
+
+    private String binaryName(TypeElement type) {
+        return typeNames.binaryName(type);
+    }
+}
@@ -0,0 +1,462 @@
+package sox.processor;
+
+import sox.command.dispatch.DispatchIgnore;
+import sox.command.dispatch.GeneratedCommandDispatcher;
+import sox.inject.Weight;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor generating the {@link sox.command.dispatch.GeneratedDispatch dispatch code} used by
+ * {@link GeneratedCommandDispatcher}, for every command class being compiled.
+ *
+ * <br>The generated code mirrors the decision tree built by the dynamic dispatcher: handlers are sorted by the
+ * same rules, consecutive handlers share the parsing of equal leading parameters, and each handler is called
+ * directly. Parsers are still resolved from the {@link sox.command.dispatch.ParserRegistry registry} when the
+ * generated class is instantiated.
+ *
+ * <br>Commands whose class or handler parameter types aren't accessible from their package are skipped, and
+ * dispatched dynamically.
+ */
+@SupportedAnnotationTypes("*")
+public class DispatchProcessor extends AbstractProcessor {
+    private static final String COMMAND_CLASS = "sox.command.AbstractCommand";
+    private static final String CONTEXT_CLASS = "sox.command.AbstractContext";
+
+    private Elements elements;
+    private Types types;
+    private TypeNames typeNames;
+    private TypeMirror commandType;
+    private TypeMirror contextType;
+    private int nextNodeId;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.typeNames = new TypeNames(elements, types);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if(commandType == null) {
+            TypeElement command = elements.getTypeElement(COMMAND_CLASS);
+            //sox isn't in the class path, nothing to generate
+            if(command == null) return false;
+            commandType = types.erasure(command.asType());
+            contextType = types.erasure(elements.getTypeElement(CONTEXT_CLASS).asType());
+        }
+        for(Element element : roundEnv.getRootElements()) {
+            if(element.getKind().isClass() || element.getKind().isInterface()) {
+                visit((TypeElement)element);
+            }
+        }
+        return false;
+    }
+
+    private void visit(TypeElement type) {
+        if(isCommand(type)) {
+            generate(type);
+        }
+        for(TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            visit(nested);
+        }
+    }
+
+    private boolean isCommand(TypeElement type) {
+        if(type.getKind() != ElementKind.CLASS) return false;
+        if(type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        NestingKind nesting = type.getNestingKind();
+        if(nesting != NestingKind.TOP_LEVEL &&
+                (nesting != NestingKind.MEMBER || !type.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+        return types.isSubtype(types.erasure(type.asType()), commandType);
+    }
+
+    private void generate(TypeElement type) {
+        PackageElement pkg = elements.getPackageOf(type);
+        if(!accessible(type, pkg)) return;
+        List<ExecutableElement> handlers = new ArrayList<>();
+        for(ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if(!method.getSimpleName().contentEquals("process")) continue;
+            if(!method.getModifiers().contains(Modifier.PUBLIC)) continue;
+            if(method.getAnnotation(DispatchIgnore.class) != null) continue;
+            for(VariableElement parameter : method.getParameters()) {
+                if(!accessible(types.erasure(parameter.asType()), pkg)) return;
+            }
+            handlers.add(method);
+        }
+        //the dynamic dispatcher throws for these
+        if(handlers.isEmpty()) return;
+        handlers.sort(this::compareHandlers);
+        nextNodeId = 0;
+        Node root = new Node(null, null, -1, -1);
+        for(int i = 0; i < handlers.size(); i++) {
+            insert(root, handlers.get(i), i);
+        }
+
+        String className = GeneratedCommandDispatcher.generatedClassName(typeNames.binaryName(type));
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        String commandName = types.erasure(type.asType()).toString();
+        Source src = new Source();
+        if(!pkg.isUnnamed()) {
+            src.line("package " + pkg.getQualifiedName() + ";").line("");
+        }
+        src.line("/**")
+                .line(" * Dispatch code of {@link " + commandName + "}, generated by sox-processor. Do not edit.")
+                .line(" */")
+                .line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})")
+                .open("public final class " + simpleName + " implements sox.command.dispatch.GeneratedDispatch {");
+        src.line("private final java.lang.reflect.Method[] handlers;");
+        fields(src, root);
+        src.line("");
+        src.open("public " + simpleName + "(sox.command.dispatch.ParserRegistry registry) throws java.lang.NoSuchMethodException {");
+        for(int i = 0; i < handlers.size(); i++) {
+            StringBuilder getMethod = new StringBuilder(commandName).append(".class.getMethod(\"process\"");
+            for(VariableElement parameter : handlers.get(i).getParameters()) {
+                getMethod.append(", ").append(types.erasure(parameter.asType())).append(".class");
+            }
+            src.line("java.lang.reflect.Method m" + i + " = " + getMethod + ");")
+                    .line("sox.command.argument.Parser<?>[] h" + i + " = registry.resolve(m" + i + ");");
+        }
+        StringBuilder methods = new StringBuilder("this.handlers = new java.lang.reflect.Method[] {");
+        for(int i = 0; i < handlers.size(); i++) {
+            if(i != 0) methods.append(", ");
+            methods.append('m').append(i);
+        }
+        src.line(methods.append("};").toString());
+        initializers(src, root);
+        src.close("}").line("");
+        src.line("@Override").open("public java.lang.reflect.Method[] handlers() {").line("return handlers.clone();").close("}").line("");
+        src.line("@Override")
+                .open("public java.lang.Object dispatch(sox.command.AbstractCommand<?, ?> command, sox.command.AbstractContext<?> context) throws java.lang.Throwable {")
+                .line(commandName + " c = (" + commandName + ")command;");
+        if(children(src, root.children, "")) {
+            src.line("return NO_MATCH;");
+        }
+        src.close("}");
+        nodeMethods(src, root, commandName, "", "");
+        src.close("}");
+
+        try(Writer writer = processingEnv.getFiler().createSourceFile(className, type).openWriter()) {
+            writer.write(src.toString());
+        } catch(IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write dispatch code: " + e, type);
+        }
+    }
+
+    //same as DispatchMetadata.NodeBuilder#insert
+    private void insert(Node root, ExecutableElement handler, int index) {
+        List<? extends VariableElement> parameters = handler.getParameters();
+        Node node = root;
+        for(int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            boolean context = types.isSubtype(types.erasure(parameter.asType()), contextType);
+            String key = context ? "" : key(parameter);
+            Node last = node.children.isEmpty() ? null : node.children.get(node.children.size() - 1);
+            if(last == null || last.handler != null || !last.key.equals(key)) {
+                last = new Node(key, context ? null : types.erasure(parameter.asType()), index, i);
+                node.children.add(last);
+            }
+            node = last;
+        }
+        Node leaf = new Node(null, null, index, -1);
+        leaf.handler = handler;
+        node.children.add(leaf);
+    }
+
+    private void fields(Source src, Node node) {
+        for(Node child : node.children) {
+            if(child.handler != null) continue;
+            if(child.type != null) {
+                src.line("private final sox.command.argument.Parser<?> p" + child.id + ";");
+                String primitive = primitiveParser(child.type);
+                if(primitive != null) {
+                    src.line("private final " + primitive + " i" + child.id + ";");
+                }
+            }
+            fields(src, child);
+        }
+    }
+
+    private void initializers(Source src, Node node) {
+        for(Node child : node.children) {
+            if(child.handler != null) continue;
+            if(child.type != null) {
+                src.line("this.p" + child.id + " = h" + child.handlerIndex + "[" + child.parameter + "];");
+                String primitive = primitiveParser(child.type);
+                if(primitive != null) {
+                    src.line("this.i" + child.id + " = p" + child.id + " instanceof " + primitive + " ? (" +
+                            primitive + ")p" + child.id + " : null;");
+                }
+            }
+            initializers(src, child);
+        }
+    }
+
+    //tries each node in order, returns false if a handler is always called
+    //same as DispatchMetadata#walk, nodes with siblings are tried on their own snapshot of the context
+    private boolean children(Source src, List<Node> nodes, String arguments) {
+        if(nodes.get(0).handler == null) {
+            src.line("java.lang.Object x;");
+        }
+        String context = nodes.size() > 1 ? "context.snapshot()" : "context";
+        for(Node node : nodes) {
+            if(node.handler != null) {
+                invoke(src, node.handler);
+                return false;
+            }
+            src.line("if((x = n" + node.id + "(c, " + context + arguments + ")) != NO_MATCH) return x;");
+        }
+        return true;
+    }
+
+    //one method per node, so each one is small enough to be compiled and inlined on it's own
+    private void nodeMethods(Source src, Node node, String commandName, String parameters, String arguments) {
+        for(Node child : node.children) {
+            if(child.handler != null) continue;
+            String childParameters = parameters;
+            String childArguments = arguments;
+            String local = "a" + child.parameter;
+            if(child.type != null) {
+                childParameters += ", " + child.type + " " + local;
+                childArguments += ", " + local;
+            }
+            src.line("")
+                    .open("private java.lang.Object n" + child.id + "(" + commandName + " c, sox.command.AbstractContext<?> context" +
+                            parameters + ") throws java.lang.Throwable {");
+            if(child.type != null) {
+                parse(src, child, local);
+            }
+            if(children(src, child.children, childArguments)) {
+                src.line("return NO_MATCH;");
+            }
+            src.close("}");
+            nodeMethods(src, child, commandName, childParameters, childArguments);
+        }
+    }
+
+    private void parse(Source src, Node node, String local) {
+        String primitive = primitiveParser(node.type);
+        if(primitive == null) {
+            src.line("java.util.Optional<?> r = context.tryArgument(p" + node.id + ");")
+                    .line("if(!r.isPresent()) return NO_MATCH;")
+                    .line(node.type + " " + local + " = (" + boxed(node.type) + ")r.get();");
+            return;
+        }
+        String parser = "i" + node.id;
+        src.line(node.type + " " + local + ";");
+        src.open("if(" + parser + " != null) {");
+        switch(node.type.getKind()) {
+            case INT:
+                src.line("long v = context.tryInt(" + parser + ");")
+                        .line("if(v == sox.command.argument.IntParser.NO_MATCH) return NO_MATCH;")
+                        .line(local + " = (int)v;");
+                break;
+            case LONG:
+                src.line("long v = context.tryLong(" + parser + ");")
+                        .line("if(v == sox.command.argument.LongParser.NO_MATCH) return NO_MATCH;")
+                        .line(local + " = v;");
+                break;
+            default:
+                src.line("double v = context.tryDouble(" + parser + ");")
+                        .line("if(java.lang.Double.isNaN(v)) return NO_MATCH;")
+                        .line(local + " = v;");
+        }
+        src.close("} else {").indent();
+        src.line("java.util.Optional<?> r = context.tryArgument(p" + node.id + ");")
+                .line("if(!r.isPresent()) return NO_MATCH;")
+                .line(local + " = (" + boxed(node.type) + ")r.get();");
+        src.close("}");
+    }
+
+    private void invoke(Source src, ExecutableElement handler) {
+        StringBuilder call = new StringBuilder("c.process(");
+        List<? extends VariableElement> parameters = handler.getParameters();
+        for(int i = 0; i < parameters.size(); i++) {
+            if(i != 0) call.append(", ");
+            TypeMirror type = types.erasure(parameters.get(i).asType());
+            if(types.isSubtype(type, contextType)) {
+                call.append('(').append(type).append(")context");
+            } else {
+                call.append('a').append(i);
+            }
+        }
+        call.append(");");
+        //the memo is scoped to choosing a handler, not to the handler itself
+        src.line("context.setParseMemo(null);");
+        if(handler.getReturnType().getKind() == TypeKind.VOID) {
+            src.line(call.toString()).line("return null;");
+        } else {
+            src.line("return " + call);
+        }
+    }
+
+    //parsers used without boxing, same as DispatchMetadata#kinds
+    private static String primitiveParser(TypeMirror type) {
+        switch(type.getKind()) {
+            case INT: return "sox.command.argument.IntParser";
+            case LONG: return "sox.command.argument.LongParser";
+            case DOUBLE: return "sox.command.argument.DoubleParser";
+            default: return null;
+        }
+    }
+
+    private String boxed(TypeMirror type) {
+        if(type.getKind().isPrimitive()) {
+            return types.boxedClass((PrimitiveType)type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    //parsers are resolved from the type and annotations of a parameter, so equal keys mean equivalent parsers
+    private static String key(VariableElement parameter) {
+        StringBuilder sb = new StringBuilder(parameter.asType().toString());
+        for(AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+            sb.append(' ').append(annotation);
+        }
+        return sb.toString();
+    }
+
+    //same as Injector.EXECUTABLE_COMPARATOR
+    private int compareHandlers(ExecutableElement o1, ExecutableElement o2) {
+        Weight w1 = o1.getAnnotation(Weight.class);
+        Weight w2 = o2.getAnnotation(Weight.class);
+        if(w1 != null || w2 != null) {
+            if(w1 == null) return 1;
+            if(w2 == null) return -1;
+            if(w1.value() != w2.value()) return w2.value() - w1.value();
+        }
+        List<? extends VariableElement> args1 = o1.getParameters();
+        List<? extends VariableElement> args2 = o2.getParameters();
+        if(args1.size() > args2.size()) return -1;
+        if(args2.size() > args1.size()) return 1;
+        for(int i = 0; i < args1.size(); i++) {
+            TypeMirror c1 = types.erasure(args1.get(i).asType());
+            TypeMirror c2 = types.erasure(args2.get(i).asType());
+            if(types.isSameType(c1, c2)) continue;
+            if(assignableFrom(c1, c2)) return 1;
+            if(assignableFrom(c2, c1)) return -1;
+        }
+        for(int i = 0; i < args1.size(); i++) {
+            int c = typeNames.className(args1.get(i).asType()).compareTo(typeNames.className(args2.get(i).asType()));
+            if(c != 0) return c;
+        }
+        return 0;
+    }
+
+    //Class#isAssignableFrom
+    private boolean assignableFrom(TypeMirror to, TypeMirror from) {
+        if(to.getKind().isPrimitive() || from.getKind().isPrimitive()) {
+            return types.isSameType(to, from);
+        }
+        return types.isSubtype(from, to);
+    }
+
+    private boolean accessible(TypeMirror type, PackageElement pkg) {
+        if(type.getKind() == TypeKind.ARRAY) {
+            return accessible(((ArrayType)type).getComponentType(), pkg);
+        }
+        if(type.getKind() == TypeKind.DECLARED) {
+            return accessible((TypeElement)((DeclaredType)type).asElement(), pkg);
+        }
+        return true;
+    }
+
+    private boolean accessible(TypeElement type, PackageElement pkg) {
+        boolean samePackage = elements.getPackageOf(type).equals(pkg);
+        for(Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            Set<Modifier> modifiers = e.getModifiers();
+            if(modifiers.contains(Modifier.PRIVATE)) return false;
+            if(!samePackage && !modifiers.contains(Modifier.PUBLIC)) return false;
+        }
+        return true;
+    }
+
+    private class Node {
+        final List<Node> children = new ArrayList<>();
+        final String key;
+        //null for context parameters
+        final TypeMirror type;
+        //handler and parameter the parser is resolved from
+        final int handlerIndex;
+        final int parameter;
+        final int id = nextNodeId++;
+        ExecutableElement handler;
+
+        Node(String key, TypeMirror type, int handlerIndex, int parameter) {
+            this.key = key;
+            this.type = type;
+            this.handlerIndex = handlerIndex;
+            this.parameter = parameter;
+        }
+    }
+
+    private static class Source {
+        private final StringBuilder sb = new StringBuilder();
+        private int indent;
+
+        Source line(String line) {
+            if(!line.isEmpty()) {
+                for(int i = 0; i < indent; i++) sb.append("    ");
+            }
+            sb.append(line).append('\n');
+            return this;
+        }
+
+        Source open(String line) {
+            line(line);
+            indent++;
+            return this;
+        }
+
+        Source close(String line) {
+            indent--;
+            return line(line);
+        }
+
+        Source indent() {
+            indent++;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
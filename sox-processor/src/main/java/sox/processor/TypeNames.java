@@ -0,0 +1,53 @@
+package sox.processor;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Names of types as seen by the processors, in the format returned by {@link Class#getName()}.
+ */
+final class TypeNames {
+    private final Elements elements;
+    private final Types types;
+
+    TypeNames(Elements elements, Types types) {
+        this.elements = elements;
+        this.types = types;
+    }
+
+    //same format as Class#getName(), of the erasure
+    String className(TypeMirror type) {
+        type = types.erasure(type);
+        if(type.getKind() == TypeKind.ARRAY) {
+            return "[" + descriptor(((ArrayType)type).getComponentType());
+        }
+        if(type.getKind() == TypeKind.DECLARED) {
+            return binaryName((TypeElement)((DeclaredType)type).asElement());
+        }
+        return type.toString();
+    }
+
+    String binaryName(TypeElement type) {
+        return elements.getBinaryName(type).toString();
+    }
+
+    private String descriptor(TypeMirror type) {
+        switch(type.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case SHORT: return "S";
+            case CHAR: return "C";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case ARRAY: return "[" + descriptor(((ArrayType)type).getComponentType());
+            default: return "L" + className(type) + ";";
+        }
+    }
+}